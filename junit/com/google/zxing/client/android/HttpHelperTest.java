@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+import junit.framework.TestCase;
+import android.test.suitebuilder.annotation.MediumTest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class HttpHelperTest extends TestCase {
+    private File cacheDir;
+    private ScriptedServer server;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        cacheDir = File.createTempFile("http", "cache");
+        assertTrue(cacheDir.delete());
+        HttpHelper.setResponseCache(new HttpResponseCache(cacheDir, 1024L * 1024L));
+        server = new ScriptedServer();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        HttpHelper.setResponseCache(null);
+        server.close();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+        super.tearDown();
+    }
+
+    @MediumTest
+    public void testFreshResponseServedFromCache() throws IOException {
+        server.enqueue("200 OK", "Cache-Control: max-age=60", "one");
+        assertEquals("one", download("/fresh"));
+        assertEquals("one", download("/fresh"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @MediumTest
+    public void testStaleResponseRevalidatedWithETag() throws IOException {
+        server.enqueue("200 OK", "Cache-Control: max-age=0\r\nETag: \"v1\"", "one");
+        server.enqueue("304 Not Modified", "Cache-Control: max-age=60", null);
+        assertEquals("one", download("/etag"));
+        assertNull(server.getRequest(0).get("if-none-match"));
+        assertEquals("one", download("/etag"));
+        assertEquals("\"v1\"", server.getRequest(1).get("if-none-match"));
+        // The 304 renewed the entry, so no third request
+        assertEquals("one", download("/etag"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @MediumTest
+    public void testNoStoreResponseNotCached() throws IOException {
+        server.enqueue("200 OK", "Cache-Control: no-store", "one");
+        server.enqueue("200 OK", "Cache-Control: no-store", "two");
+        assertEquals("one", download("/nostore"));
+        assertEquals("two", download("/nostore"));
+        assertEquals(2, server.getRequestCount());
+        assertNull(server.getRequest(1).get("if-none-match"));
+    }
+
+    @MediumTest
+    public void testStaleResponseUsedWhenServerUnreachable() throws IOException {
+        server.enqueue("200 OK", "Cache-Control: max-age=0\r\nETag: \"v1\"", "one");
+        String path = "/stale";
+        assertEquals("one", download(path));
+        String url = server.getUrl(path);
+        server.close();
+        assertEquals("one", HttpHelper.downloadViaHttp(url, HttpHelper.ContentType.TEXT).toString());
+    }
+
+    @MediumTest
+    public void testUncachedFailurePropagates() throws IOException {
+        String url = server.getUrl("/missing");
+        server.close();
+        try {
+            HttpHelper.downloadViaHttp(url, HttpHelper.ContentType.TEXT);
+            fail("Expected IOException");
+        } catch (IOException ioe) {
+            // good
+        }
+    }
+
+    private String download(String path) throws IOException {
+        return HttpHelper.downloadViaHttp(server.getUrl(path), HttpHelper.ContentType.TEXT).toString();
+    }
+
+    /**
+     * Answers each request on the loopback interface with the next scripted response, one
+     * connection per request, and keeps the request headers, with lower-case names.
+     */
+    private static final class ScriptedServer implements Runnable {
+        private final ServerSocket serverSocket;
+        private final Thread thread;
+        private final LinkedList<String> responses = new LinkedList<String>();
+        private final List<Map<String, String>> requests = new ArrayList<Map<String, String>>();
+
+        ScriptedServer() throws IOException {
+            serverSocket = new ServerSocket(0, 0, InetAddress.getByName("127.0.0.1"));
+            thread = new Thread(this, "ScriptedServer");
+            thread.start();
+        }
+
+        String getUrl(String path) {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort() + path;
+        }
+
+        synchronized void enqueue(String status, String headers, String body) {
+            StringBuilder response = new StringBuilder();
+            response.append("HTTP/1.1 ").append(status).append("\r\n");
+            response.append(headers).append("\r\n");
+            response.append("Connection: close\r\n");
+            if (body != null) {
+                response.append("Content-Type: text/plain; charset=UTF-8\r\n");
+                response.append("Content-Length: ").append(body.length()).append("\r\n");
+            }
+            response.append("\r\n");
+            if (body != null) {
+                response.append(body);
+            }
+            responses.add(response.toString());
+        }
+
+        synchronized int getRequestCount() {
+            return requests.size();
+        }
+
+        synchronized Map<String, String> getRequest(int index) {
+            return requests.get(index);
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            try {
+                thread.join(1000L);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException ioe) {
+                    // Closed
+                    return;
+                }
+                try {
+                    serve(socket);
+                } catch (IOException ioe) {
+                    // The client gave up; serve the next one
+                } finally {
+                    try {
+                        socket.close();
+                    } catch (IOException ioe) {
+                        // continue
+                    }
+                }
+            }
+        }
+
+        private void serve(Socket socket) throws IOException {
+            BufferedReader in =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            Map<String, String> headers = new HashMap<String, String>();
+            String line = in.readLine();
+            if (line == null) {
+                return;
+            }
+            while ((line = in.readLine()) != null && line.length() > 0) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH),
+                        line.substring(colon + 1).trim());
+                }
+            }
+            String response;
+            synchronized (this) {
+                requests.add(headers);
+                response = responses.isEmpty()
+                    ? "HTTP/1.1 500 No Response Scripted\r\nConnection: close\r\nContent-Length: 0\r\n\r\n"
+                    : responses.removeFirst();
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(response.getBytes("UTF-8"));
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+import junit.framework.TestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.Arrays;
+
+public class RegionTrackerTest extends TestCase {
+    // Portrait 480x640 decode region
+    private static final int[] REGION = {0, 0, 480, 640};
+
+    @SmallTest
+    public void testNoPointsNoPrediction() {
+        RegionTracker tracker = new RegionTracker();
+        assertNull(tracker.predict(REGION));
+        tracker.frameFinished();
+        assertNull(tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testResultCropsAroundItsPoints() {
+        RegionTracker tracker = new RegionTracker();
+        addResult(tracker, 100, 200, 300, 200);
+        // 200 wide, so a margin of 100 all round, clipped to the region on the left
+        assertCrop(new int[] {0, 100, 401, 201}, tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testResultReplacesCandidatesOfItsFrame() {
+        RegionTracker tracker = new RegionTracker();
+        tracker.addCandidatePoint(10, 630);
+        addResult(tracker, 100, 200, 300, 200);
+        assertCrop(new int[] {0, 100, 401, 201}, tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testCandidatesNeedTwoFramesInAgreement() {
+        RegionTracker tracker = new RegionTracker();
+        addCandidates(tracker, 200, 300, 260, 300);
+        assertNull(tracker.predict(REGION));
+        addCandidates(tracker, 200, 300, 260, 300);
+        assertCrop(new int[] {170, 270, 121, 61}, tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testScatteredCandidatesAreIgnored() {
+        RegionTracker tracker = new RegionTracker();
+        addCandidates(tracker, 200, 300, 260, 300);
+        addCandidates(tracker, 100, 100, 160, 100);
+        assertNull(tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testCropGrowsWithApproachingSymbol() {
+        RegionTracker tracker = new RegionTracker();
+        addResult(tracker, 200, 300, 220, 300);
+        addResult(tracker, 180, 300, 260, 300);
+        // Union of both boxes, pushed 10 right by the motion of their center, margin 45
+        assertCrop(new int[] {135, 255, 181, 91}, tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testCropLeadsDriftingSymbol() {
+        RegionTracker tracker = new RegionTracker();
+        addResult(tracker, 100, 300, 200, 300);
+        addResult(tracker, 120, 300, 220, 300);
+        int[] crop = tracker.predict(REGION);
+        assertCrop(new int[] {30, 230, 281, 141}, crop);
+        // Still covers the symbol if it moves another 20 to the right
+        assertTrue(crop[0] + crop[2] > 240);
+    }
+
+    @SmallTest
+    public void testFallsBackAfterMisses() {
+        RegionTracker tracker = new RegionTracker();
+        addResult(tracker, 100, 200, 300, 200);
+        for (int i = 0; i < 3; i++) {
+            tracker.frameFinished();
+            assertNotNull(tracker.predict(REGION));
+        }
+        tracker.frameFinished();
+        assertNull(tracker.predict(REGION));
+        // And starts again from scratch, so one frame of candidates is not enough
+        addCandidates(tracker, 200, 300, 260, 300);
+        assertNull(tracker.predict(REGION));
+    }
+
+    @SmallTest
+    public void testNoPredictionWhenCropIsNearlyWholeRegion() {
+        RegionTracker tracker = new RegionTracker();
+        addResult(tracker, 20, 20, 460, 620);
+        assertNull(tracker.predict(REGION));
+    }
+
+    private static void addResult(RegionTracker tracker, float x1, float y1, float x2, float y2) {
+        tracker.addResultPoint(x1, y1);
+        tracker.addResultPoint(x2, y2);
+        tracker.frameFinished();
+    }
+
+    private static void addCandidates(RegionTracker tracker, float x1, float y1, float x2, float y2) {
+        tracker.addCandidatePoint(x1, y1);
+        tracker.addCandidatePoint(x2, y2);
+        tracker.frameFinished();
+    }
+
+    private static void assertCrop(int[] expected, int[] actual) {
+        assertNotNull(actual);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.common.executor;
+
+import junit.framework.TestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class EnrichmentExecutorTest extends TestCase {
+    private static final Object OWNER = new Object();
+    private static final Object OTHER_OWNER = new Object();
+
+    // Work that ran, and results delivered, in order, as "run:name" and "name=result"
+    private final List<String> events = new ArrayList<String>();
+    private EnrichmentExecutor executor;
+    private CountDownLatch gate;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // One worker, and results delivered straight from it
+        executor = new EnrichmentExecutor(1, new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        });
+        // Keeps the worker busy so that everything else queues up behind it
+        gate = new CountDownLatch(1);
+        executor.execute(OWNER, "gate", EnrichmentExecutor.Priority.HIGH, new BlockingTask(gate));
+    }
+
+    @SmallTest
+    public void testEqualKeysShareOneExecution() throws InterruptedException {
+        executor.execute(OWNER, "key", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("a"));
+        executor.execute(OTHER_OWNER, "key", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("b"));
+        runQueued();
+        assertEvents("run:a", "a=a", "b=a");
+    }
+
+    @SmallTest
+    public void testQueuedInPriorityOrder() throws InterruptedException {
+        executor.execute(OWNER, "low", EnrichmentExecutor.Priority.LOW, new RecordingTask("low"));
+        executor.execute(OWNER, "normal", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("normal"));
+        executor.execute(OWNER, "high", EnrichmentExecutor.Priority.HIGH, new RecordingTask("high"));
+        runQueued();
+        assertEvents("run:high", "high=high", "run:normal", "normal=normal", "run:low", "low=low");
+    }
+
+    @SmallTest
+    public void testMoreUrgentRequestBoostsQueuedWork() throws InterruptedException {
+        executor.execute(OWNER, "prefetch", EnrichmentExecutor.Priority.LOW, new RecordingTask("prefetch"));
+        executor.execute(OWNER, "normal", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("normal"));
+        executor.execute(OTHER_OWNER, "prefetch", EnrichmentExecutor.Priority.HIGH, new RecordingTask("wanted"));
+        runQueued();
+        assertEvents("run:prefetch", "prefetch=prefetch", "wanted=prefetch", "run:normal", "normal=normal");
+    }
+
+    @SmallTest
+    public void testCancelAllDropsUnwantedWork() throws InterruptedException {
+        executor.execute(OWNER, "mine", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("mine"));
+        executor.execute(OWNER, "shared", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("shared"));
+        executor.execute(OTHER_OWNER, "shared", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("other"));
+        executor.cancelAll(OWNER);
+        runQueued();
+        // Only the other owner's request is still wanted, so only it gets a result
+        assertEvents("run:shared", "other=shared");
+    }
+
+    @SmallTest
+    public void testFailedWorkDeliversNull() throws InterruptedException {
+        executor.execute(OWNER, "failing", EnrichmentExecutor.Priority.NORMAL, new RecordingTask("failing") {
+            @Override
+            public String doInBackground() {
+                super.doInBackground();
+                throw new IllegalStateException();
+            }
+        });
+        runQueued();
+        assertEvents("run:failing", "failing=null");
+    }
+
+    /**
+     * Opens the gate and waits until the queue has drained, using work queued last at the lowest
+     * priority.
+     */
+    private void runQueued() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(OWNER, "last", EnrichmentExecutor.Priority.LOW, new LastTask(done));
+        gate.countDown();
+        assertTrue(done.await(5L, TimeUnit.SECONDS));
+    }
+
+    private void assertEvents(String... expected) {
+        List<String> expectedEvents = new ArrayList<String>();
+        for (String event : expected) {
+            expectedEvents.add(event);
+        }
+        synchronized (events) {
+            assertEquals(expectedEvents, events);
+        }
+    }
+
+    private void record(String event) {
+        synchronized (events) {
+            events.add(event);
+        }
+    }
+
+    private class RecordingTask implements EnrichmentExecutor.Task<String> {
+        private final String name;
+
+        RecordingTask(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String doInBackground() {
+            record("run:" + name);
+            return name;
+        }
+
+        @Override
+        public void onPostExecute(String result) {
+            record(name + '=' + result);
+        }
+    }
+
+    private static final class BlockingTask implements EnrichmentExecutor.Task<Object> {
+        private final CountDownLatch gate;
+
+        BlockingTask(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public Object doInBackground() {
+            try {
+                gate.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public void onPostExecute(Object result) {
+            // nothing to record
+        }
+    }
+
+    private static final class LastTask implements EnrichmentExecutor.Task<Object> {
+        private final CountDownLatch done;
+
+        LastTask(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public Object doInBackground() {
+            return null;
+        }
+
+        @Override
+        public void onPostExecute(Object result) {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.multi;
+
+import junit.framework.TestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.oned.EAN13Writer;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class GenericMultipleBarcodeReaderTest extends TestCase {
+    private static final String[] CODES = {"5901234123457", "4006381333931", "9780201379624"};
+    private static final int LABEL_WIDTH = 240;
+    private static final int LABEL_HEIGHT = 120;
+    private static final int GAP = 60;
+
+    @SmallTest
+    public void testFindsEveryLabel() throws NotFoundException, WriterException {
+        assertFindsAll(new GenericMultipleBarcodeReader(new MultiFormatReader()), makeCarton());
+    }
+
+    @SmallTest
+    public void testFindsEveryLabelWithSharedBinarization() throws NotFoundException, WriterException {
+        assertFindsAll(new GenericMultipleBarcodeReader(new MultiFormatReader(), true), makeCarton());
+    }
+
+    @SmallTest
+    public void testSharedBitmapIsSharedOnlyOnce() throws NotFoundException, WriterException {
+        BinaryBitmap shared = makeCarton().shareBlackMatrix();
+        assertSame(shared, shared.shareBlackMatrix());
+    }
+
+    private static void assertFindsAll(MultipleBarcodeReader reader, BinaryBitmap image)
+            throws NotFoundException {
+        Set<String> found = new HashSet<String>();
+        for (Result result : reader.decodeMultiple(image)) {
+            found.add(result.getText());
+        }
+        assertEquals(new HashSet<String>(Arrays.asList(CODES)), found);
+    }
+
+    /**
+     * @return the labels side by side, as on a shipping carton
+     */
+    private static BinaryBitmap makeCarton() throws WriterException {
+        int width = CODES.length * (LABEL_WIDTH + GAP) + GAP;
+        int height = LABEL_HEIGHT + 2 * GAP;
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, 0xFFFFFFFF);
+        for (int i = 0; i < CODES.length; i++) {
+            BitMatrix label = new EAN13Writer().encode(CODES[i], BarcodeFormat.EAN_13, LABEL_WIDTH, LABEL_HEIGHT);
+            int left = GAP + i * (LABEL_WIDTH + GAP);
+            for (int y = 0; y < label.getHeight(); y++) {
+                for (int x = 0; x < label.getWidth(); x++) {
+                    if (label.get(x, y)) {
+                        pixels[(GAP + y) * width + left + x] = 0xFF000000;
+                    }
+                }
+            }
+        }
+        return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+    }
+}
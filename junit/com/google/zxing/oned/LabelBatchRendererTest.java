@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import junit.framework.TestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Writer;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.MonochromeImageWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class LabelBatchRendererTest extends TestCase {
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 20;
+
+    @SmallTest
+    public void testMatchesWriters() throws IOException, WriterException {
+        assertMatchesWriter(BarcodeFormat.EAN_8, new EAN8Writer(), "96385074");
+        assertMatchesWriter(BarcodeFormat.EAN_13, new EAN13Writer(), "5901234123457");
+        assertMatchesWriter(BarcodeFormat.CODE_39, new Code39Writer(), "ZXING-39");
+        assertMatchesWriter(BarcodeFormat.CODE_128, new Code128Writer(), "LOT123456-SN7");
+        assertMatchesWriter(BarcodeFormat.ITF, new ITFWriter(), "00123456789012");
+        assertMatchesWriter(BarcodeFormat.CODABAR, new CodaBarWriter(), "A40156T");
+    }
+
+    @SmallTest
+    public void testUPCAWithAndWithoutCheckDigit() throws IOException, WriterException {
+        assertMatchesWriter(BarcodeFormat.UPC_A, new UPCAWriter(), "012345678905");
+        // UPCAWriter computes the missing check digit
+        assertMatchesWriter(BarcodeFormat.UPC_A, new UPCAWriter(), "01234567890");
+    }
+
+    @SmallTest
+    public void testRejectsWhatWritersReject() throws IOException {
+        LabelBatchRenderer renderer =
+            new LabelBatchRenderer(BarcodeFormat.UPC_A, WIDTH, HEIGHT, null, MonochromeImageWriter.Format.PBM);
+        List<String> contents = Arrays.asList("01234567890", "0123", "", "012345678900");
+        ImageSink sink = new ImageSink(contents.size());
+        assertEquals(Arrays.asList(1, 2, 3), renderer.renderAll(contents, sink));
+        assertNotNull(sink.images[0]);
+        assertNull(sink.images[1]);
+    }
+
+    private static void assertMatchesWriter(BarcodeFormat format, Writer writer, String contents)
+            throws IOException, WriterException {
+        BitMatrix expected = writer.encode(contents, format, WIDTH, HEIGHT);
+        LabelBatchRenderer renderer =
+            new LabelBatchRenderer(format, WIDTH, HEIGHT, null, MonochromeImageWriter.Format.PBM);
+        ImageSink sink = new ImageSink(1);
+        assertEquals(Collections.<Integer>emptyList(), renderer.renderAll(Collections.singletonList(contents), sink));
+        assertPbmEquals(format + " " + contents, expected, sink.images[0]);
+    }
+
+    /**
+     * Compares a binary "P4" Netpbm image, in which a set bit is black, with a matrix.
+     */
+    private static void assertPbmEquals(String message, BitMatrix expected, byte[] pbm) {
+        String header = "P4\n" + expected.getWidth() + ' ' + expected.getHeight() + '\n';
+        assertEquals(message, header, new String(pbm, 0, Math.min(header.length(), pbm.length)));
+        int rowBytes = (expected.getWidth() + 7) / 8;
+        assertEquals(message, header.length() + rowBytes * expected.getHeight(), pbm.length);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int b = pbm[header.length() + y * rowBytes + x / 8];
+                boolean black = (b & (0x80 >> (x % 8))) != 0;
+                assertEquals(message + " at " + x + ',' + y, expected.get(x, y), black);
+            }
+        }
+    }
+
+    private static final class ImageSink implements LabelBatchRenderer.Sink {
+        final byte[][] images;
+
+        ImageSink(int count) {
+            images = new byte[count][];
+        }
+
+        @Override
+        public OutputStream open(final int index, String contents) {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    images[index] = toByteArray();
+                }
+            };
+        }
+    }
+}
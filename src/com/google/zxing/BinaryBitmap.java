@@ -18,6 +18,7 @@ package com.google.zxing;
 
 import com.google.zxing.common.BitArray;
 import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.SharedMatrixBinarizer;
 
 /**
  * This class is the core bitmap class used by ZXing to represent 1 bit data. Reader objects
@@ -107,6 +108,25 @@ public final class BinaryBitmap {
     return new BinaryBitmap(binarizer.createBinarizer(newSource));
   }
 
+  /**
+   * Returns a bitmap of the same image backed by this bitmap's black matrix, which is computed now
+   * if it has not been already. Crops of the returned bitmap are views of that one matrix, so
+   * callers that crop many sub-regions, like
+   * {@link com.google.zxing.multi.GenericMultipleBarcodeReader}, pay for binarization only once.
+   * Its rows come from the matrix too, rather than from {@link Binarizer#getBlackRow(int, BitArray)}.
+   * A bitmap that is already such a view is returned as it is.
+   *
+   * @return A bitmap whose crops share this bitmap's black matrix.
+   * @throws NotFoundException if the image cannot be binarized
+   */
+  public BinaryBitmap shareBlackMatrix() throws NotFoundException {
+    if (binarizer instanceof SharedMatrixBinarizer) {
+      return this;
+    }
+    BitMatrix blackMatrix = getBlackMatrix();
+    return SharedMatrixBinarizer.view(blackMatrix, 0, 0, blackMatrix.getWidth(), blackMatrix.getHeight());
+  }
+
   /**
    * @return Whether this bitmap supports counter-clockwise rotation.
    */
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing;
+
+/**
+ * Thrown when a decode gave up because its {@link DecodeDeadline} expired, before the whole
+ * image could be searched. Unlike {@link NotFoundException}, this says nothing about whether
+ * a barcode is present.
+ */
+public final class DeadlineExceededException extends ReaderException {
+
+  private static final DeadlineExceededException instance = new DeadlineExceededException();
+
+  private DeadlineExceededException() {
+    // do nothing
+  }
+
+  public static DeadlineExceededException getDeadlineExceededInstance() {
+    return instance;
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing;
+
+import java.util.Map;
+
+/**
+ * A per-decode time budget, passed to readers through {@link DecodeHintType#DECODE_DEADLINE}.
+ * Readers and detectors poll {@link #isExpired()} in their scanning loops and give up, as if
+ * nothing were found, once it returns true; {@link MultiFormatReader} then reports a
+ * {@link DeadlineExceededException} instead of a {@link NotFoundException}.
+ *
+ * <p>The same instance is reused across decodes: call {@link #start()} before each one, for
+ * example once per camera frame. {@link #cancel()} may be called from another thread to make an
+ * in-progress decode stop at its next check; it also expires every later decode until
+ * {@link #resume()} is called, so that frames already queued behind a cancelled one are not
+ * decoded either.</p>
+ */
+public final class DecodeDeadline {
+
+  private final long budgetNanos;
+  private volatile long deadlineNanos;
+  private volatile boolean started;
+  private volatile boolean cancelled;
+
+  /**
+   * @param budgetMillis time allowed for each decode, measured from {@link #start()}
+   */
+  public DecodeDeadline(long budgetMillis) {
+    if (budgetMillis <= 0) {
+      throw new IllegalArgumentException("Budget must be positive.");
+    }
+    this.budgetNanos = budgetMillis * 1000000L;
+  }
+
+  public long getBudgetMillis() {
+    return budgetNanos / 1000000L;
+  }
+
+  /**
+   * Begins a new budget period. Does not clear an earlier {@link #cancel()}.
+   */
+  public void start() {
+    deadlineNanos = System.nanoTime() + budgetNanos;
+    started = true;
+  }
+
+  /**
+   * Makes {@link #isExpired()} true until {@link #resume()} is called.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Clears an earlier {@link #cancel()}, so that decodes started from now on get their full budget.
+   */
+  public void resume() {
+    cancelled = false;
+  }
+
+  /**
+   * @return true if {@link #cancel()} was called and not yet followed by {@link #resume()}
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * @return true if the decode was cancelled or has used up its budget; always false before the
+   *  first {@link #start()}
+   */
+  public boolean isExpired() {
+    return cancelled || (started && System.nanoTime() - deadlineNanos >= 0);
+  }
+
+  /**
+   * @param hints decode hints, possibly null
+   * @return the {@link DecodeHintType#DECODE_DEADLINE} hint, or null if absent
+   */
+  public static DecodeDeadline fromHints(Map<DecodeHintType,?> hints) {
+    return hints == null ? null : (DecodeDeadline) hints.get(DecodeHintType.DECODE_DEADLINE);
+  }
+
+  /**
+   * @param deadline deadline, possibly null
+   * @return true if there is a deadline and it has passed
+   */
+  public static boolean isExpired(DecodeDeadline deadline) {
+    return deadline != null && deadline.isExpired();
+  }
+
+}
@@ -81,6 +81,25 @@ public enum DecodeHintType {
    */
   NEED_RESULT_POINT_CALLBACK(ResultPointCallback.class),
 
+  /**
+   * The caller wants per-stage timings and reader counters reported to a
+   * {@link DecodeListener}. Maps to a {@link DecodeListener}.
+   */
+  NEED_DECODE_LISTENER(DecodeListener.class),
+
+  /**
+   * Time budget for the decode; readers stop searching once it expires.
+   * Maps to a {@link DecodeDeadline}, which the caller starts before each decode.
+   */
+  DECODE_DEADLINE(DecodeDeadline.class),
+
+  /**
+   * Ranges of EAN-13 / UPC-A codes to report as {@link ResultMetadataType#POSSIBLE_COMPANY},
+   * such as GS1 company prefixes. Maps to a {@link com.google.zxing.oned.EANPrefixTable}; declared
+   * as {@link Object} so that this enum does not depend on the oned package.
+   */
+  EAN_PREFIX_TABLE(Object.class),
+
   /**
    * JUSR FOR WISEDU DATA TABLE READER 
    */
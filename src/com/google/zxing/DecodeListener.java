@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing;
+
+/**
+ * Receives timings and counters from the decode pipeline, for profiling and field metrics.
+ * Supply one through {@link DecodeHintType#NEED_DECODE_LISTENER}. When no listener is supplied,
+ * instrumented code skips the clock reads entirely, so the cost is one null check per stage.
+ *
+ * <p>Calls arrive on whatever thread is decoding; implementations shared across threads must
+ * be thread-safe.</p>
+ *
+ * @see com.google.zxing.common.HistogramDecodeListener
+ */
+public interface DecodeListener {
+
+  /**
+   * @param stage stage that just finished, for one image or one attempt at it
+   * @param elapsedNanos time spent in that stage, from {@link System#nanoTime()}
+   */
+  void stageFinished(DecodeStage stage, long elapsedNanos);
+
+  /**
+   * @param reader reader that was asked to decode an image or row
+   * @param found whether it returned a result
+   */
+  void readerAttempted(Reader reader, boolean found);
+
+  /**
+   * @param rows number of image rows a 1D reader scanned in one pass over an image
+   */
+  void rowsScanned(int rows);
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing;
+
+/**
+ * The phases of turning a camera frame into a parsed result, as reported to a
+ * {@link DecodeListener}.
+ *
+ * @see DecodeListener#stageFinished(DecodeStage, long)
+ */
+public enum DecodeStage {
+
+  /**
+   * Building the {@link LuminanceSource} from raw frame data, including any rotation or cropping.
+   */
+  LUMINANCE_SOURCE,
+
+  /**
+   * Converting luminance to black/white, i.e. {@link BinaryBitmap#getBlackRow(int,
+   * com.google.zxing.common.BitArray)} and {@link BinaryBitmap#getBlackMatrix()}.
+   */
+  BINARIZATION,
+
+  /**
+   * Searching for a symbol. 1D readers locate and decode a row in one pass, so for them this is
+   * the time spent on rows that did not yield a result.
+   */
+  DETECTION,
+
+  /**
+   * Decoding a located symbol into text. For 1D readers, the time spent on the row that decoded.
+   */
+  SYMBOL_DECODE,
+
+  /**
+   * Interpreting the decoded text, e.g. {@link com.google.zxing.client.result.ResultParser}.
+   */
+  RESULT_PARSING
+
+}
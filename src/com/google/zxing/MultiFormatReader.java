@@ -20,8 +20,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
 
-import android.util.Log;
-
 import com.google.zxing.datacolumn.DataColumnReader;
 import com.google.zxing.multi.MultipleBarcodeReader;
 import com.google.zxing.multi.datacolumn.DataColumnAndOnedMultiReader;
@@ -35,7 +33,7 @@ import com.google.zxing.oned.MultiFormatOneDReader;
  * @author Sean Owen
  * @author dswitkin@google.com (Daniel Switkin)
  */
-public final class MultiFormatReader implements Reader {
+public final class MultiFormatReader implements TryReader {
 
   private Map<DecodeHintType,?> hints;
   private Reader[] readers;
@@ -70,6 +68,20 @@ public final class MultiFormatReader implements Reader {
     return decodeInternal(image);
   }
 
+  /**
+   * Like {@link #decode(BinaryBitmap, Map)}, but returns null instead of throwing when no
+   * barcode is found.
+   *
+   * @param image The pixel data to decode
+   * @param hints The hints to use, clearing the previous state.
+   * @return The contents of the image, or null
+   */
+  @Override
+  public Result tryDecode(BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    setHints(hints);
+    return tryDecodeInternal(image);
+  }
+
   /**
    * Decode an image using the state set up by calling setHints() previously. Continuous scan
    * clients will get a <b>large</b> speed increase by using this instead of decode().
@@ -77,30 +89,43 @@ public final class MultiFormatReader implements Reader {
    * @param image The pixel data to decode
    * @return The contents of the image
    * @throws NotFoundException Any errors which occurred
+   * @throws DeadlineExceededException if the {@link DecodeHintType#DECODE_DEADLINE} expired
+   *  before a barcode was found
    */
-  public Result decodeWithState(BinaryBitmap image) throws NotFoundException {
+  public Result decodeWithState(BinaryBitmap image)
+      throws NotFoundException, DeadlineExceededException {
     // Make sure to set up the default state so we don't crash
-	Log.i("MultiFormatReader", "start into single reader");
     if (readers == null) {
       setHints(null);
     }
-    return decodeInternal(image);
+    Result result = tryDecodeInternal(image);
+    if (result == null) {
+      if (DecodeDeadline.isExpired(DecodeDeadline.fromHints(hints))) {
+        throw DeadlineExceededException.getDeadlineExceededInstance();
+      }
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
   }
   /**
    * ͵ͼ 
    * @param image
    * @return
    * @throws NotFoundException
+   * @throws DeadlineExceededException
    */
-  public Result[] decodeMultiWithState(BinaryBitmap image) throws NotFoundException {
+  public Result[] decodeMultiWithState(BinaryBitmap image)
+      throws NotFoundException, DeadlineExceededException {
 	    // Make sure to set up the default state so we don't crash
-	    Log.i("MultiFormatReader", "start into multi reader");
 	    if (multiReaders == null) {
 	    	setHints(null);
 	    }
+	    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
 	    if (multiReaders != null) {
-	    	Log.i("MultiFormatReader", "found "+multiReaders.length+" multiple readers!");
 	        for (MultipleBarcodeReader reader : multiReaders) {
+	          if (DecodeDeadline.isExpired(deadline)) {
+	            break;
+	          }
 	          try {
 	            return reader.decodeMultiple(image, hints);
 	          } catch (ReaderException re) {
@@ -109,6 +134,9 @@ public final class MultiFormatReader implements Reader {
 	        }
 	    }
 	    
+	    if (DecodeDeadline.isExpired(deadline)) {
+	      throw DeadlineExceededException.getDeadlineExceededInstance();
+	    }
 	    throw NotFoundException.getNotFoundInstance();
 	  }
 	  
@@ -201,20 +229,52 @@ public final class MultiFormatReader implements Reader {
    * @throws NotFoundException
    */
   private Result decodeInternal(BinaryBitmap image) throws NotFoundException {
+    Result result = tryDecodeInternal(image);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  private Result tryDecodeInternal(BinaryBitmap image) {
     if (readers != null) {
-      Log.i("MultiFormatReader", "found "+readers.length+" readers!");
+      DecodeListener listener = getDecodeListener(hints);
+      DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
       for (Reader reader : readers) {
-        try {
-          return reader.decode(image, hints);
-        } catch (ReaderException re) {
-          // continue
+        if (DecodeDeadline.isExpired(deadline)) {
+          break;
+        }
+        Result result = tryDecode(reader, image, hints);
+        if (listener != null) {
+          listener.readerAttempted(reader, result != null);
+        }
+        if (result != null) {
+          return result;
         }
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
+  }
+
+  /**
+   * Asks one reader for a result, through {@link TryReader} where the reader supports it so
+   * that a miss costs no exception.
+   */
+  private static Result tryDecode(Reader reader, BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    if (reader instanceof TryReader) {
+      return ((TryReader) reader).tryDecode(image, hints);
+    }
+    try {
+      return reader.decode(image, hints);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  private static DecodeListener getDecodeListener(Map<DecodeHintType,?> hints) {
+    return hints == null ? null : (DecodeListener) hints.get(DecodeHintType.NEED_DECODE_LISTENER);
   }
 
- 
   
   
 }
@@ -72,6 +72,12 @@ public enum ResultMetadataType {
    */
   POSSIBLE_COUNTRY,
 
+  /**
+   * For some products, the label of the company prefix range the code falls in, from the
+   * table passed as {@link DecodeHintType#EAN_PREFIX_TABLE}, as a {@link String}.
+   */
+  POSSIBLE_COMPANY,
+
   /**
    * For some products, the extension text
    */
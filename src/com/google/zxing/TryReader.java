@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.util.Map;
+
+/**
+ * Internal companion to {@link Reader} for implementations that can report "no barcode here"
+ * without throwing. Dispatchers like {@link MultiFormatReader} call {@link #tryDecode} on
+ * the hot path, where a miss is the common case and even a preallocated
+ * {@link NotFoundException} costs a throw and an unwind per attempt. Callers outside the
+ * library should keep using {@link Reader#decode(BinaryBitmap, Map)}.
+ *
+ * @see Reader
+ */
+public interface TryReader extends Reader {
+
+  /**
+   * Like {@link Reader#decode(BinaryBitmap, Map)}, but signals a miss by returning null.
+   *
+   * @param image image of barcode to decode
+   * @param hints decode hints, may be null
+   * @return the decoded barcode, or null if none could be found or decoded
+   */
+  Result tryDecode(BinaryBitmap image, Map<DecodeHintType,?> hints);
+
+}
@@ -16,11 +16,14 @@
 
 package com.google.zxing.client.android;
 
+import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,7 +33,10 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Rect;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Environment;
 import android.os.Handler;
 import android.os.Message;
 import android.preference.PreferenceManager;
@@ -52,9 +58,15 @@ import android.widget.Toast;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeListener;
+import com.google.zxing.DecodeStage;
 import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
+import com.google.zxing.common.HistogramDecodeListener;
 import com.google.zxing.client.android.camera.CameraManager;
+import com.google.zxing.client.android.camera.FrameRecorder;
+import com.google.zxing.client.android.common.executor.AsyncTaskExecInterface;
+import com.google.zxing.client.android.common.executor.AsyncTaskExecManager;
 import com.google.zxing.client.android.history.HistoryActivity;
 import com.google.zxing.client.android.history.HistoryItem;
 import com.google.zxing.client.android.history.HistoryManager;
@@ -79,8 +91,13 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 
   private static final String TAG = CaptureActivity.class.getSimpleName();
   private static final long DEFAULT_INTENT_RESULT_DURATION_MS = 1500L;
-  private static final long BULK_MODE_SCAN_DELAY_MS = 1000L;
+  private static final long DEFAULT_BATCH_DEDUP_WINDOW_MS = 3000L;
   private static final String PACKAGE_NAME = "com.google.zxing.client.android";
+  // 16 crops the size of the framing rectangle, and one in ten successful frames
+  private static final int RECORDED_FRAMES = 16;
+  private static final int RECORDED_SUCCESS_INTERVAL = 10;
+  // Held by a CameraOpenTask from opening the camera until it is sure the camera is still wanted
+  private static final Object CAMERA_OPEN_LOCK = new Object();
   public static final int HISTORY_REQUEST_CODE = 0x0000bacc;
 
   private static final Set<ResultMetadataType> DISPLAYABLE_METADATA_TYPES =
@@ -106,6 +123,21 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   private InactivityTimer inactivityTimer;
   private BeepManager beepManager;
   private AmbientLightManager ambientLightManager;
+  private HistogramDecodeListener decodeMetrics;
+  private AsyncTaskExecInterface taskExec;
+  private CameraOpenTask cameraOpenTask;
+  private boolean cameraOpened;
+  // Started before the camera is open, until handed to the CaptureActivityHandler
+  private DecodeThread[] decodeThreads;
+  // When the current startup began, or 0 once scanning has started
+  private long startupNanos;
+  private boolean recordFrames;
+  // Opened once the camera is, as its slots are sized to the crop; read by the decode threads
+  private volatile FrameRecorder frameRecorder;
+  // Set in batch mode only; read by the decode threads
+  private volatile RecentResults batchWindow;
+  // Kept across pauses, and saved with the instance state, until the batch is returned
+  private List<Result> batchResults;
 
   ViewfinderView getViewfinderView() {
     return viewfinderView;
@@ -119,20 +151,50 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
     return cameraManager;
   }
 
+  /**
+   * @return listener collecting per-stage decode timings, or null when the
+   *  {@link PreferencesActivity#KEY_DECODE_METRICS} preference is off
+   */
+  DecodeListener getDecodeListener() {
+    return decodeMetrics;
+  }
+
+  /**
+   * @return recorder keeping the frames that failed to decode, or null when the
+   *  {@link PreferencesActivity#KEY_RECORD_FRAMES} preference is off or the camera is not open yet
+   */
+  FrameRecorder getFrameRecorder() {
+    return frameRecorder;
+  }
+
+  /**
+   * @return true if scanning goes on after each barcode, as asked for with
+   *  {@link Intents.Scan#BATCH} or by the {@link PreferencesActivity#KEY_BULK_MODE} preference
+   */
+  boolean isBatchMode() {
+    return batchWindow != null;
+  }
+
   @Override
   public void onCreate(Bundle icicle) {
+    startupNanos = System.nanoTime();
     super.onCreate(icicle);
 
     Window window = getWindow();
     window.addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
     setContentView(R.layout.capture);
+    logStartupPhase("layout inflated");
 
     hasSurface = false;
+    // Cheap to build; trimming the history and loading the beep wait until scanning has started
     historyManager = new HistoryManager(this);
-    historyManager.trimHistory();
     inactivityTimer = new InactivityTimer(this);
-    beepManager = new BeepManager(this);
     ambientLightManager = new AmbientLightManager(this);
+    taskExec = new AsyncTaskExecManager().build();
+    batchResults = new ArrayList<Result>();
+    if (icicle != null) {
+      restoreBatchResults(icicle);
+    }
 
     PreferenceManager.setDefaultValues(this, R.xml.preferences, false);
 
@@ -142,13 +204,21 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   @Override
   protected void onResume() {
     super.onResume();
+    if (startupNanos == 0L) {
+      startupNanos = System.nanoTime();
+    }
 
     // CameraManager must be initialized here, not in onCreate(). This is necessary because we don't
     // want to open the camera driver and measure the screen size if we're going to show the help on
     // first launch. That led to bugs where the scanning rectangle was the wrong size and partially
     // off screen.
     cameraManager = new CameraManager(getApplication());
-//    cameraManager.closeDriver();
+    // Opening and configuring the camera is the slowest part of startup, so it runs in the
+    // background while the views are laid out and the preview surface is created
+    cameraOpened = false;
+    cameraOpenTask = new CameraOpenTask(cameraManager);
+    taskExec.execute(cameraOpenTask);
+
     viewfinderView = (ViewfinderView) findViewById(R.id.viewfinder_view);
     viewfinderView.setCameraManager(cameraManager);
 
@@ -160,26 +230,27 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 
     resetStatusView();
 
-    SurfaceView surfaceView = (SurfaceView) findViewById(R.id.preview_view);
-    SurfaceHolder surfaceHolder = surfaceView.getHolder();
-    if (hasSurface) {
-      // The activity was paused but not stopped, so the surface still exists. Therefore
-      // surfaceCreated() won't be called, so init the camera here.
-      initCamera(surfaceHolder);
+    // Must be settled before the decode threads start, as they read it
+    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
+    if (prefs.getBoolean(PreferencesActivity.KEY_DECODE_METRICS, false)) {
+      if (decodeMetrics == null) {
+        decodeMetrics = new HistogramDecodeListener();
+      }
     } else {
-      // Install the callback and wait for surfaceCreated() to init the camera.
-      surfaceHolder.addCallback(this);
-      surfaceHolder.setType(SurfaceHolder.SURFACE_TYPE_PUSH_BUFFERS);
+      decodeMetrics = null;
+    }
+    recordFrames = prefs.getBoolean(PreferencesActivity.KEY_RECORD_FRAMES, false);
+    // Bulk mode may have been switched in the settings meanwhile; otherwise the window carries on
+    if (!wantsBatchMode(prefs)) {
+      batchWindow = null;
+    } else if (batchWindow == null) {
+      batchWindow = makeBatchWindow();
     }
-
-    beepManager.updatePrefs();
-    ambientLightManager.start(cameraManager);
 
     inactivityTimer.onResume();
 
     Intent intent = getIntent();
 
-    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
     copyToClipboard = prefs.getBoolean(PreferencesActivity.KEY_COPY_TO_CLIPBOARD, true)
         && (intent == null || intent.getBooleanExtra(Intents.Scan.SAVE_HISTORY, true));
 
@@ -211,17 +282,76 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
       characterSet = intent.getStringExtra(Intents.Scan.CHARACTER_SET);
 
     }
+
+    // Likewise the decode threads build their readers while the camera opens
+    decodeThreads =
+        CaptureActivityHandler.startDecodeThreads(this, decodeFormats, decodeHints, characterSet);
+
+    SurfaceView surfaceView = (SurfaceView) findViewById(R.id.preview_view);
+    SurfaceHolder surfaceHolder = surfaceView.getHolder();
+    if (hasSurface) {
+      // The activity was paused but not stopped, so the surface still exists. Therefore
+      // surfaceCreated() won't be called; scanning starts as soon as the camera is open.
+      logStartupPhase("surface ready");
+    } else {
+      // Install the callback and wait for surfaceCreated() to init the camera.
+      surfaceHolder.addCallback(this);
+      surfaceHolder.setType(SurfaceHolder.SURFACE_TYPE_PUSH_BUFFERS);
+    }
+  }
+
+  /**
+   * @param crop area of each preview frame that is decoded, which sets the size of each slot
+   */
+  private static FrameRecorder openFrameRecorder(Rect crop) {
+    if (crop == null) {
+      Log.w(TAG, "Framing rectangle unknown; not recording frames");
+      return null;
+    }
+    File bsRoot = new File(Environment.getExternalStorageDirectory(), "BarcodeScanner");
+    if (!bsRoot.exists() && !bsRoot.mkdirs()) {
+      Log.w(TAG, "Couldn't make dir " + bsRoot);
+      return null;
+    }
+    File ringFile = new File(bsRoot, "frames.ring");
+    try {
+      return new FrameRecorder(ringFile,
+                               RECORDED_FRAMES,
+                               crop.width() * crop.height(),
+                               RECORDED_SUCCESS_INTERVAL);
+    } catch (IOException ioe) {
+      Log.w(TAG, "Couldn't map " + ringFile + " due to " + ioe);
+      return null;
+    }
   }
 
   @Override
   protected void onPause() {
+    if (cameraOpenTask != null) {
+      // If it is still opening the camera, the task closes it again when done
+      cameraOpenTask.cancel(false);
+      cameraOpenTask = null;
+    }
+    cameraOpened = false;
     if (handler != null) {
       handler.quitSynchronously();
       handler = null;
+    } else if (decodeThreads != null) {
+      CaptureActivityHandler.quitDecodeThreads(decodeThreads);
     }
+    decodeThreads = null;
     inactivityTimer.onPause();
     ambientLightManager.stop();
     cameraManager.closeDriver();
+    // Whatever was scanned must be in the history before another activity can read it
+    historyManager.flushHistory();
+    if (decodeMetrics != null) {
+      Log.i(TAG, "Decode metrics:\n" + decodeMetrics);
+    }
+    if (frameRecorder != null) {
+      frameRecorder.close();
+      frameRecorder = null;
+    }
     if (!hasSurface) {
       SurfaceView surfaceView = (SurfaceView) findViewById(R.id.preview_view);
       SurfaceHolder surfaceHolder = surfaceView.getHolder();
@@ -240,6 +370,11 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   public boolean onKeyDown(int keyCode, KeyEvent event) {
     switch (keyCode) {
       case KeyEvent.KEYCODE_BACK:
+        if (source == IntentSource.NATIVE_APP_INTENT && isBatchMode() && !batchResults.isEmpty()) {
+          setResult(RESULT_OK, makeBatchResultIntent());
+          finish();
+          return true;
+        }
         if (source == IntentSource.NATIVE_APP_INTENT) {
           setResult(RESULT_CANCELED);
           finish();
@@ -303,10 +438,12 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   public void onActivityResult(int requestCode, int resultCode, Intent intent) {
     if (resultCode == RESULT_OK) {
       if (requestCode == HISTORY_REQUEST_CODE) {
-        int itemNumber = intent.getIntExtra(Intents.History.ITEM_NUMBER, -1);
-        if (itemNumber >= 0) {
-          HistoryItem historyItem = historyManager.buildHistoryItem(itemNumber);
-          decodeOrStoreSavedBitmap(null, historyItem.getResult());
+        long itemId = intent.getLongExtra(Intents.History.ITEM_ID, -1L);
+        if (itemId >= 0L) {
+          HistoryItem historyItem = historyManager.buildHistoryItem(itemId);
+          if (historyItem != null) {
+            decodeOrStoreSavedBitmap(null, historyItem.getResult());
+          }
         }
       }
     }
@@ -335,7 +472,10 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
     }
     if (!hasSurface) {
       hasSurface = true;
-      initCamera(holder);
+      logStartupPhase("surface ready");
+      if (cameraOpened) {
+        initCamera(holder);
+      }
     }
   }
 
@@ -349,6 +489,16 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 
   }
 
+  private ResultHandler makeResultHandler(Result rawResult) {
+    if (decodeMetrics == null) {
+      return ResultHandlerFactory.makeResultHandler(this, rawResult);
+    }
+    long start = System.nanoTime();
+    ResultHandler resultHandler = ResultHandlerFactory.makeResultHandler(this, rawResult);
+    decodeMetrics.stageFinished(DecodeStage.RESULT_PARSING, System.nanoTime() - start);
+    return resultHandler;
+  }
+
   /**
    * A valid barcode has been found, so give an indication of success and show the results.
    *
@@ -359,7 +509,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
   public void handleDecode(Result rawResult, Bitmap barcode, float scaleFactor) {
     inactivityTimer.onActivity();
     lastResult = rawResult;
-    ResultHandler resultHandler = ResultHandlerFactory.makeResultHandler(this, rawResult);
+    ResultHandler resultHandler = makeResultHandler(rawResult);
 
     boolean fromLiveScan = barcode != null;
     if (fromLiveScan) {
@@ -374,20 +524,102 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
         handleDecodeExternally(rawResult, resultHandler, barcode);
         break;
       case NONE:
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
-        if (fromLiveScan && prefs.getBoolean(PreferencesActivity.KEY_BULK_MODE, false)) {
-          String message = getResources().getString(R.string.msg_bulk_mode_scanned)
-              + " (" + rawResult.getText() + ')';
-          Toast.makeText(getApplicationContext(), message, Toast.LENGTH_SHORT).show();
-          // Wait a moment or else it will scan the same barcode continuously about 3 times
-          restartPreviewAfterDelay(BULK_MODE_SCAN_DELAY_MS);
-        } else {
-          handleDecodeInternally(rawResult, resultHandler, barcode);
-        }
+        // Bulk mode scans go to handleBatchDecode()
+        handleDecodeInternally(rawResult, resultHandler, barcode);
         break;
     }
   }
 
+  /**
+   * In batch mode, barcodes have been found while scanning goes on. Those not seen within the
+   * dedup window are taken: added to the batch returned to the calling app, or in bulk mode
+   * just saved to history.
+   *
+   * @param rawResults barcodes found in one frame
+   */
+  void handleBatchDecode(Result[] rawResults) {
+    inactivityTimer.onActivity();
+    long now = System.currentTimeMillis();
+    for (Result rawResult : rawResults) {
+      if (!batchWindow.add(rawResult, now)) {
+        continue;
+      }
+      historyManager.addHistoryItem(rawResult, makeResultHandler(rawResult));
+      beepManager.playBeepSoundAndVibrate();
+      if (source == IntentSource.NATIVE_APP_INTENT) {
+        batchResults.add(rawResult);
+        statusView.setText(getString(R.string.msg_batch_mode_count, batchResults.size()));
+      } else {
+        String message = getResources().getString(R.string.msg_bulk_mode_scanned)
+            + " (" + rawResult.getText() + ')';
+        Toast.makeText(getApplicationContext(), message, Toast.LENGTH_SHORT).show();
+      }
+    }
+  }
+
+  private boolean wantsBatchMode(SharedPreferences prefs) {
+    Intent intent = getIntent();
+    if (intent != null && Intents.Scan.ACTION.equals(intent.getAction())) {
+      return intent.getBooleanExtra(Intents.Scan.BATCH, false);
+    }
+    return prefs.getBoolean(PreferencesActivity.KEY_BULK_MODE, false);
+  }
+
+  private RecentResults makeBatchWindow() {
+    Intent intent = getIntent();
+    if (intent != null && Intents.Scan.ACTION.equals(intent.getAction())) {
+      return new RecentResults(intent.getLongExtra(Intents.Scan.BATCH_DEDUP_WINDOW_MS,
+                                                   DEFAULT_BATCH_DEDUP_WINDOW_MS));
+    }
+    return new RecentResults(DEFAULT_BATCH_DEDUP_WINDOW_MS);
+  }
+
+  @Override
+  protected void onSaveInstanceState(Bundle outState) {
+    super.onSaveInstanceState(outState);
+    int count = batchResults.size();
+    if (count > 0) {
+      String[] texts = new String[count];
+      String[] formats = new String[count];
+      for (int i = 0; i < count; i++) {
+        Result result = batchResults.get(i);
+        texts[i] = result.getText();
+        formats[i] = result.getBarcodeFormat().name();
+      }
+      outState.putStringArray(Intents.Scan.RESULT_BATCH, texts);
+      outState.putStringArray(Intents.Scan.RESULT_BATCH_FORMATS, formats);
+    }
+  }
+
+  private void restoreBatchResults(Bundle icicle) {
+    String[] texts = icicle.getStringArray(Intents.Scan.RESULT_BATCH);
+    String[] formats = icicle.getStringArray(Intents.Scan.RESULT_BATCH_FORMATS);
+    if (texts == null || formats == null || texts.length != formats.length) {
+      return;
+    }
+    for (int i = 0; i < texts.length; i++) {
+      batchResults.add(new Result(texts[i], null, null, BarcodeFormat.valueOf(formats[i])));
+    }
+  }
+
+  private Intent makeBatchResultIntent() {
+    int count = batchResults.size();
+    String[] texts = new String[count];
+    String[] formats = new String[count];
+    for (int i = 0; i < count; i++) {
+      Result result = batchResults.get(i);
+      texts[i] = result.getText();
+      formats[i] = result.getBarcodeFormat().toString();
+    }
+    Intent intent = new Intent(getIntent().getAction());
+    intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_WHEN_TASK_RESET);
+    intent.putExtra(Intents.Scan.RESULT, texts[0]);
+    intent.putExtra(Intents.Scan.RESULT_FORMAT, formats[0]);
+    intent.putExtra(Intents.Scan.RESULT_BATCH, texts);
+    intent.putExtra(Intents.Scan.RESULT_BATCH_FORMATS, formats);
+    return intent;
+  }
+
   /**
    * A group of valid barcode has been found, so give an indication of success and show the results.
    * @param rawResults
@@ -419,7 +651,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 	   }else if(productMultiResult != null){
 		   rawResult = productMultiResult;
 	   }
-	   ResultHandler resultHandler = ResultHandlerFactory.makeResultHandler(this, rawResult);
+	   ResultHandler resultHandler = makeResultHandler(rawResult);
 	   if( resultHandler.getResult() instanceof DataColumnParsedResult){
 		  (( DataColumnParsedResult)resultHandler.getResult()).setProductID(productID);
 	   }
@@ -435,16 +667,7 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
 	        handleDecodeExternally(rawResult, resultHandler, barcode);
 	        break;
 	      case NONE:
-	        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
-	        if (fromLiveScan && prefs.getBoolean(PreferencesActivity.KEY_BULK_MODE, false)) {
-	          String message = getResources().getString(R.string.msg_bulk_mode_scanned)
-	              + " (" + rawResult.getText() + ')';
-	          Toast.makeText(getApplicationContext(), message, Toast.LENGTH_SHORT).show();
-	          // Wait a moment or else it will scan the same barcode continuously about 3 times
-	          restartPreviewAfterDelay(BULK_MODE_SCAN_DELAY_MS);
-	        } else {
-	          handleDecodeInternally(rawResult, resultHandler, barcode);
-	        }
+	        handleDecodeInternally(rawResult, resultHandler, barcode);
 	        break;
 	    }
 	  
@@ -616,30 +839,111 @@ public final class CaptureActivity extends Activity implements SurfaceHolder.Cal
     return false;
   }
 
+  /**
+   * Starts scanning once the camera, opened by {@link CameraOpenTask}, and the preview surface
+   * are both ready, whichever comes last.
+   */
   private void initCamera(SurfaceHolder surfaceHolder) {
     if (surfaceHolder == null) {
       throw new IllegalStateException("No SurfaceHolder provided");
     }
-    if (cameraManager.isOpen()) {
-      Log.w(TAG, "initCamera() while already open -- late SurfaceView callback?");
+    if (handler != null) {
+      Log.w(TAG, "initCamera() while already scanning -- late SurfaceView callback?");
       return;
     }
     try {
-      cameraManager.openDriver(surfaceHolder);
-      // Creating the handler starts the preview, which can also throw a RuntimeException.
-      if (handler == null) {
-        handler = new CaptureActivityHandler(this, decodeFormats, decodeHints, characterSet, cameraManager);
+      cameraManager.setPreviewDisplay(surfaceHolder);
+      if (recordFrames && frameRecorder == null) {
+        frameRecorder = openFrameRecorder(cameraManager.getFramingRectInPreview());
       }
-      decodeOrStoreSavedBitmap(null, null);
+      // Creating the handler starts the preview, which can also throw a RuntimeException.
+      handler = new CaptureActivityHandler(this, decodeThreads, cameraManager);
+      decodeThreads = null;
     } catch (IOException ioe) {
       Log.w(TAG, ioe);
       displayFrameworkBugMessageAndExit();
+      return;
     } catch (RuntimeException e) {
       // Barcode Scanner has seen crashes in the wild of this variety:
       // java.?lang.?RuntimeException: Fail to connect to camera service
       Log.w(TAG, "Unexpected error initializing camera", e);
       displayFrameworkBugMessageAndExit();
+      return;
+    }
+    logStartupPhase("preview started");
+    startupNanos = 0L;
+
+    // Not needed until there is a result, so set up only now that the preview is running
+    if (beepManager == null) {
+      beepManager = new BeepManager(this);
+    } else {
+      beepManager.updatePrefs();
+    }
+    ambientLightManager.start(cameraManager);
+    decodeOrStoreSavedBitmap(null, null);
+  }
+
+  private void logStartupPhase(String phase) {
+    if (startupNanos != 0L) {
+      Log.i(TAG, "Startup: " + phase + " after " + (System.nanoTime() - startupNanos) / 1000000L + " ms");
+    }
+  }
+
+  /**
+   * Opens and configures the camera off the main thread.
+   */
+  private final class CameraOpenTask extends AsyncTask<Object,Object,Exception> {
+
+    private final CameraManager manager;
+
+    CameraOpenTask(CameraManager manager) {
+      this.manager = manager;
+    }
+
+    @Override
+    protected Exception doInBackground(Object... objects) {
+      // Tasks may run in parallel, so a quick pause and resume must not open the camera twice
+      synchronized (CAMERA_OPEN_LOCK) {
+        if (isCancelled()) {
+          return null;
+        }
+        try {
+          manager.openCamera();
+        } catch (IOException ioe) {
+          return ioe;
+        } catch (RuntimeException re) {
+          return re;
+        }
+        if (isCancelled()) {
+          // onPause() may have closed the driver before it was opened; release it before the
+          // next task tries to open it
+          manager.closeDriver();
+        }
+        return null;
+      }
+    }
+
+    @Override
+    protected void onPostExecute(Exception e) {
+      if (e != null) {
+        Log.w(TAG, "Unexpected error opening camera", e);
+        displayFrameworkBugMessageAndExit();
+        return;
+      }
+      logStartupPhase("camera open");
+      cameraOpened = true;
+      if (hasSurface) {
+        SurfaceView surfaceView = (SurfaceView) findViewById(R.id.preview_view);
+        initCamera(surfaceView.getHolder());
+      }
+    }
+
+    @Override
+    protected void onCancelled() {
+      // The activity was paused while the camera opened
+      manager.closeDriver();
     }
+
   }
 
   private void displayFrameworkBugMessageAndExit() {
@@ -17,6 +17,7 @@
 package com.google.zxing.client.android;
 
 import android.content.ActivityNotFoundException;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.graphics.BitmapFactory;
@@ -30,10 +31,14 @@ import android.app.Activity;
 import android.content.Intent;
 import android.graphics.Bitmap;
 import android.net.Uri;
+import android.os.BatteryManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
 import android.util.Log;
+import android.util.Pair;
 
 import java.util.Collection;
 import java.util.Map;
@@ -41,16 +46,33 @@ import java.util.Map;
 /**
  * This class handles all the messaging which comprises the state machine for capture.
  *
+ * <p>Decoding runs on one or more {@link DecodeThread}s, as set by
+ * {@link PreferencesActivity#KEY_DECODE_WORKERS}. Each worker asks for a frame whenever it is
+ * idle; the first result to arrive wins, the others are cancelled and anything they report after
+ * that is ignored.</p>
+ *
+ * <p>A {@link DecodeScheduler}, set up by {@link PreferencesActivity#KEY_DECODE_THROTTLE}, holds
+ * a failed worker's next frame back while nothing is happening in view, more so when the battery
+ * is hot or low.</p>
+ *
  * @author dswitkin@google.com (Daniel Switkin)
  */
 public final class CaptureActivityHandler extends Handler {
 
   private static final String TAG = CaptureActivityHandler.class.getSimpleName();
 
+  // Battery temperature, in tenths of a degree Celsius, above which, and charge below which,
+  // we are under pressure
+  private static final int HOT_BATTERY_TEMPERATURE = 400;
+  private static final int LOW_BATTERY_PERCENT = 15;
+  private static final long PRESSURE_CHECK_INTERVAL_MS = 30 * 1000L;
+
   private final CaptureActivity activity;
-  private final DecodeThread decodeThread;
+  private final DecodeThread[] decodeThreads;
   private State state;
   private final CameraManager cameraManager;
+  private final DecodeScheduler decodeScheduler;
+  private long lastPressureCheck;
 
   private enum State {
     PREVIEW,
@@ -58,19 +80,40 @@ public final class CaptureActivityHandler extends Handler {
     DONE
   }
 
+  /**
+   * Starts the decode threads before the camera is ready, so that their readers are built while
+   * it opens. Pass them to the constructor once it is, or to {@link #quitDecodeThreads} if it
+   * never is.
+   */
+  static DecodeThread[] startDecodeThreads(CaptureActivity activity,
+                                           Collection<BarcodeFormat> decodeFormats,
+                                           Map<DecodeHintType,?> baseHints,
+                                           String characterSet) {
+    int numWorkers = Integer.parseInt(PreferenceManager.getDefaultSharedPreferences(activity)
+        .getString(PreferencesActivity.KEY_DECODE_WORKERS, "1"));
+    ViewfinderResultPointCallback resultPointCallback =
+        new ViewfinderResultPointCallback(activity.getViewfinderView());
+    DecodeThread[] decodeThreads = new DecodeThread[Math.max(1, numWorkers)];
+    for (int i = 0; i < decodeThreads.length; i++) {
+      decodeThreads[i] =
+          new DecodeThread(activity, decodeFormats, baseHints, characterSet, resultPointCallback);
+      decodeThreads[i].start();
+    }
+    return decodeThreads;
+  }
+
   CaptureActivityHandler(CaptureActivity activity,
-                         Collection<BarcodeFormat> decodeFormats,
-                         Map<DecodeHintType,?> baseHints,
-                         String characterSet,
+                         DecodeThread[] decodeThreads,
                          CameraManager cameraManager) {
     this.activity = activity;
-    decodeThread = new DecodeThread(activity, decodeFormats, baseHints, characterSet,
-        new ViewfinderResultPointCallback(activity.getViewfinderView()));
-    decodeThread.start();
+    this.decodeThreads = decodeThreads;
+    decodeScheduler = DecodeThrottle.readPref(
+        PreferenceManager.getDefaultSharedPreferences(activity)).newScheduler();
     state = State.SUCCESS;
 
     // Start ourselves capturing previews and decoding.
     this.cameraManager = cameraManager;
+    cameraManager.setFrameConsumers(decodeThreads.length);
     cameraManager.startPreview();
     restartPreviewAndDecode();
   }
@@ -83,8 +126,17 @@ public final class CaptureActivityHandler extends Handler {
         restartPreviewAndDecode();
         break;
       case R.id.decode_succeeded:
+        if (state != State.PREVIEW) {
+          // Another worker got there first
+          break;
+        }
         Log.d(TAG, "Got decode succeeded message");
         state = State.SUCCESS;
+        removeMessages(R.id.request_frame);
+        cameraManager.cancelPreviewFrameRequests();
+        for (DecodeThread decodeThread : decodeThreads) {
+          decodeThread.cancelDecode();
+        }
         Bundle bundle = message.getData();
         Bitmap barcode = null;
         float scaleFactor = 1.0f;
@@ -104,11 +156,37 @@ public final class CaptureActivityHandler extends Handler {
             activity.handleDecode((Result[]) message.obj, barcode, scaleFactor);
         }
         break;
+      case R.id.decode_batch_succeeded:
+        if (state != State.PREVIEW) {
+          break;
+        }
+        @SuppressWarnings("unchecked")
+        Pair<Handler,Result[]> found = (Pair<Handler,Result[]>) message.obj;
+        if (decodeScheduler != null) {
+          decodeScheduler.frameDecoded(SystemClock.uptimeMillis());
+        }
+        // Batch mode: the preview keeps running and the worker goes straight on to the next frame
+        cameraManager.requestPreviewFrame(found.first, R.id.decode);
+        activity.handleBatchDecode(found.second);
+        break;
       case R.id.decode_failed:
-        // We're decoding as fast as possible, so when one decode fails, start another.
-        state = State.PREVIEW;
+        if (state != State.PREVIEW) {
+          // A result is already being shown; this worker was cancelled or was too late
+          break;
+        }
+        // Unless throttled, we're decoding as fast as possible, so when one decode fails, start another.
         //TODO hander
-        cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+        long delay = scheduleNextFrame(message.arg1 != 0);
+        if (delay > 0L) {
+          sendMessageDelayed(obtainMessage(R.id.request_frame, message.obj), delay);
+        } else {
+          cameraManager.requestPreviewFrame((Handler) message.obj, R.id.decode);
+        }
+        break;
+      case R.id.request_frame:
+        if (state == State.PREVIEW) {
+          cameraManager.requestPreviewFrame((Handler) message.obj, R.id.decode);
+        }
         break;
       case R.id.return_scan_result:
         Log.d(TAG, "Got return scan result message");
@@ -150,26 +228,83 @@ public final class CaptureActivityHandler extends Handler {
   public void quitSynchronously() {
     state = State.DONE;
     cameraManager.stopPreview();
-    //TODO ͨMessagehander
-    Message quit = Message.obtain(decodeThread.getHandler(), R.id.quit);
-    quit.sendToTarget();
-    try {
-      // Wait at most half a second; should be enough time, and onPause() will timeout quickly
-      decodeThread.join(500L);
-    } catch (InterruptedException e) {
-      // continue
-    }
+    quitDecodeThreads(decodeThreads);
 
     // Be absolutely sure we don't send any queued up messages
     removeMessages(R.id.decode_succeeded);
+    removeMessages(R.id.decode_batch_succeeded);
     removeMessages(R.id.decode_failed);
+    removeMessages(R.id.request_frame);
+    if (decodeScheduler != null && activity.getDecodeListener() != null) {
+      Log.i(TAG, "Decode throttling: " + decodeScheduler);
+    }
+  }
+
+  /**
+   * @param promising true if the failed frame showed motion or possible result points
+   * @return how long to hold the worker's next frame back, in milliseconds
+   */
+  private long scheduleNextFrame(boolean promising) {
+    if (decodeScheduler == null) {
+      return 0L;
+    }
+    long now = SystemClock.uptimeMillis();
+    if (now - lastPressureCheck >= PRESSURE_CHECK_INTERVAL_MS) {
+      lastPressureCheck = now;
+      boolean underPressure = isUnderPowerPressure();
+      if (underPressure != decodeScheduler.isUnderPressure()) {
+        Log.i(TAG, underPressure ? "Battery hot or low; throttling harder" : "Battery pressure eased");
+        decodeScheduler.setUnderPressure(underPressure);
+      }
+    }
+    return decodeScheduler.frameFailed(promising, now);
+  }
+
+  private boolean isUnderPowerPressure() {
+    // Sticky broadcast, so no receiver is actually registered
+    Intent battery = activity.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    if (battery == null) {
+      return false;
+    }
+    int temperature = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+    int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+    int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+    boolean plugged = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    return temperature >= HOT_BATTERY_TEMPERATURE ||
+        (!plugged && level >= 0 && level * 100 < LOW_BATTERY_PERCENT * scale);
+  }
+
+  static void quitDecodeThreads(DecodeThread[] decodeThreads) {
+    for (DecodeThread decodeThread : decodeThreads) {
+      decodeThread.cancelDecode();
+      //TODO ͨMessagehander
+      Message quit = Message.obtain(decodeThread.getHandler(), R.id.quit);
+      quit.sendToTarget();
+    }
+    // Wait at most half a second in all; should be enough time, and onPause() will timeout quickly
+    long deadline = System.currentTimeMillis() + 500L;
+    for (DecodeThread decodeThread : decodeThreads) {
+      try {
+        decodeThread.join(Math.max(1L, deadline - System.currentTimeMillis()));
+      } catch (InterruptedException e) {
+        // continue
+      }
+    }
   }
 
   private void restartPreviewAndDecode() {
     if (state == State.SUCCESS) {
       state = State.PREVIEW;
+      if (decodeScheduler != null) {
+        decodeScheduler.reset(SystemClock.uptimeMillis());
+      }
+      for (DecodeThread decodeThread : decodeThreads) {
+        decodeThread.resumeDecode();
+      }
       //TODO hander
-      cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+      for (DecodeThread decodeThread : decodeThreads) {
+        cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+      }
       activity.drawViewfinder();
     }
   }
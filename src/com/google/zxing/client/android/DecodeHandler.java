@@ -25,27 +25,30 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.util.Log;
+import android.util.Pair;
 
-import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
-import com.google.zxing.MultiFormatReader;
 import com.google.zxing.PlanarYUVLuminanceSource;
-import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.client.android.camera.FrameRecorder;
 
 final class DecodeHandler extends Handler {
 
 	private static final String TAG = DecodeHandler.class.getSimpleName();
 
 	private final CaptureActivity activity;
-	private final MultiFormatReader multiFormatReader;
+	private final FrameDecoder frameDecoder;
+	private final FrameQualityGate qualityGate;
 	private boolean running = true;
 	private boolean decodeModeMultiple = false;
+	private boolean oversizedFramesLogged;
 
-	DecodeHandler(CaptureActivity activity, Map<DecodeHintType, Object> hints) {
-		multiFormatReader = new MultiFormatReader();
-		multiFormatReader.setHints(hints);
+	DecodeHandler(CaptureActivity activity, Map<DecodeHintType, Object> hints,
+			boolean skipBlurredFrames, boolean measureMotion) {
+		frameDecoder = new FrameDecoder(hints);
+		qualityGate = skipBlurredFrames || measureMotion ? new FrameQualityGate(skipBlurredFrames) : null;
+		frameDecoder.setQualityGate(qualityGate);
+		frameDecoder.setRegionTracker(new RegionTracker());
 		this.activity = activity;
 
 	}
@@ -61,6 +64,12 @@ final class DecodeHandler extends Handler {
 			break;
 		case R.id.quit:
 			running = false;
+			if (qualityGate != null) {
+				Log.i(TAG, "Skipped " + qualityGate.getSkippedFrames() + " blurred or moving frames, decoded "
+						+ qualityGate.getPassedFrames());
+			}
+			Log.i(TAG, "Found " + frameDecoder.getRegionHits() + " barcodes in the tracked region, missed "
+					+ frameDecoder.getRegionMisses());
 			Looper.myLooper().quit();
 			break;
 		}
@@ -80,65 +89,53 @@ final class DecodeHandler extends Handler {
 	 */
 	private void decode(byte[] data, int width, int height) {
 		long start = System.currentTimeMillis();
-		Result rawResult = null;
-		Result[] rawResults = null;
-		//תλ
-		byte[] rotatedData = new byte[data.length];
-		for(int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++)
-				rotatedData[x * height + height - y - 1] = data[x + y * width];
-		}
-		data = rotatedData;
-		//߶ȺͿȵֵ
-		int tmp = width; 		width = height;  		height = tmp;
-		
-		PlanarYUVLuminanceSource source = activity.getCameraManager().buildLuminanceSource(data, width, height);
-		if (source != null) {
-			BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-			try {
-				// ȴϽ
-				rawResults = multiFormatReader.decodeMultiWithState(bitmap);
-			} catch (ReaderException re) {
-				// ٴδ
-				try {
-					rawResult = multiFormatReader.decodeWithState(bitmap);
-				} catch (ReaderException e) {
-					// NOTHING TO DO.
-				}
-			} finally {
-				multiFormatReader.reset();
-			}
+		// Only opened once the camera is, so possibly after this thread started
+		FrameRecorder frameRecorder = activity.getFrameRecorder();
+		frameDecoder.setFrameRecorder(frameRecorder);
+		boolean found = frameDecoder.decode(data, width, height, activity.getCameraManager());
+		if (frameRecorder != null && !oversizedFramesLogged && frameRecorder.getOversizedFrames() > 0) {
+			Log.w(TAG, "Frames bigger than " + frameRecorder.getMaxFrameBytes() + " bytes are not recorded");
+			oversizedFramesLogged = true;
 		}
 		Handler handler = activity.getHandler();
-		if (rawResults != null) { // multiMode, ȷָ룬 Ѿ򷵻صص
-									// ɹ״̬
+		if (found) { // 룬򷵻صصɹ״̬
 			// Don't log the barcode contents for security.
 			long end = System.currentTimeMillis();
-			Log.d(TAG, "Found barcode on MultiMode in " + (end - start) + " ms");
-			if (handler != null) {
-				Message message = Message.obtain(handler,
-						R.id.decode_succeeded, rawResults);
-				Bundle bundle = new Bundle();
-				bundleThumbnail(source, bundle);
-				message.setData(bundle);
-				message.sendToTarget();
+			Result[] rawResults = frameDecoder.getResults();
+			if (activity.isBatchMode()) {
+				// Scanning goes on, so no thumbnail; say which worker to send the next frame to
+				Log.d(TAG, "Found barcode in batch mode in " + (end - start) + " ms");
+				if (handler != null) {
+					Message.obtain(handler, R.id.decode_batch_succeeded,
+							new Pair<Handler, Result[]>(this, rawResults)).sendToTarget();
+				}
+				return;
+			}
+			Object result;
+			if (frameDecoder.isMultiple()) { // multiMode, ȷָ
+				Log.d(TAG, "Found barcode on MultiMode in " + (end - start) + " ms");
+				result = rawResults;
+			} else { // simpleMode, ֵ
+				Log.d(TAG, "Found barcode in " + (end - start) + " ms");
+				result = rawResults[0];
 			}
-		} else if (rawResult != null) { // simpleMode, ȷֵ룬
-										// Ѿ򷵻صصɹ״̬
-			// Don't log the barcode contents for security.
-			long end = System.currentTimeMillis();
-			Log.d(TAG, "Found barcode in " + (end - start) + " ms");
 			if (handler != null) {
 				Message message = Message.obtain(handler,
-						R.id.decode_succeeded, rawResult);
+						R.id.decode_succeeded, result);
 				Bundle bundle = new Bundle();
-				bundleThumbnail(source, bundle);
+				bundleThumbnail(frameDecoder.getSource(), bundle);
 				message.setData(bundle);
 				message.sendToTarget();
 			}
 		} else {
+			if (frameDecoder.isTimedOut()) {
+				Log.d(TAG, "Gave up on frame after " + frameDecoder.getBudgetMillis() + " ms");
+			}
 			if (handler != null) {
-				Message message = Message.obtain(handler, R.id.decode_failed);
+				// Say which worker failed, so that it alone is sent the next frame, and whether
+				// anything in view suggests a barcode is coming
+				boolean promising = frameDecoder.isMoving() || frameDecoder.getCandidatePoints() > 0;
+				Message message = Message.obtain(handler, R.id.decode_failed, promising ? 1 : 0, 0, this);
 				message.sendToTarget();
 			}
 		}
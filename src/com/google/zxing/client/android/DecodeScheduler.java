@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android;
+
+/**
+ * Decides how long to wait before handing a decode worker its next frame. Frames are decoded as
+ * fast as they arrive while anything is happening in view, meaning the scene moves or the readers
+ * report possible result points. After a run of misses with neither, or a spell of no activity,
+ * the wait doubles with each further miss from {@link #MIN_DELAY_MILLIS} up to a ceiling; the
+ * first sign of activity or a result drops it straight back to zero. Under thermal or battery
+ * pressure it throttles sooner and further. Not thread-safe; call from the main thread only.
+ */
+final class DecodeScheduler {
+
+  private static final long MIN_DELAY_MILLIS = 50L;
+
+  private final int missesBeforeThrottle;
+  private final long idleMillis;
+  private final long maxDelayMillis;
+  private boolean underPressure;
+  private int consecutiveMisses;
+  private long lastActivity;
+  private long delayMillis;
+  private long fullRateFrames;
+  private long throttledFrames;
+  private long totalDelayMillis;
+  private long rampUps;
+
+  /**
+   * @param missesBeforeThrottle misses in a row without activity before slowing down
+   * @param idleMillis time without activity before slowing down, however few the misses
+   * @param maxDelayMillis longest wait between frames
+   */
+  DecodeScheduler(int missesBeforeThrottle, long idleMillis, long maxDelayMillis) {
+    this.missesBeforeThrottle = missesBeforeThrottle;
+    this.idleMillis = idleMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Starts over at full rate, as when the preview is (re)started.
+   *
+   * @param now current time in milliseconds
+   */
+  void reset(long now) {
+    consecutiveMisses = 0;
+    lastActivity = now;
+    delayMillis = 0L;
+  }
+
+  /**
+   * @param underPressure true while the device is hot or its battery is low
+   */
+  void setUnderPressure(boolean underPressure) {
+    this.underPressure = underPressure;
+  }
+
+  boolean isUnderPressure() {
+    return underPressure;
+  }
+
+  /**
+   * @param activity true if the frame showed motion or possible result points
+   * @param now current time in milliseconds
+   * @return how long to wait before decoding the next frame, in milliseconds
+   */
+  long frameFailed(boolean activity, long now) {
+    if (activity) {
+      rampUp(now);
+      fullRateFrames++;
+      return 0L;
+    }
+    consecutiveMisses++;
+    int misses = underPressure ? missesBeforeThrottle / 2 : missesBeforeThrottle;
+    long idle = underPressure ? idleMillis / 2 : idleMillis;
+    if (consecutiveMisses < misses && now - lastActivity < idle) {
+      fullRateFrames++;
+      return 0L;
+    }
+    long ceiling = underPressure ? maxDelayMillis * 2 : maxDelayMillis;
+    delayMillis = delayMillis == 0L ? MIN_DELAY_MILLIS : Math.min(ceiling, delayMillis * 2);
+    throttledFrames++;
+    totalDelayMillis += delayMillis;
+    return delayMillis;
+  }
+
+  /**
+   * @param now current time in milliseconds
+   */
+  void frameDecoded(long now) {
+    rampUp(now);
+    fullRateFrames++;
+  }
+
+  private void rampUp(long now) {
+    if (delayMillis > 0L) {
+      rampUps++;
+    }
+    reset(now);
+  }
+
+  /**
+   * @return wait currently applied after a miss, in milliseconds; zero at full rate
+   */
+  long getDelayMillis() {
+    return delayMillis;
+  }
+
+  /**
+   * @return a one-line summary of how often decoding was slowed down, for the metrics log
+   */
+  @Override
+  public String toString() {
+    return "full rate " + fullRateFrames + " frames, throttled " + throttledFrames +
+        " frames by " + totalDelayMillis + " ms in all, ramped up " + rampUps + " times, now " +
+        delayMillis + " ms" + (underPressure ? " under pressure" : "");
+  }
+
+}
@@ -17,7 +17,9 @@
 package com.google.zxing.client.android;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeListener;
 import com.google.zxing.ResultPointCallback;
 
 import android.content.SharedPreferences;
@@ -46,6 +48,9 @@ final class DecodeThread extends Thread {
   private final Map<DecodeHintType,Object> hints;
   private Handler handler;
   private final CountDownLatch handlerInitLatch;
+  private final DecodeDeadline deadline;
+  private final boolean skipBlurredFrames;
+  private final boolean measureMotion;
 
   DecodeThread(CaptureActivity activity,
                Collection<BarcodeFormat> decodeFormats,
@@ -62,8 +67,11 @@ final class DecodeThread extends Thread {
     }
 
     // The prefs can't change while the thread is running, so pick them up once here.
+    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
+    skipBlurredFrames = prefs.getBoolean(PreferencesActivity.KEY_SKIP_BLURRED_FRAMES, true);
+    // Motion is what tells the scheduler to speed back up
+    measureMotion = DecodeThrottle.readPref(prefs) != DecodeThrottle.OFF;
     if (decodeFormats == null || decodeFormats.isEmpty()) {
-      SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
       decodeFormats = EnumSet.noneOf(BarcodeFormat.class);
       if (prefs.getBoolean(PreferencesActivity.KEY_DECODE_1D, false)) {
         decodeFormats.addAll(DecodeFormatManager.ONE_D_FORMATS);
@@ -89,9 +97,30 @@ final class DecodeThread extends Thread {
       hints.put(DecodeHintType.CHARACTER_SET, characterSet);
     }
     hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, resultPointCallback);
+    deadline = new DecodeDeadline(FrameDecoder.DECODE_BUDGET_MS);
+    hints.put(DecodeHintType.DECODE_DEADLINE, deadline);
+    DecodeListener decodeListener = activity.getDecodeListener();
+    if (decodeListener != null) {
+      hints.put(DecodeHintType.NEED_DECODE_LISTENER, decodeListener);
+    }
     Log.i("DecodeThread", "Hints: " + hints);
   }
 
+  /**
+   * Makes the frame being decoded, if any, give up at its next deadline check, and drops frames
+   * queued after it until {@link #resumeDecode()}. Safe to call from any thread.
+   */
+  void cancelDecode() {
+    deadline.cancel();
+  }
+
+  /**
+   * Lets frames be decoded again after {@link #cancelDecode()}. Safe to call from any thread.
+   */
+  void resumeDecode() {
+    deadline.resume();
+  }
+
   Handler getHandler() {
     try {
       handlerInitLatch.await();
@@ -104,7 +133,7 @@ final class DecodeThread extends Thread {
   @Override
   public void run() {
     Looper.prepare();
-    handler = new DecodeHandler(activity, hints);
+    handler = new DecodeHandler(activity, hints, skipBlurredFrames, measureMotion);
     handlerInitLatch.countDown();
     Looper.loop();
   }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android;
+
+import android.content.SharedPreferences;
+
+/**
+ * Enumerates settings of the preference controlling how far decoding slows down when nothing is
+ * in view; see {@link DecodeScheduler}.
+ */
+enum DecodeThrottle {
+
+  /** Always decode as fast as frames arrive. */
+  OFF(0, 0L, 0L),
+  /** Slow down after a few seconds of nothing, to at most about three frames a second. */
+  BALANCED(30, 3000L, 320L),
+  /** Slow down after a second of nothing, to at most one frame a second. */
+  POWER_SAVER(10, 1000L, 1000L);
+
+  private final int missesBeforeThrottle;
+  private final long idleMillis;
+  private final long maxDelayMillis;
+
+  DecodeThrottle(int missesBeforeThrottle, long idleMillis, long maxDelayMillis) {
+    this.missesBeforeThrottle = missesBeforeThrottle;
+    this.idleMillis = idleMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * @return a scheduler applying this setting, or null if decoding is never slowed down
+   */
+  DecodeScheduler newScheduler() {
+    return this == OFF ? null : new DecodeScheduler(missesBeforeThrottle, idleMillis, maxDelayMillis);
+  }
+
+  private static DecodeThrottle parse(String modeString) {
+    return modeString == null ? BALANCED : valueOf(modeString);
+  }
+
+  static DecodeThrottle readPref(SharedPreferences sharedPrefs) {
+    return parse(sharedPrefs.getString(PreferencesActivity.KEY_DECODE_THROTTLE, null));
+  }
+
+}
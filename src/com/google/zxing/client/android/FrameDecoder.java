@@ -0,0 +1,320 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.client.android;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DeadlineExceededException;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeListener;
+import com.google.zxing.DecodeStage;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.client.android.camera.FrameRecorder;
+import com.google.zxing.client.android.camera.FrameSource;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The per-frame decode pipeline: rotate the landscape NV21 frame to portrait, crop the
+ * {@link FrameSource}'s decode region, optionally skip it if {@link FrameQualityGate} finds it
+ * blurred, binarize, then try the multiple-barcode readers followed by the single ones. With a
+ * {@link RegionTracker}, the area where recent frames had points is decoded first, and the whole
+ * region only if that finds nothing. It uses no Android classes, so {@link DecodeHandler} on the device and
+ * ReplayRunner, under tools/, on a plain JVM run exactly the same code. Not thread-safe; use one
+ * instance per decode thread.
+ */
+final class FrameDecoder {
+
+  // Past this a frame is abandoned so that a fresh one can be tried, on the device or in a replay
+  static final long DECODE_BUDGET_MS = 500L;
+
+  private final MultiFormatReader multiFormatReader;
+  private final DecodeListener decodeListener;
+  private final DecodeDeadline deadline;
+  private final long hintMask;
+  private FrameRecorder frameRecorder;
+  private FrameQualityGate qualityGate;
+  private RegionTracker regionTracker;
+  private long regionHits;
+  private long regionMisses;
+  // Reused for every frame; only valid until the next call to decode()
+  private byte[] rotatedData;
+  private PlanarYUVLuminanceSource source;
+  private int sourceLeft;
+  private int sourceTop;
+  private int regionLeft;
+  private int regionTop;
+  private Result[] results;
+  private boolean multiple;
+  private boolean timedOut;
+  private boolean skipped;
+  private int candidatePoints;
+
+  FrameDecoder(Map<DecodeHintType,?> hints) {
+    Map<DecodeHintType,Object> trackedHints =
+        new EnumMap<DecodeHintType,Object>(DecodeHintType.class);
+    if (hints != null) {
+      trackedHints.putAll(hints);
+    }
+    trackedHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, new TrackingResultPointCallback(
+        hints == null ? null : (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK)));
+    multiFormatReader = new MultiFormatReader();
+    multiFormatReader.setHints(trackedHints);
+    decodeListener = hints == null ?
+        null : (DecodeListener) hints.get(DecodeHintType.NEED_DECODE_LISTENER);
+    deadline = DecodeDeadline.fromHints(hints);
+    hintMask = FrameRecorder.hintMask(hints);
+  }
+
+  /**
+   * @param frameRecorder where to keep what the decoder saw, or null to keep nothing
+   */
+  void setFrameRecorder(FrameRecorder frameRecorder) {
+    this.frameRecorder = frameRecorder;
+  }
+
+  /**
+   * @param qualityGate check deciding which frames are worth decoding, or null to decode all
+   */
+  void setQualityGate(FrameQualityGate qualityGate) {
+    this.qualityGate = qualityGate;
+  }
+
+  /**
+   * @param regionTracker tracker predicting where to decode first, or null to always decode the
+   *  whole region
+   */
+  void setRegionTracker(RegionTracker regionTracker) {
+    this.regionTracker = regionTracker;
+  }
+
+  /**
+   * @param data NV21 frame in landscape orientation; handed back to {@code frameSource} as soon
+   *  as it has been copied
+   * @param width frame width
+   * @param height frame height
+   * @param frameSource where the frame came from
+   * @return true if anything was found; see {@link #getResults()}
+   */
+  boolean decode(byte[] data, int width, int height, FrameSource frameSource) {
+    results = null;
+    multiple = false;
+    timedOut = false;
+    skipped = false;
+    candidatePoints = 0;
+    if (deadline != null) {
+      if (deadline.isCancelled()) {
+        // Queued before the decode was cancelled; not worth copying
+        frameSource.releaseFrame(data);
+        return false;
+      }
+      deadline.start();
+    }
+    long sourceStart = decodeListener == null ? 0L : System.nanoTime();
+
+    if (rotatedData == null || rotatedData.length != data.length) {
+      rotatedData = new byte[data.length];
+    }
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        rotatedData[x * height + height - y - 1] = data[x + y * width];
+      }
+    }
+    // The source can refill the buffer while the rotated copy is decoded
+    frameSource.releaseFrame(data);
+
+    int[] region = frameSource.getDecodeRegion();
+    source = null;
+    if (decodeListener != null) {
+      decodeListener.stageFinished(DecodeStage.LUMINANCE_SOURCE, System.nanoTime() - sourceStart);
+    }
+    if (region == null) {
+      return false;
+    }
+    if (qualityGate != null &&
+        !qualityGate.accept(rotatedData, height, region[0], region[1], region[2], region[3])) {
+      skipped = true;
+      return false;
+    }
+    regionLeft = region[0];
+    regionTop = region[1];
+
+    int[] predicted = regionTracker == null ? null : regionTracker.predict(region);
+    if (predicted != null) {
+      decodeArea(predicted, height, width);
+      if (results != null) {
+        regionHits++;
+      } else {
+        regionMisses++;
+      }
+    }
+    if (results == null && !timedOut) {
+      decodeArea(region, height, width);
+    }
+    if (regionTracker != null) {
+      if (results != null) {
+        for (Result result : results) {
+          ResultPoint[] points = result.getResultPoints();
+          if (points != null) {
+            for (ResultPoint point : points) {
+              if (point != null) {
+                regionTracker.addResultPoint(point.getX() + sourceLeft, point.getY() + sourceTop);
+              }
+            }
+          }
+        }
+      }
+      regionTracker.frameFinished();
+    }
+
+    if (frameRecorder != null) {
+      int outcome = results != null ? FrameRecorder.OUTCOME_FOUND :
+          timedOut ? FrameRecorder.OUTCOME_TIMED_OUT : FrameRecorder.OUTCOME_NOT_FOUND;
+      frameRecorder.record(rotatedData, height, region[0], region[1], region[2], region[3],
+          outcome, hintMask);
+    }
+    return results != null;
+  }
+
+  private void decodeArea(int[] area, int dataWidth, int dataHeight) {
+    sourceLeft = area[0];
+    sourceTop = area[1];
+    source = new PlanarYUVLuminanceSource(rotatedData, dataWidth, dataHeight,
+        area[0], area[1], area[2], area[3], false);
+    BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
+    try {
+      // Composite readers first
+      results = multiFormatReader.decodeMultiWithState(bitmap);
+      multiple = true;
+    } catch (ReaderException re) {
+      // Then the single-barcode readers
+      try {
+        results = new Result[] {multiFormatReader.decodeWithState(bitmap)};
+      } catch (DeadlineExceededException dee) {
+        timedOut = true;
+      } catch (ReaderException e) {
+        // nothing found
+      }
+    } finally {
+      multiFormatReader.reset();
+    }
+  }
+
+  /**
+   * @return results of the last decode, or null if it found nothing
+   */
+  Result[] getResults() {
+    return results;
+  }
+
+  /**
+   * @return true if the last results came from the multiple-barcode readers
+   */
+  boolean isMultiple() {
+    return multiple;
+  }
+
+  /**
+   * @return true if the last decode ran out of time before finding anything
+   */
+  boolean isTimedOut() {
+    return timedOut;
+  }
+
+  /**
+   * @return true if the last frame was skipped by the quality gate without being decoded
+   */
+  boolean isSkipped() {
+    return skipped;
+  }
+
+  /**
+   * @return true if the quality gate saw the scene move between the last two frames
+   */
+  boolean isMoving() {
+    return qualityGate != null && qualityGate.isMoving();
+  }
+
+  /**
+   * @return number of possible result points the readers reported in the last frame
+   */
+  int getCandidatePoints() {
+    return candidatePoints;
+  }
+
+  /**
+   * @return luminance source of the last area decoded, which result points are relative to, or
+   *  null if nothing was decoded
+   */
+  PlanarYUVLuminanceSource getSource() {
+    return source;
+  }
+
+  /**
+   * @return number of frames decoded in the area predicted by the region tracker
+   */
+  long getRegionHits() {
+    return regionHits;
+  }
+
+  /**
+   * @return number of frames that needed the whole region after the predicted area failed
+   */
+  long getRegionMisses() {
+    return regionMisses;
+  }
+
+  long getBudgetMillis() {
+    return deadline == null ? 0L : deadline.getBudgetMillis();
+  }
+
+  /**
+   * Feeds the points the readers report to the region tracker, and passes them on in the
+   * coordinates of the whole decode region, as if it had been decoded.
+   */
+  private final class TrackingResultPointCallback implements ResultPointCallback {
+
+    private final ResultPointCallback delegate;
+
+    TrackingResultPointCallback(ResultPointCallback delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void foundPossibleResultPoint(ResultPoint point) {
+      candidatePoints++;
+      if (regionTracker != null) {
+        regionTracker.addCandidatePoint(point.getX() + sourceLeft, point.getY() + sourceTop);
+      }
+      if (delegate != null) {
+        if (sourceLeft != regionLeft || sourceTop != regionTop) {
+          point = new ResultPoint(point.getX() + sourceLeft - regionLeft,
+                                  point.getY() + sourceTop - regionTop);
+        }
+        delegate.foundPossibleResultPoint(point);
+      }
+    }
+
+  }
+
+}
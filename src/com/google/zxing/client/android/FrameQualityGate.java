@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+/**
+ * A cheap check, run before binarization, that lets frames blurred by hand motion or an autofocus
+ * sweep be skipped. On a grid sampling every {@link #GRID_STEP}th pixel of the decode region it
+ * measures focus as the mean squared gradient between neighbouring pixels, and motion as the mean
+ * change from the previous frame's grid. Both are judged against the recent history rather than
+ * fixed levels, since these vary with lighting and the label: a frame is skipped when it is much
+ * less sharp than the sharpest recent frames, or moves much more than usual. A decode is still
+ * tried after a few skips in a row, so that a scene which never settles is not starved. It can
+ * also just measure, for {@link DecodeScheduler}'s benefit, without skipping anything. Not
+ * thread-safe; use one per decode thread.
+ */
+final class FrameQualityGate {
+
+  private static final int GRID_STEP = 4;
+  // Sharpest recent frame; fades so that a change of scene or light is followed
+  private static final float PEAK_SHARPNESS_DECAY = 0.9f;
+  private static final float MIN_SHARPNESS_RATIO = 0.5f;
+  // Mean change in luma per pixel below which a frame never counts as moving
+  private static final float MOTION_FLOOR = 8.0f;
+  private static final float MAX_MOTION_RATIO = 2.0f;
+  private static final float MOTION_AVERAGE_WEIGHT = 0.125f;
+  private static final int MAX_CONSECUTIVE_SKIPS = 3;
+
+  private final boolean skipFrames;
+  private int[] grid;
+  private int[] previousGrid;
+  private float peakSharpness;
+  private float averageMotion;
+  private boolean motionMeasured;
+  private float lastMotion;
+  private int consecutiveSkips;
+  private long skippedFrames;
+  private long passedFrames;
+
+  FrameQualityGate() {
+    this(true);
+  }
+
+  /**
+   * @param skipFrames false to only measure, accepting every frame
+   */
+  FrameQualityGate(boolean skipFrames) {
+    this.skipFrames = skipFrames;
+  }
+
+  /**
+   * @param luma luma plane, row after row
+   * @param dataWidth width of the plane
+   * @param left left of the decode region
+   * @param top top of the decode region
+   * @param width width of the decode region
+   * @param height height of the decode region
+   * @return true if the frame is worth decoding
+   */
+  boolean accept(byte[] luma, int dataWidth, int left, int top, int width, int height) {
+    int gridWidth = (width - 1) / GRID_STEP;
+    int gridHeight = (height - 1) / GRID_STEP;
+    int gridSize = gridWidth * gridHeight;
+    lastMotion = 0.0f;
+    if (gridSize == 0) {
+      passedFrames++;
+      return true;
+    }
+    if (grid == null || grid.length != gridSize) {
+      grid = new int[gridSize];
+      previousGrid = null;
+    }
+
+    long gradientEnergy = 0L;
+    long change = 0L;
+    int i = 0;
+    for (int y = 0; y < gridHeight; y++) {
+      int offset = (top + y * GRID_STEP) * dataWidth + left;
+      for (int x = 0; x < gridWidth; x++, offset += GRID_STEP, i++) {
+        int value = luma[offset] & 0xff;
+        int dx = (luma[offset + 1] & 0xff) - value;
+        int dy = (luma[offset + dataWidth] & 0xff) - value;
+        gradientEnergy += dx * dx + dy * dy;
+        if (previousGrid != null) {
+          change += Math.abs(value - previousGrid[i]);
+        }
+        grid[i] = value;
+      }
+    }
+    float sharpness = (float) gradientEnergy / gridSize;
+    boolean moving = false;
+    if (previousGrid != null) {
+      float motion = (float) change / gridSize;
+      lastMotion = motion;
+      if (motionMeasured) {
+        moving = motion > MOTION_FLOOR && motion > averageMotion * MAX_MOTION_RATIO;
+        averageMotion += (motion - averageMotion) * MOTION_AVERAGE_WEIGHT;
+      } else {
+        averageMotion = motion;
+        motionMeasured = true;
+      }
+    }
+    int[] swap = previousGrid == null ? new int[gridSize] : previousGrid;
+    previousGrid = grid;
+    grid = swap;
+
+    peakSharpness = Math.max(sharpness, peakSharpness * PEAK_SHARPNESS_DECAY);
+    boolean blurred = sharpness < peakSharpness * MIN_SHARPNESS_RATIO;
+
+    if (skipFrames && (blurred || moving) && consecutiveSkips < MAX_CONSECUTIVE_SKIPS) {
+      consecutiveSkips++;
+      skippedFrames++;
+      return false;
+    }
+    consecutiveSkips = 0;
+    passedFrames++;
+    return true;
+  }
+
+  /**
+   * @return true if the last frame changed noticeably from the one before, whatever the recent
+   *  history; unlike skipping, this is a plain sign that something is happening in view
+   */
+  boolean isMoving() {
+    return lastMotion > MOTION_FLOOR;
+  }
+
+  /**
+   * @return number of frames judged not worth decoding
+   */
+  long getSkippedFrames() {
+    return skippedFrames;
+  }
+
+  /**
+   * @return number of frames let through to the decoder
+   */
+  long getPassedFrames() {
+    return passedFrames;
+  }
+
+}
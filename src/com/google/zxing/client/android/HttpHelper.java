@@ -16,8 +16,11 @@
 
 package com.google.zxing.client.android;
 
+import android.content.Context;
+import android.os.Build;
 import android.util.Log;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -29,10 +32,17 @@ import java.net.URLConnection;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Utility methods for retrieving content over HTTP using the more-supported {@code java.net} classes
  * in Android.
+ *
+ * <p>Connections are kept alive between requests where the platform supports it. Once
+ * {@link #installResponseCache(Context)} has been called, full downloads are also cached on disk and
+ * revalidated with their {@code ETag} or {@code Last-Modified} once stale.</p>
  */
 public final class HttpHelper {
 
@@ -43,8 +53,52 @@ public final class HttpHelper {
     "R.BEETAGG.COM", "r.beetagg.com", "SCN.BY", "su.pr", "t.co", "tinyurl.com", "tr.im"
   ));
 
+  /** How long a response without caching headers is considered fresh. */
+  private static final long DEFAULT_TTL_MILLIS = 60L * 60L * 1000L;
+  private static final long RESPONSE_CACHE_BYTES = 1024L * 1024L;
+  private static final int MAX_UNREDIRECTED = 64;
+
+  private static final Map<URI,URI> UNREDIRECTED = new LinkedHashMap<URI,URI>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<URI,URI> eldest) {
+      return size() > MAX_UNREDIRECTED;
+    }
+  };
+
+  private static HttpResponseCache responseCache;
+
+  static {
+    // Before Froyo, a pooled connection could be handed back in a broken state:
+    // http://code.google.com/p/android/issues/detail?id=2939
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.FROYO) {
+      System.setProperty("http.keepAlive", "false");
+    }
+  }
+
   private HttpHelper() {
   }
+
+  /**
+   * Starts caching downloaded content under the application's cache directory. Calling this again
+   * has no effect.
+   */
+  public static synchronized void installResponseCache(Context context) {
+    if (responseCache == null) {
+      responseCache = new HttpResponseCache(new File(context.getCacheDir(), "http"), RESPONSE_CACHE_BYTES);
+    }
+  }
+
+  /**
+   * Replaces the response cache, for instance with one in a temporary directory; {@code null} disables
+   * caching.
+   */
+  static synchronized void setResponseCache(HttpResponseCache cache) {
+    responseCache = cache;
+  }
+
+  private static synchronized HttpResponseCache getResponseCache() {
+    return responseCache;
+  }
   
   public enum ContentType {
     /** HTML-like content type, including HTML, XHTML, etc. */
@@ -93,19 +147,62 @@ public final class HttpHelper {
   }
 
   private static CharSequence downloadViaHttp(String uri, String contentTypes, int maxChars) throws IOException {
+    HttpResponseCache cache = getResponseCache();
     int redirects = 0;
     while (redirects < 5) {
+      long now = System.currentTimeMillis();
+      HttpResponseCache.Entry cached = cache == null ? null : cache.get(uri);
+      if (cached != null && cached.isFresh(now)) {
+        return truncate(cached.body, maxChars);
+      }
       URL url = new URL(uri);
       HttpURLConnection connection = safelyOpenConnection(url);
       connection.setInstanceFollowRedirects(true); // Won't work HTTP -> HTTPS or vice versa
       connection.setRequestProperty("Accept", contentTypes);
       connection.setRequestProperty("Accept-Charset", "utf-8,*");
       connection.setRequestProperty("User-Agent", "ZXing (Android)");
+      if (cached != null) {
+        if (cached.eTag != null) {
+          connection.setRequestProperty("If-None-Match", cached.eTag);
+        }
+        if (cached.lastModified != null) {
+          connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+        }
+      }
+      // A connection can only go back to the pool once its response has been read to the end
+      boolean reusable = false;
       try {
-        int responseCode = safelyConnect(uri, connection);
+        int responseCode;
+        try {
+          responseCode = safelyConnect(uri, connection);
+        } catch (IOException ioe) {
+          if (cached == null) {
+            throw ioe;
+          }
+          Log.w(TAG, "Using stale content for " + uri, ioe);
+          return truncate(cached.body, maxChars);
+        }
         switch (responseCode) {
           case HttpURLConnection.HTTP_OK:
-            return consume(connection, maxChars);
+            CharSequence content = consume(connection, maxChars);
+            reusable = content.length() < maxChars;
+            if (reusable && cache != null) {
+              long expires = expiresAt(connection, now);
+              if (expires >= 0) {
+                cache.put(uri, new HttpResponseCache.Entry(content.toString(),
+                                                           expires,
+                                                           connection.getHeaderField("ETag"),
+                                                           connection.getHeaderField("Last-Modified")));
+              }
+            }
+            return content;
+          case HttpURLConnection.HTTP_NOT_MODIFIED:
+            if (cached == null) {
+              throw new IOException("Unexpected HTTP response: " + responseCode);
+            }
+            reusable = true;
+            cache.put(uri, cached.withExpires(Math.max(now, expiresAt(connection, now))));
+            return truncate(cached.body, maxChars);
           case HttpURLConnection.HTTP_MOVED_TEMP:
             String location = connection.getHeaderField("Location");
             if (location != null) {
@@ -118,12 +215,58 @@ public final class HttpHelper {
             throw new IOException("Bad HTTP response: " + responseCode);
         }
       } finally {
-        connection.disconnect();
+        if (!reusable) {
+          connection.disconnect();
+        }
       }
     }
     throw new IOException("Too many redirects");
   }
 
+  /**
+   * @return when the response stops being fresh, in milliseconds since the epoch, or -1 if it must
+   *  not be stored at all
+   */
+  private static long expiresAt(URLConnection connection, long now) {
+    String cacheControl = connection.getHeaderField("Cache-Control");
+    if (cacheControl != null) {
+      boolean noCache = false;
+      long maxAgeSeconds = -1L;
+      for (String directive : cacheControl.split(",")) {
+        directive = directive.trim().toLowerCase(Locale.ENGLISH);
+        if ("no-store".equals(directive)) {
+          return -1L;
+        }
+        if ("no-cache".equals(directive)) {
+          noCache = true;
+        } else if (directive.startsWith("max-age=")) {
+          try {
+            maxAgeSeconds = Long.parseLong(directive.substring("max-age=".length()));
+          } catch (NumberFormatException nfe) {
+            noCache = true;
+          }
+        }
+      }
+      if (noCache) {
+        return now;
+      }
+      if (maxAgeSeconds >= 0L) {
+        return now + 1000L * maxAgeSeconds;
+      }
+    }
+    if (connection.getHeaderField("Expires") != null) {
+      // An unparseable date, commonly "0", means already expired
+      long expires = connection.getHeaderFieldDate("Expires", 0L);
+      long date = connection.getHeaderFieldDate("Date", now);
+      return now + Math.max(0L, expires - date);
+    }
+    return now + DEFAULT_TTL_MILLIS;
+  }
+
+  private static CharSequence truncate(String content, int maxChars) {
+    return content.length() > maxChars ? content.substring(0, maxChars) : content;
+  }
+
   private static String getEncoding(URLConnection connection) {
     String contentTypeHeader = connection.getHeaderField("Content-Type");
     if (contentTypeHeader != null) {
@@ -160,10 +303,28 @@ public final class HttpHelper {
     return out;
   }
 
+  /**
+   * @return where a link from a known URL shortener leads, or the URI itself if it isn't one. Answers
+   *  are remembered for the life of the process, so each short link costs one round-trip at most.
+   */
   public static URI unredirect(URI uri) throws IOException {
     if (!REDIRECTOR_DOMAINS.contains(uri.getHost())) {
       return uri;
     }
+    synchronized (UNREDIRECTED) {
+      URI known = UNREDIRECTED.get(uri);
+      if (known != null) {
+        return known;
+      }
+    }
+    URI target = followRedirect(uri);
+    synchronized (UNREDIRECTED) {
+      UNREDIRECTED.put(uri, target);
+    }
+    return target;
+  }
+
+  private static URI followRedirect(URI uri) throws IOException {
     URL url = uri.toURL();
     HttpURLConnection connection = safelyOpenConnection(url);
     connection.setInstanceFollowRedirects(false);
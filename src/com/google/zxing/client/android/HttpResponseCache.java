@@ -0,0 +1,210 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small on-disk cache of text responses, keyed by URL and bounded in total size. Entries are
+ * evicted least-recently-used first; recency survives restarts as each file's modification time.
+ * Each entry keeps the validators ({@code ETag}, {@code Last-Modified}) needed to revalidate it
+ * once it has expired.
+ */
+final class HttpResponseCache {
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String SUFFIX = ".entry";
+
+  private final File directory;
+  private final long maxBytes;
+  /** File name to size, in access order. */
+  private final LinkedHashMap<String,Long> sizes;
+  private long totalBytes;
+
+  HttpResponseCache(File directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    sizes = new LinkedHashMap<String,Long>(16, 0.75f, true);
+    directory.mkdirs();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      Arrays.sort(files, new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+          long aTime = a.lastModified();
+          long bTime = b.lastModified();
+          return aTime < bTime ? -1 : aTime > bTime ? 1 : 0;
+        }
+      });
+      for (File file : files) {
+        if (file.getName().endsWith(SUFFIX)) {
+          sizes.put(file.getName(), file.length());
+          totalBytes += file.length();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the cached response for this URL, fresh or not, or {@code null}
+   */
+  synchronized Entry get(String url) {
+    String name = fileName(url);
+    if (sizes.get(name) == null) {
+      return null;
+    }
+    File file = new File(directory, name);
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (in.readInt() != FORMAT_VERSION || !url.equals(in.readUTF())) {
+        return null;
+      }
+      long expires = in.readLong();
+      String eTag = readOptionalUTF(in);
+      String lastModified = readOptionalUTF(in);
+      byte[] body = new byte[in.readInt()];
+      in.readFully(body);
+      file.setLastModified(System.currentTimeMillis());
+      return new Entry(new String(body, "UTF-8"), expires, eTag, lastModified);
+    } catch (IOException ioe) {
+      remove(name);
+      return null;
+    } finally {
+      close(in);
+    }
+  }
+
+  synchronized void put(String url, Entry entry) {
+    String name = fileName(url);
+    remove(name);
+    File file = new File(directory, name);
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(url);
+      out.writeLong(entry.expires);
+      writeOptionalUTF(out, entry.eTag);
+      writeOptionalUTF(out, entry.lastModified);
+      byte[] body = entry.body.getBytes("UTF-8");
+      out.writeInt(body.length);
+      out.write(body);
+      out.close();
+      out = null;
+    } catch (IOException ioe) {
+      close(out);
+      file.delete();
+      return;
+    }
+    sizes.put(name, file.length());
+    totalBytes += file.length();
+    Iterator<Map.Entry<String,Long>> eldest = sizes.entrySet().iterator();
+    while (totalBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String,Long> evicted = eldest.next();
+      eldest.remove();
+      totalBytes -= evicted.getValue();
+      new File(directory, evicted.getKey()).delete();
+    }
+  }
+
+  private void remove(String name) {
+    Long size = sizes.remove(name);
+    if (size != null) {
+      totalBytes -= size;
+      new File(directory, name).delete();
+    }
+  }
+
+  private static String fileName(String url) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes("UTF-8"));
+      StringBuilder name = new StringBuilder(digest.length * 2 + SUFFIX.length());
+      for (byte b : digest) {
+        name.append(Character.forDigit((b >> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+      }
+      return name.append(SUFFIX).toString();
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new IllegalStateException(nsae);
+    } catch (IOException ioe) {
+      throw new IllegalStateException(ioe);
+    }
+  }
+
+  private static String readOptionalUTF(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeOptionalUTF(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static void close(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException ioe) {
+        // continue
+      }
+    }
+  }
+
+  static final class Entry {
+
+    final String body;
+    /** When the entry stops being fresh, in milliseconds since the epoch. */
+    final long expires;
+    final String eTag;
+    final String lastModified;
+
+    Entry(String body, long expires, String eTag, String lastModified) {
+      this.body = body;
+      this.expires = expires;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+
+    boolean isFresh(long now) {
+      return now < expires;
+    }
+
+    Entry withExpires(long newExpires) {
+      return new Entry(body, newExpires, eTag, lastModified);
+    }
+
+  }
+
+}
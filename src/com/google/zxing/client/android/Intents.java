@@ -153,13 +153,42 @@ public final class Intents {
      */
     public static final String SAVE_HISTORY = "SAVE_HISTORY";
 
+    /**
+     * Setting this to true keeps scanning after each barcode instead of returning it, and returns
+     * all of them in {@link #RESULT_BATCH} when the user presses Back. Specified as a
+     * {@code boolean}.
+     */
+    public static final String BATCH = "SCAN_BATCH";
+
+    /**
+     * In batch mode, how long in milliseconds a barcode must have been out of view before it is
+     * taken again. Specified as a long, defaulting to 3000L.
+     */
+    public static final String BATCH_DEDUP_WINDOW_MS = "SCAN_BATCH_DEDUP_WINDOW_MS";
+
+    /**
+     * In batch mode, call {@link android.content.Intent#getStringArrayExtra(String)} with
+     * {@link #RESULT_BATCH} for the contents of every barcode taken, in the order scanned.
+     * {@link #RESULT} and {@link #RESULT_FORMAT} hold the first of them.
+     */
+    public static final String RESULT_BATCH = "SCAN_RESULT_BATCH";
+
+    /**
+     * In batch mode, call {@link android.content.Intent#getStringArrayExtra(String)} with
+     * {@link #RESULT_BATCH_FORMATS} for the format of each barcode in {@link #RESULT_BATCH}.
+     */
+    public static final String RESULT_BATCH_FORMATS = "SCAN_RESULT_BATCH_FORMATS";
+
     private Scan() {
     }
   }
 
   public static final class History {
 
-    public static final String ITEM_NUMBER = "ITEM_NUMBER";
+    /**
+     * Row id of the history item chosen, as a long.
+     */
+    public static final String ITEM_ID = "ITEM_ID";
 
     private History() {
     }
@@ -53,9 +53,16 @@ public final class PreferencesActivity extends PreferenceActivity
   public static final String KEY_SEARCH_COUNTRY = "preferences_search_country";
 
   public static final String KEY_DISABLE_CONTINUOUS_FOCUS = "preferences_disable_continuous_focus";
+  public static final String KEY_DECODE_METRICS = "preferences_decode_metrics";
+  public static final String KEY_DECODE_WORKERS = "preferences_decode_workers";
+  public static final String KEY_RECORD_FRAMES = "preferences_record_frames";
+  public static final String KEY_SKIP_BLURRED_FRAMES = "preferences_skip_blurred_frames";
+  public static final String KEY_DECODE_THROTTLE = "preferences_decode_throttle";
+  public static final String KEY_THROUGHPUT_PREVIEW_SIZE = "preferences_throughput_preview_size";
   //public static final String KEY_DISABLE_EXPOSURE = "preferences_disable_exposure";
 
   public static final String KEY_HELP_VERSION_SHOWN = "preferences_help_version_shown";
+  public static final String KEY_DECODE_COST_MODEL = "preferences_decode_cost_model";
 
   private CheckBoxPreference decode1D;
   private CheckBoxPreference decodeQR;
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+import com.google.zxing.Result;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers which barcodes were seen recently, by format and text, so that a label held in view
+ * during continuous scanning is accepted once rather than on every frame. A barcode counts as new
+ * again only once it has been out of sight for the whole window.
+ */
+final class RecentResults {
+
+  private final long windowMillis;
+  // Key to time last seen, oldest first
+  private final Map<String,Long> lastSeen = new LinkedHashMap<String,Long>();
+
+  RecentResults(long windowMillis) {
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * @param result a result just decoded
+   * @param now current time, in milliseconds
+   * @return true if the result was not seen within the window
+   */
+  boolean add(Result result, long now) {
+    for (Iterator<Long> it = lastSeen.values().iterator(); it.hasNext(); ) {
+      if (now - it.next() < windowMillis) {
+        break;
+      }
+      it.remove();
+    }
+    String key = result.getBarcodeFormat() + ":" + result.getText();
+    // Re-inserted so that the map stays in order of last sighting
+    boolean seen = lastSeen.remove(key) != null;
+    lastSeen.put(key, now);
+    return !seen;
+  }
+
+  void clear() {
+    lastSeen.clear();
+  }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+/**
+ * Predicts where in the decode region the symbol will be in the next frame, from the points the
+ * readers reported in recent frames: candidate finder and guard patterns through the
+ * {@link com.google.zxing.ResultPointCallback}, and the points of any result, which when present
+ * replace the candidates of their frame. The prediction is the bounding box of the points of the
+ * last few frames that had any, moved on by the motion of their center between the two most
+ * recent such frames, and widened by a margin. Candidates alone are trusted only once two frames
+ * in a row put them in about the same place, since stray guard patterns turn up in noise. It is
+ * only a hint: the decoder tries that crop first and the whole region when it finds nothing.
+ *
+ * <p>All coordinates are those of the frame after rotation to portrait. The tracker uses no
+ * decoder classes, so it can be driven by synthetic point sequences. Not thread-safe; use one per
+ * decode thread.</p>
+ */
+final class RegionTracker {
+
+  // Frames that had points, kept for the prediction
+  private static final int HISTORY_FRAMES = 3;
+  // Frames without any point after which the symbol is taken to be gone
+  private static final int MAX_FRAMES_WITHOUT_POINTS = 4;
+  private static final float MARGIN_RATIO = 0.5f;
+  private static final int MIN_MARGIN = 24;
+  // A crop this close to the whole region saves too little to be worth a second pass
+  private static final float MAX_AREA_RATIO = 0.6f;
+
+  // Per recent frame, newest first: bounding box {minX, minY, maxX, maxY} of its points
+  private final float[][] boxes = new float[HISTORY_FRAMES][4];
+  // Per recent frame: whether its points came from a result
+  private final boolean[] confirmed = new boolean[HISTORY_FRAMES];
+  private int boxCount;
+  private int framesWithoutPoints;
+  private final float[] candidateBox = new float[4];
+  private boolean hasCandidates;
+  private final float[] resultBox = new float[4];
+  private boolean hasResult;
+
+  /**
+   * Adds a candidate point seen while decoding the current frame.
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   */
+  void addCandidatePoint(float x, float y) {
+    include(candidateBox, hasCandidates, x, y);
+    hasCandidates = true;
+  }
+
+  /**
+   * Adds a point of a result decoded from the current frame.
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   */
+  void addResultPoint(float x, float y) {
+    include(resultBox, hasResult, x, y);
+    hasResult = true;
+  }
+
+  private static void include(float[] box, boolean extend, float x, float y) {
+    if (extend) {
+      box[0] = Math.min(box[0], x);
+      box[1] = Math.min(box[1], y);
+      box[2] = Math.max(box[2], x);
+      box[3] = Math.max(box[3], y);
+    } else {
+      box[0] = box[2] = x;
+      box[1] = box[3] = y;
+    }
+  }
+
+  /**
+   * Ends the current frame; points added afterwards belong to the next.
+   */
+  void frameFinished() {
+    if (!hasCandidates && !hasResult) {
+      if (++framesWithoutPoints >= MAX_FRAMES_WITHOUT_POINTS) {
+        boxCount = 0;
+      }
+      return;
+    }
+    framesWithoutPoints = 0;
+    float[] box = boxes[HISTORY_FRAMES - 1];
+    System.arraycopy(boxes, 0, boxes, 1, HISTORY_FRAMES - 1);
+    System.arraycopy(confirmed, 0, confirmed, 1, HISTORY_FRAMES - 1);
+    boxes[0] = box;
+    System.arraycopy(hasResult ? resultBox : candidateBox, 0, box, 0, 4);
+    confirmed[0] = hasResult;
+    if (boxCount < HISTORY_FRAMES) {
+      boxCount++;
+    }
+    hasCandidates = false;
+    hasResult = false;
+  }
+
+  /**
+   * @param region {left, top, width, height} of the whole decode region
+   * @return {left, top, width, height} of the area within {@code region} to try first, or null
+   *  if there is no useful prediction
+   */
+  int[] predict(int[] region) {
+    if (boxCount == 0 || (!confirmed[0] && (boxCount == 1 || !near(boxes[0], boxes[1])))) {
+      return null;
+    }
+    float left = Float.MAX_VALUE;
+    float top = Float.MAX_VALUE;
+    float right = -Float.MAX_VALUE;
+    float bottom = -Float.MAX_VALUE;
+    for (int i = 0; i < boxCount; i++) {
+      float[] box = boxes[i];
+      left = Math.min(left, box[0]);
+      top = Math.min(top, box[1]);
+      right = Math.max(right, box[2]);
+      bottom = Math.max(bottom, box[3]);
+    }
+    if (boxCount > 1) {
+      // Keep moving as the last two frames did
+      float[] last = boxes[0];
+      float[] previous = boxes[1];
+      float dx = (last[0] + last[2] - previous[0] - previous[2]) / 2.0f;
+      float dy = (last[1] + last[3] - previous[1] - previous[3]) / 2.0f;
+      left = Math.min(left, left + dx);
+      right = Math.max(right, right + dx);
+      top = Math.min(top, top + dy);
+      bottom = Math.max(bottom, bottom + dy);
+    }
+    // Points often lie along one scan line, so widen by the larger dimension in both directions
+    float margin = margin(left, top, right, bottom);
+    int cropLeft = Math.max(region[0], (int) (left - margin));
+    int cropTop = Math.max(region[1], (int) (top - margin));
+    int cropRight = Math.min(region[0] + region[2], (int) (right + margin) + 1);
+    int cropBottom = Math.min(region[1] + region[3], (int) (bottom + margin) + 1);
+    int cropWidth = cropRight - cropLeft;
+    int cropHeight = cropBottom - cropTop;
+    if (cropWidth <= 0 || cropHeight <= 0 ||
+        (float) cropWidth * cropHeight > MAX_AREA_RATIO * region[2] * region[3]) {
+      return null;
+    }
+    return new int[] {cropLeft, cropTop, cropWidth, cropHeight};
+  }
+
+  private static float margin(float left, float top, float right, float bottom) {
+    return Math.max(MIN_MARGIN, Math.max(right - left, bottom - top) * MARGIN_RATIO);
+  }
+
+  private static boolean near(float[] box, float[] other) {
+    float dx = Math.abs(box[0] + box[2] - other[0] - other[2]) / 2.0f;
+    float dy = Math.abs(box[1] + box[3] - other[1] - other[3]) / 2.0f;
+    return Math.max(dx, dy) <= margin(box[0], box[1], box[2], box[3]);
+  }
+
+}
@@ -18,7 +18,6 @@ package com.google.zxing.client.android.book;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.KeyEvent;
@@ -44,8 +43,7 @@ import com.google.zxing.client.android.Intents;
 import com.google.zxing.client.android.HttpHelper;
 import com.google.zxing.client.android.LocaleManager;
 import com.google.zxing.client.android.R;
-import com.google.zxing.client.android.common.executor.AsyncTaskExecInterface;
-import com.google.zxing.client.android.common.executor.AsyncTaskExecManager;
+import com.google.zxing.client.android.common.executor.EnrichmentExecutor;
 
 /**
  * Uses Google Book Search to find a word or phrase in the requested book.
@@ -67,12 +65,6 @@ public final class SearchBookContentsActivity extends Activity {
   private Button queryButton;
   private ListView resultListView;
   private TextView headerView;
-  private NetworkTask networkTask;
-  private final AsyncTaskExecInterface taskExec;
-
-  public SearchBookContentsActivity() {
-    taskExec = new AsyncTaskExecManager().build();
-  }
 
   private final Button.OnClickListener buttonListener = new Button.OnClickListener() {
     @Override
@@ -103,6 +95,7 @@ public final class SearchBookContentsActivity extends Activity {
     // Make sure that expired cookies are removed on launch.
     CookieSyncManager.createInstance(this);
     CookieManager.getInstance().removeExpiredCookie();
+    HttpHelper.installResponseCache(this);
 
     Intent intent = getIntent();
     if (intent == null || !intent.getAction().equals(Intents.SearchBookContents.ACTION)) {
@@ -145,23 +138,17 @@ public final class SearchBookContentsActivity extends Activity {
 
   @Override
   protected void onPause() {
-    NetworkTask oldTask = networkTask;
-    if (oldTask != null) {
-      oldTask.cancel(true);
-      networkTask = null;
-    }
+    EnrichmentExecutor.getInstance().cancelAll(this);
     super.onPause();
   }
 
   private void launchSearch() {
     String query = queryTextView.getText().toString();
     if (query != null && query.length() > 0) {
-      NetworkTask oldTask = networkTask;
-      if (oldTask != null) {
-        oldTask.cancel(true);
-      }
-      networkTask = new NetworkTask();
-      taskExec.execute(networkTask, query, isbn);
+      EnrichmentExecutor executor = EnrichmentExecutor.getInstance();
+      executor.cancelAll(this);
+      NetworkTask networkTask = new NetworkTask(query, isbn);
+      executor.execute(this, networkTask.getUri(), EnrichmentExecutor.Priority.HIGH, networkTask);
       headerView.setText(R.string.msg_sbc_searching_book);
       resultListView.setAdapter(null);
       queryTextView.setEnabled(false);
@@ -169,24 +156,30 @@ public final class SearchBookContentsActivity extends Activity {
     }
   }
 
-  private final class NetworkTask extends AsyncTask<String,Object,JSONObject> {
+  private final class NetworkTask implements EnrichmentExecutor.Task<JSONObject> {
+
+    private final String uri;
+
+    NetworkTask(String theQuery, String theIsbn) {
+      // These return a JSON result which describes if and where the query was found. This API may
+      // break or disappear at any time in the future. Since this is an API call rather than a
+      // website, we don't use LocaleManager to change the TLD.
+      if (LocaleManager.isBookSearchUrl(theIsbn)) {
+        int equals = theIsbn.indexOf('=');
+        String volumeId = theIsbn.substring(equals + 1);
+        uri = "http://www.google.com/books?id=" + volumeId + "&jscmd=SearchWithinVolume2&q=" + theQuery;
+      } else {
+        uri = "http://www.google.com/books?vid=isbn" + theIsbn + "&jscmd=SearchWithinVolume2&q=" + theQuery;
+      }
+    }
+
+    String getUri() {
+      return uri;
+    }
 
     @Override
-    protected JSONObject doInBackground(String... args) {
+    public JSONObject doInBackground() {
       try {
-        // These return a JSON result which describes if and where the query was found. This API may
-        // break or disappear at any time in the future. Since this is an API call rather than a
-        // website, we don't use LocaleManager to change the TLD.
-        String theQuery = args[0];
-        String theIsbn = args[1];
-        String uri;
-        if (LocaleManager.isBookSearchUrl(theIsbn)) {
-          int equals = theIsbn.indexOf('=');
-          String volumeId = theIsbn.substring(equals + 1);
-          uri = "http://www.google.com/books?id=" + volumeId + "&jscmd=SearchWithinVolume2&q=" + theQuery;
-        } else {
-          uri = "http://www.google.com/books?vid=isbn" + theIsbn + "&jscmd=SearchWithinVolume2&q=" + theQuery;
-        }
         CharSequence content = HttpHelper.downloadViaHttp(uri, HttpHelper.ContentType.JSON);
         return new JSONObject(content.toString());
       } catch (IOException ioe) {
@@ -199,7 +192,7 @@ public final class SearchBookContentsActivity extends Activity {
     }
 
     @Override
-    protected void onPostExecute(JSONObject result) {
+    public void onPostExecute(JSONObject result) {
       if (result == null) {
         headerView.setText(R.string.msg_sbc_failed);
       } else {
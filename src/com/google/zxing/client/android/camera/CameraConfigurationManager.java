@@ -51,6 +51,15 @@ final class CameraConfigurationManager {
   private static final int MIN_PREVIEW_PIXELS = 470 * 320; // normal screen
   private static final int MAX_PREVIEW_PIXELS = 1280 * 800;
 
+  // For throughput mode: a label this many modules wide, filling this fraction of the portrait
+  // width (the preview's short side), must still get this many pixels per module.
+  private static final int LABEL_MODULES = 160;
+  private static final float LABEL_FRACTION_OF_VIEW = 0.6f;
+  private static final float MIN_PIXELS_PER_MODULE = 1.5f;
+  // Previews arrive no faster than this however quickly they decode
+  private static final long FRAME_INTERVAL_NANOS = 1000000000L / 30;
+  private static final float MAX_ASPECT_RATIO_DIFF = 0.15f;
+
   private final Context context;
   private Point screenResolution;
   private Point cameraResolution;
@@ -84,7 +93,13 @@ final class CameraConfigurationManager {
 	   screenResolutionForCamera.x   = screenResolution.y;
 	   screenResolutionForCamera.y  = screenResolution.x;
     }
-    cameraResolution = findBestPreviewSizeValue(parameters, screenResolutionForCamera);
+    SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+    if (prefs.getBoolean(PreferencesActivity.KEY_THROUGHPUT_PREVIEW_SIZE, false)) {
+      cameraResolution = findFastestPreviewSizeValue(parameters, screenResolutionForCamera,
+                                                     getDecodeCostModel(prefs));
+    } else {
+      cameraResolution = findBestPreviewSizeValue(parameters, screenResolutionForCamera);
+    }
     Log.i(TAG, "Camera resolution: " + cameraResolution);
   }
 
@@ -271,6 +286,72 @@ void setDesiredCameraParameters(Camera camera, boolean safeMode) {
     return bestSize;
   }
 
+  /**
+   * Calibrates the decode cost model the first time it's needed on this build of this device and
+   * caches it. This runs with the camera opening, which is already off the main thread.
+   */
+  private static DecodeCostModel getDecodeCostModel(SharedPreferences prefs) {
+    String prefix = Build.FINGERPRINT + '|';
+    String stored = prefs.getString(PreferencesActivity.KEY_DECODE_COST_MODEL, null);
+    if (stored != null && stored.startsWith(prefix)) {
+      DecodeCostModel costModel = DecodeCostModel.parse(stored.substring(prefix.length()));
+      if (costModel != null) {
+        return costModel;
+      }
+    }
+    long start = System.currentTimeMillis();
+    DecodeCostModel costModel = DecodeCostModel.calibrate();
+    Log.i(TAG, "Calibrated decode cost " + costModel + " in " + (System.currentTimeMillis() - start) + " ms");
+    prefs.edit().putString(PreferencesActivity.KEY_DECODE_COST_MODEL, prefix + costModel).commit();
+    return costModel;
+  }
+
+  /**
+   * Picks the preview size that decodes the most frames per second while still giving a label
+   * enough pixels per module. Sizes that decode faster than previews arrive are equally fast, so
+   * among those the largest wins.
+   */
+  private Point findFastestPreviewSizeValue(Camera.Parameters parameters,
+                                            Point screenResolution,
+                                            DecodeCostModel costModel) {
+    List<Camera.Size> supportedPreviewSizes = parameters.getSupportedPreviewSizes();
+    if (supportedPreviewSizes == null) {
+      return findBestPreviewSizeValue(parameters, screenResolution);
+    }
+
+    float screenAspectRatio = (float) screenResolution.x / (float) screenResolution.y;
+    Point bestSize = null;
+    long bestFrameNanos = Long.MAX_VALUE;
+    int bestPixels = 0;
+    for (Camera.Size supportedPreviewSize : supportedPreviewSizes) {
+      int realWidth = supportedPreviewSize.width;
+      int realHeight = supportedPreviewSize.height;
+      int shortSide = Math.min(realWidth, realHeight);
+      int longSide = Math.max(realWidth, realHeight);
+      if (shortSide * LABEL_FRACTION_OF_VIEW / LABEL_MODULES < MIN_PIXELS_PER_MODULE) {
+        continue;
+      }
+      if (Math.abs((float) longSide / (float) shortSide - screenAspectRatio) > MAX_ASPECT_RATIO_DIFF) {
+        continue;
+      }
+      long frameNanos = Math.max(FRAME_INTERVAL_NANOS, costModel.estimateNanos(realWidth, realHeight));
+      int pixels = realWidth * realHeight;
+      if (frameNanos < bestFrameNanos || (frameNanos == bestFrameNanos && pixels > bestPixels)) {
+        bestSize = new Point(realWidth, realHeight);
+        bestFrameNanos = frameNanos;
+        bestPixels = pixels;
+      }
+    }
+
+    if (bestSize == null) {
+      Log.i(TAG, "No preview size resolves labels at the screen's aspect ratio");
+      return findBestPreviewSizeValue(parameters, screenResolution);
+    }
+    Log.i(TAG, "Found highest-throughput preview size: " + bestSize + ", predicted " +
+        (1000000000L / bestFrameNanos) + " fps");
+    return bestSize;
+  }
+
   private static String findSettableValue(Collection<String> supportedValues,
                                           String... desiredValues) {
     Log.i(TAG, "Supported values: " + supportedValues);
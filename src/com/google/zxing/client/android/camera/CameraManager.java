@@ -16,14 +16,16 @@
 
 package com.google.zxing.client.android.camera;
 
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.graphics.Point;
 import android.graphics.Rect;
 import android.hardware.Camera;
+import android.os.Build;
 import android.os.Handler;
 import android.util.Log;
 import android.view.SurfaceHolder;
-import com.google.zxing.PlanarYUVLuminanceSource;
 import com.google.zxing.client.android.camera.open.OpenCameraManager;
 
 import java.io.IOException;
@@ -35,7 +37,7 @@ import java.io.IOException;
  *
  * @author dswitkin@google.com (Daniel Switkin)
  */
-public final class CameraManager {
+public final class CameraManager implements FrameSource {
 
   private static final String TAG = CameraManager.class.getSimpleName();
 
@@ -44,6 +46,9 @@ public final class CameraManager {
   private static final int MAX_FRAME_WIDTH = 1080 - 10; // = 1920/2
   private static final int MAX_FRAME_HEIGHT = 1920 - 10;  // = 1080/2
 
+  // One being filled by the camera and one held as the newest frame, plus one per decoder
+  private static final int SPARE_PREVIEW_BUFFERS = 2;
+
   private final Context context;
   private final CameraConfigurationManager configManager;
   private Camera camera;
@@ -54,6 +59,10 @@ public final class CameraManager {
   private boolean previewing;
   private int requestedFramingRectWidth;
   private int requestedFramingRectHeight;
+  private byte[][] previewBuffers;
+  // Only ever true on Froyo and later, which guards every buffered-callback call
+  private boolean buffered;
+  private int frameConsumers = 1;
   /**
    * Preview frames are delivered here, which we pass on to the registered handler. Make sure to
    * clear the handler so it will only receive one message.
@@ -73,6 +82,18 @@ public final class CameraManager {
    * @throws IOException Indicates the camera driver failed to open.
    */
   public synchronized void openDriver(SurfaceHolder holder) throws IOException {
+    openCamera();
+    setPreviewDisplay(holder);
+  }
+
+  /**
+   * Opens the camera driver and configures it, without needing the preview surface yet. This is
+   * the slow part of {@link #openDriver(SurfaceHolder)} and may be called from a background
+   * thread; {@link #setPreviewDisplay(SurfaceHolder)} must follow before the preview starts.
+   *
+   * @throws IOException Indicates the camera driver failed to open.
+   */
+  public synchronized void openCamera() throws IOException {
     Camera theCamera = camera;
     if (theCamera == null) {
       theCamera = new OpenCameraManager().build().open();
@@ -81,7 +102,6 @@ public final class CameraManager {
       }
       camera = theCamera;
     }
-    theCamera.setPreviewDisplay(holder);
 
     if (!initialized) {
       initialized = true;
@@ -117,6 +137,18 @@ public final class CameraManager {
 
   }
 
+  /**
+   * @param holder The surface object which the camera will draw preview frames into.
+   * @throws IOException Indicates the surface could not be attached.
+   */
+  public synchronized void setPreviewDisplay(SurfaceHolder holder) throws IOException {
+    Camera theCamera = camera;
+    if (theCamera == null) {
+      throw new IOException("Camera not open");
+    }
+    theCamera.setPreviewDisplay(holder);
+  }
+
   public synchronized boolean isOpen() {
     return camera != null;
   }
@@ -128,6 +160,7 @@ public final class CameraManager {
     if (camera != null) {
       camera.release();
       camera = null;
+      previewBuffers = null;
       // Make sure to clear these each time we close the camera, so that any scanning rect
       // requested by intent is forgotten.
       framingRect = null;
@@ -141,6 +174,8 @@ public final class CameraManager {
   public synchronized void startPreview() {
     Camera theCamera = camera;
     if (theCamera != null && !previewing) {
+      buffered = Build.VERSION.SDK_INT >= Build.VERSION_CODES.FROYO && installPreviewBuffers(theCamera);
+      previewCallback.setBuffered(buffered);
       theCamera.startPreview();
       previewing = true;
       autoFocusManager = new AutoFocusManager(context, camera);
@@ -150,18 +185,59 @@ public final class CameraManager {
   /**
    * Tells the camera to stop drawing preview frames.
    */
+  @TargetApi(Build.VERSION_CODES.FROYO)
   public synchronized void stopPreview() {
     if (autoFocusManager != null) {
       autoFocusManager.stop();
       autoFocusManager = null;
     }
     if (camera != null && previewing) {
+      if (buffered) {
+        camera.setPreviewCallbackWithBuffer(null);
+        buffered = false;
+      }
       camera.stopPreview();
-      previewCallback.setHandler(null, 0);
+      previewCallback.clearHandlers();
+      previewCallback.setBuffered(false);
       previewing = false;
     }
   }
 
+  /**
+   * Sets how many decoders may hold a preview frame at once, which sizes the buffer pool from the
+   * next {@link #startPreview()}.
+   *
+   * @param frameConsumers number of decode workers
+   */
+  public synchronized void setFrameConsumers(int frameConsumers) {
+    this.frameConsumers = Math.max(1, frameConsumers);
+  }
+
+  /**
+   * Allocates the preview buffers for this preview session and gives them all to the camera along
+   * with the buffered callback. Buffers are not carried over between sessions, so a frame still
+   * being decoded from the last one can never be queued twice.
+   *
+   * @return false if the preview format's frame size is unknown, in which case one-shot
+   *  callbacks must be used
+   */
+  @TargetApi(Build.VERSION_CODES.FROYO)
+  private boolean installPreviewBuffers(Camera theCamera) {
+    Camera.Parameters parameters = theCamera.getParameters();
+    Camera.Size previewSize = parameters.getPreviewSize();
+    int bitsPerPixel = ImageFormat.getBitsPerPixel(parameters.getPreviewFormat());
+    if (previewSize == null || bitsPerPixel <= 0) {
+      return false;
+    }
+    int frameSize = previewSize.width * previewSize.height * bitsPerPixel / 8;
+    previewBuffers = new byte[frameConsumers + SPARE_PREVIEW_BUFFERS][frameSize];
+    theCamera.setPreviewCallbackWithBuffer(previewCallback);
+    for (byte[] buffer : previewBuffers) {
+      theCamera.addCallbackBuffer(buffer);
+    }
+    return true;
+  }
+
   /**
    * Convenience method for {@link com.google.zxing.client.android.CaptureActivity}
    */
@@ -182,7 +258,7 @@ public final class CameraManager {
   /**
    * A single preview frame will be returned to the handler supplied. The data will arrive as byte[]
    * in the message.obj field, with width and height encoded as message.arg1 and message.arg2,
-   * respectively.
+   * respectively. Once done with it, pass the array to {@link #releasePreviewFrame(byte[])}.
    *
    * @param handler The handler to send the message to.
    * @param message The what field of the message to be sent.
@@ -190,8 +266,39 @@ public final class CameraManager {
   public synchronized void requestPreviewFrame(Handler handler, int message) {
     Camera theCamera = camera;
     if (theCamera != null && previewing) {
-      previewCallback.setHandler(handler, message);
-      theCamera.setOneShotPreviewCallback(previewCallback);
+      // With buffers, frames keep coming and the newest one may already be waiting
+      if (!previewCallback.addHandler(handler, message) && !buffered) {
+        theCamera.setOneShotPreviewCallback(previewCallback);
+      }
+    }
+  }
+
+  /**
+   * Withdraws every outstanding {@link #requestPreviewFrame(Handler, int)}, for when a result has
+   * been found and no more frames are wanted.
+   */
+  public synchronized void cancelPreviewFrameRequests() {
+    previewCallback.clearHandlers();
+  }
+
+  /**
+   * Hands a frame from {@link #requestPreviewFrame(Handler, int)} back to the camera to be
+   * filled again. The caller must not touch the array afterwards. Frames from an earlier preview
+   * session, or from one-shot callbacks, are simply dropped.
+   *
+   * @param data the frame's data array
+   */
+  @TargetApi(Build.VERSION_CODES.FROYO)
+  public synchronized void releasePreviewFrame(byte[] data) {
+    Camera theCamera = camera;
+    if (theCamera == null || !buffered || previewBuffers == null) {
+      return;
+    }
+    for (byte[] buffer : previewBuffers) {
+      if (buffer == data) {
+        theCamera.addCallbackBuffer(data);
+        return;
+      }
     }
   }
 
@@ -297,23 +404,15 @@ public final class CameraManager {
     }
   }
 
-  /**
-   * A factory method to build the appropriate LuminanceSource object based on the format
-   * of the preview buffers, as described by Camera.Parameters.
-   *
-   * @param data A preview frame.
-   * @param width The width of the image.
-   * @param height The height of the image.
-   * @return A PlanarYUVLuminanceSource instance.
-   */
-  public PlanarYUVLuminanceSource buildLuminanceSource(byte[] data, int width, int height) {
+  @Override
+  public void releaseFrame(byte[] data) {
+    releasePreviewFrame(data);
+  }
+
+  @Override
+  public int[] getDecodeRegion() {
     Rect rect = getFramingRectInPreview();
-    if (rect == null) {
-      return null;
-    }
-    // Go ahead and assume it's YUV rather than die.
-    return new PlanarYUVLuminanceSource(data, width, height, rect.left, rect.top,
-                                        rect.width(), rect.height(), false);
+    return rect == null ? null : new int[] {rect.left, rect.top, rect.width(), rect.height()};
   }
 
 }
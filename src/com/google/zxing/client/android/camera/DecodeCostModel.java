@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android.camera;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.Arrays;
+
+/**
+ * Predicts how long binarizing and decoding a preview frame takes on this device, as a fixed cost
+ * plus a cost per pixel. {@link #calibrate()} fits the two terms by timing the decode path on
+ * synthetic frames of two sizes; the result is meant to be computed once and cached with
+ * {@link #toString()} and {@link #parse(String)}.
+ */
+public final class DecodeCostModel {
+
+  // Frames with nothing to find dominate scanning and cost the most, so those are what's timed
+  private static final int[][] CALIBRATION_SIZES = {{320, 240}, {640, 480}};
+  private static final int WARMUP_FRAMES = 2;
+  private static final int TIMED_FRAMES = 5;
+
+  private final float fixedNanos;
+  private final float nanosPerPixel;
+
+  DecodeCostModel(float fixedNanos, float nanosPerPixel) {
+    this.fixedNanos = fixedNanos;
+    this.nanosPerPixel = nanosPerPixel;
+  }
+
+  /**
+   * @return predicted time to binarize and decode a frame of the given size, in nanoseconds
+   */
+  public long estimateNanos(int width, int height) {
+    return (long) (fixedNanos + nanosPerPixel * width * height);
+  }
+
+  /**
+   * Times the binarize-plus-decode path on noise frames at two sizes and fits a line through the
+   * medians. Takes a few hundred milliseconds on a phone, so call it off the main thread.
+   */
+  public static DecodeCostModel calibrate() {
+    MultiFormatReader reader = new MultiFormatReader();
+    reader.setHints(null);
+    long[] medians = new long[CALIBRATION_SIZES.length];
+    for (int i = 0; i < CALIBRATION_SIZES.length; i++) {
+      medians[i] = timeDecodes(reader, CALIBRATION_SIZES[i][0], CALIBRATION_SIZES[i][1]);
+    }
+    int smallPixels = CALIBRATION_SIZES[0][0] * CALIBRATION_SIZES[0][1];
+    int largePixels = CALIBRATION_SIZES[1][0] * CALIBRATION_SIZES[1][1];
+    float nanosPerPixel = Math.max(0.0f, (float) (medians[1] - medians[0]) / (largePixels - smallPixels));
+    if (nanosPerPixel == 0.0f) {
+      // Timer noise swamped the difference; charge everything to pixels rather than predict free frames
+      nanosPerPixel = (float) medians[1] / largePixels;
+    }
+    float fixedNanos = Math.max(0.0f, medians[0] - nanosPerPixel * smallPixels);
+    return new DecodeCostModel(fixedNanos, nanosPerPixel);
+  }
+
+  private static long timeDecodes(MultiFormatReader reader, int width, int height) {
+    SyntheticFrameSource source =
+        new SyntheticFrameSource(width, height, "0", WARMUP_FRAMES + TIMED_FRAMES, Integer.MAX_VALUE, 0L);
+    long[] timings = new long[TIMED_FRAMES];
+    for (int i = 0; i < WARMUP_FRAMES + TIMED_FRAMES; i++) {
+      byte[] frame = source.nextFrame();
+      long start = System.nanoTime();
+      PlanarYUVLuminanceSource luminance =
+          new PlanarYUVLuminanceSource(frame, width, height, 0, 0, width, height, false);
+      try {
+        reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(luminance)));
+      } catch (ReaderException re) {
+        // expected: there is no barcode in the frame
+      } finally {
+        reader.reset();
+      }
+      if (i >= WARMUP_FRAMES) {
+        timings[i - WARMUP_FRAMES] = System.nanoTime() - start;
+      }
+      source.releaseFrame(frame);
+    }
+    source.close();
+    Arrays.sort(timings);
+    return timings[TIMED_FRAMES / 2];
+  }
+
+  /**
+   * @return the model as stored by {@link #toString()}, or null if it can't be read
+   */
+  public static DecodeCostModel parse(String value) {
+    if (value == null) {
+      return null;
+    }
+    int comma = value.indexOf(',');
+    if (comma < 0) {
+      return null;
+    }
+    try {
+      float fixedNanos = Float.parseFloat(value.substring(0, comma));
+      float nanosPerPixel = Float.parseFloat(value.substring(comma + 1));
+      if (fixedNanos < 0.0f || nanosPerPixel <= 0.0f) {
+        return null;
+      }
+      return new DecodeCostModel(fixedNanos, nanosPerPixel);
+    } catch (NumberFormatException nfe) {
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return fixedNanos + "," + nanosPerPixel;
+  }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.camera;
+
+import com.google.zxing.DecodeHintType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+/**
+ * Keeps the most recent frames the decoder saw in a fixed-size, memory-mapped ring file, so that
+ * scans failing in the field can be reproduced offline with {@link RecordedFrameSource}. Each
+ * record is the portrait luma crop that was handed to the binarizer plus a small header; writing
+ * one is a copy into the mapping, with no file opened or data compressed per frame. All frames
+ * that decode to nothing are kept; of those that succeed, only every {@code sampleInterval}th.
+ *
+ * <p>File layout, big-endian: a header of magic, version, slot count, maximum frame bytes and the
+ * next sequence number, then {@code slotCount} slots, each holding sequence number (0 if unused),
+ * timestamp, width, height, outcome, hint mask and {@code maxFrameBytes} of luma. Safe for use by
+ * several decode threads.</p>
+ */
+public final class FrameRecorder {
+
+  public static final int OUTCOME_NOT_FOUND = 0;
+  public static final int OUTCOME_FOUND = 1;
+  public static final int OUTCOME_TIMED_OUT = 2;
+
+  static final int MAGIC = 0x5A584652; // "ZXFR"
+  static final int VERSION = 1;
+  static final int HEADER_LENGTH = 24;
+  static final int SLOT_HEADER_LENGTH = 36;
+
+  private static final int NEXT_SEQUENCE_OFFSET = 16;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer buffer;
+  private final int slotCount;
+  private final int maxFrameBytes;
+  private final int sampleInterval;
+  private long nextSequence;
+  private int foundSinceSample;
+  private int oversizedFrames;
+  private boolean closed;
+
+  /**
+   * Opens the ring file, continuing after its newest record if it was written with the same
+   * geometry, and starting it afresh otherwise.
+   *
+   * @param path ring file to create or reuse
+   * @param slotCount number of frames kept
+   * @param maxFrameBytes largest crop recorded; bigger ones are skipped
+   * @param sampleInterval record one in this many successfully decoded frames
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public FrameRecorder(File path, int slotCount, int maxFrameBytes, int sampleInterval)
+      throws IOException {
+    this.slotCount = slotCount;
+    this.maxFrameBytes = maxFrameBytes;
+    this.sampleInterval = sampleInterval;
+    long length = HEADER_LENGTH + (long) slotCount * (SLOT_HEADER_LENGTH + maxFrameBytes);
+    file = new RandomAccessFile(path, "rw");
+    try {
+      file.setLength(length);
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    } catch (IOException ioe) {
+      file.close();
+      throw ioe;
+    }
+    if (buffer.getInt(0) == MAGIC &&
+        buffer.getInt(4) == VERSION &&
+        buffer.getInt(8) == slotCount &&
+        buffer.getInt(12) == maxFrameBytes) {
+      nextSequence = buffer.getLong(NEXT_SEQUENCE_OFFSET);
+    } else {
+      for (int slot = 0; slot < slotCount; slot++) {
+        buffer.putLong(slotOffset(slot), 0L);
+      }
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putInt(8, slotCount);
+      buffer.putInt(12, maxFrameBytes);
+      nextSequence = 1L;
+      buffer.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+    }
+  }
+
+  /**
+   * @param hints decode hints
+   * @return one bit per {@link DecodeHintType} set, by ordinal
+   */
+  public static long hintMask(Map<DecodeHintType,?> hints) {
+    long mask = 0L;
+    if (hints != null) {
+      for (DecodeHintType type : hints.keySet()) {
+        mask |= 1L << type.ordinal();
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Records a crop of a portrait luma plane, unless it is a successful frame outside the sample
+   * or is too big for a slot.
+   *
+   * @param luma luma plane, row after row
+   * @param dataWidth width of the whole plane
+   * @param left left of the crop
+   * @param top top of the crop
+   * @param width width of the crop
+   * @param height height of the crop
+   * @param outcome one of the {@code OUTCOME_*} constants
+   * @param hintMask hints in effect, from {@link #hintMask(Map)}
+   * @return true if the frame was recorded
+   */
+  public synchronized boolean record(byte[] luma,
+                                     int dataWidth,
+                                     int left,
+                                     int top,
+                                     int width,
+                                     int height,
+                                     int outcome,
+                                     long hintMask) {
+    if (closed) {
+      return false;
+    }
+    if (width * height > maxFrameBytes) {
+      oversizedFrames++;
+      return false;
+    }
+    if (outcome == OUTCOME_FOUND && ++foundSinceSample < sampleInterval) {
+      return false;
+    }
+    if (outcome == OUTCOME_FOUND) {
+      foundSinceSample = 0;
+    }
+    long sequence = nextSequence++;
+    int offset = slotOffset((int) ((sequence - 1) % slotCount));
+    // Mark the slot unused until it is complete, so a crash never leaves a torn record behind
+    buffer.putLong(offset, 0L);
+    buffer.putLong(offset + 8, System.currentTimeMillis());
+    buffer.putInt(offset + 16, width);
+    buffer.putInt(offset + 20, height);
+    buffer.putInt(offset + 24, outcome);
+    buffer.putLong(offset + 28, hintMask);
+    buffer.position(offset + SLOT_HEADER_LENGTH);
+    for (int y = 0, inputOffset = top * dataWidth + left; y < height; y++, inputOffset += dataWidth) {
+      buffer.put(luma, inputOffset, width);
+    }
+    buffer.putLong(offset, sequence);
+    buffer.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+    return true;
+  }
+
+  /**
+   * @return largest crop, in bytes, that fits in a slot
+   */
+  public int getMaxFrameBytes() {
+    return maxFrameBytes;
+  }
+
+  /**
+   * @return number of frames skipped so far because the crop did not fit in a slot
+   */
+  public synchronized int getOversizedFrames() {
+    return oversizedFrames;
+  }
+
+  /**
+   * Flushes the records to storage and stops recording.
+   */
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    buffer.force();
+    try {
+      file.close();
+    } catch (IOException ioe) {
+      // nothing more can be done
+    }
+  }
+
+  private int slotOffset(int slot) {
+    return HEADER_LENGTH + slot * (SLOT_HEADER_LENGTH + maxFrameBytes);
+  }
+
+}
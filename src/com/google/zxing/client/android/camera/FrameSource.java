@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.client.android.camera;
+
+/**
+ * Somewhere NV21 preview frames come from: the live camera, a recording or a generator. Frames
+ * are delivered in the camera's landscape orientation; the decoder rotates them to portrait and
+ * crops the region given by {@link #getDecodeRegion()}.
+ *
+ * <p>Implementations must not depend on Android classes beyond what they already need, so that
+ * recorded and synthetic sources can drive the decode pipeline on a plain JVM.</p>
+ *
+ * @see SequentialFrameSource
+ */
+public interface FrameSource {
+
+  /**
+   * @return {left, top, width, height} of the area to decode, in the coordinates of the frame
+   *  after rotation to portrait, or null if not known yet
+   */
+  int[] getDecodeRegion();
+
+  /**
+   * Returns a frame to the source once the decoder has no further use for its array.
+   *
+   * @param data array of a frame previously delivered by this source
+   */
+  void releaseFrame(byte[] data);
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.client.android.camera;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Replays raw NV21 frames saved one per file, in file name order. Each file holds exactly
+ * width * height * 3 / 2 bytes, as delivered by the camera's preview callback.
+ */
+public final class NV21FileFrameSource implements SequentialFrameSource {
+
+  private final File[] files;
+  private final int width;
+  private final int height;
+  private final int[] decodeRegion;
+  private int nextFile;
+  private byte[] spare;
+
+  /**
+   * @param directory directory holding the frame files; other files are ignored
+   * @param width frame width
+   * @param height frame height
+   * @param decodeRegion {left, top, width, height} in portrait coordinates, or null to decode
+   *  the whole frame
+   * @throws IOException if the directory cannot be listed
+   */
+  public NV21FileFrameSource(File directory, int width, int height, int[] decodeRegion)
+      throws IOException {
+    final long frameLength = (long) width * height * 3 / 2;
+    File[] listed = directory.listFiles();
+    if (listed == null) {
+      throw new IOException("Can't list " + directory);
+    }
+    int count = 0;
+    for (File file : listed) {
+      if (file.isFile() && file.length() == frameLength) {
+        listed[count++] = file;
+      }
+    }
+    files = new File[count];
+    System.arraycopy(listed, 0, files, 0, count);
+    Arrays.sort(files);
+    this.width = width;
+    this.height = height;
+    this.decodeRegion = decodeRegion == null ? new int[] {0, 0, height, width} : decodeRegion;
+  }
+
+  @Override
+  public int getFrameWidth() {
+    return width;
+  }
+
+  @Override
+  public int getFrameHeight() {
+    return height;
+  }
+
+  @Override
+  public int[] getDecodeRegion() {
+    return decodeRegion;
+  }
+
+  @Override
+  public byte[] nextFrame() throws IOException {
+    if (nextFile == files.length) {
+      return null;
+    }
+    byte[] frame = spare == null ? new byte[width * height * 3 / 2] : spare;
+    spare = null;
+    DataInputStream in = new DataInputStream(new FileInputStream(files[nextFile++]));
+    try {
+      in.readFully(frame);
+    } finally {
+      in.close();
+    }
+    return frame;
+  }
+
+  @Override
+  public void releaseFrame(byte[] data) {
+    spare = data;
+  }
+
+  @Override
+  public void close() {
+    nextFile = files.length;
+    spare = null;
+  }
+
+}
@@ -16,44 +16,121 @@
 
 package com.google.zxing.client.android.camera;
 
+import android.annotation.TargetApi;
 import android.graphics.Point;
 import android.hardware.Camera;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Message;
 import android.util.Log;
 
+/**
+ * Passes preview frames on to the decode threads. Requests for a frame wait in a small ring, and
+ * each frame goes to the oldest waiting request. On API 8+ frames arrive continuously in a fixed
+ * set of buffers registered with {@link Camera#addCallbackBuffer(byte[])}; the newest frame that
+ * no one has asked for yet is held back, so the next request is answered at once, and any older
+ * one goes straight back to the camera. Otherwise one-shot callbacks are used and each frame is a
+ * fresh array.
+ */
 final class PreviewCallback implements Camera.PreviewCallback {
 
   private static final String TAG = PreviewCallback.class.getSimpleName();
 
+  private static final int MAX_WAITING_HANDLERS = 8;
+
   private final CameraConfigurationManager configManager;
-  private Handler previewHandler;
+  private final Handler[] waitingHandlers;
+  private int firstWaiting;
+  private int numWaiting;
   private int previewMessage;
+  private boolean buffered;
+  private byte[] pendingFrame;
 
   PreviewCallback(CameraConfigurationManager configManager) {
     this.configManager = configManager;
+    waitingHandlers = new Handler[MAX_WAITING_HANDLERS];
   }
 
-  void setHandler(Handler previewHandler, int previewMessage) {
-    this.previewHandler = previewHandler;
+  /**
+   * Asks for the next frame to be sent to a handler. A handler already waiting is not queued twice.
+   *
+   * @return true if a frame was already waiting and has been sent to the handler
+   */
+  synchronized boolean addHandler(Handler previewHandler, int previewMessage) {
     this.previewMessage = previewMessage;
+    if (pendingFrame != null && configManager.getCameraResolution() != null) {
+      byte[] frame = pendingFrame;
+      pendingFrame = null;
+      send(previewHandler, frame);
+      return true;
+    }
+    for (int i = 0; i < numWaiting; i++) {
+      if (waitingHandlers[(firstWaiting + i) % MAX_WAITING_HANDLERS] == previewHandler) {
+        return false;
+      }
+    }
+    if (numWaiting == MAX_WAITING_HANDLERS) {
+      Log.w(TAG, "Too many frame requests; dropping the oldest");
+      pollHandler();
+    }
+    waitingHandlers[(firstWaiting + numWaiting) % MAX_WAITING_HANDLERS] = previewHandler;
+    numWaiting++;
+    return false;
+  }
+
+  /**
+   * Forgets all outstanding frame requests.
+   */
+  synchronized void clearHandlers() {
+    while (numWaiting > 0) {
+      pollHandler();
+    }
+  }
+
+  /**
+   * @param buffered whether frames arrive in buffers that must be handed back to the camera
+   */
+  synchronized void setBuffered(boolean buffered) {
+    this.buffered = buffered;
+    pendingFrame = null;
   }
 
+  @TargetApi(Build.VERSION_CODES.FROYO)
   @Override
-  public void onPreviewFrame(byte[] data, Camera camera) {
-	//TODO ȡϢ ͼϢ DecodeThread д 
-    Point cameraResolution = configManager.getCameraResolution();
-    Log.i("PreviewCallback", "get CameraResolution="+cameraResolution);
-    
-    Handler thePreviewHandler = previewHandler;
-    if (cameraResolution != null && thePreviewHandler != null) {
-      Message message = thePreviewHandler.obtainMessage(previewMessage, cameraResolution.x,
-          cameraResolution.y, data);
-      message.sendToTarget();
-      previewHandler = null;
-    } else {
+  public synchronized void onPreviewFrame(byte[] data, Camera camera) {
+    if (numWaiting > 0 && configManager.getCameraResolution() != null) {
+      send(pollHandler(), data);
+      if (!buffered && numWaiting > 0) {
+        // One-shot callbacks don't queue up, so arm another for the next request
+        camera.setOneShotPreviewCallback(this);
+      }
+      return;
+    }
+    if (!buffered) {
       Log.d(TAG, "Got preview callback, but no handler or resolution available");
+      return;
     }
+    // Buffered frames only ever come on Froyo and later
+    if (pendingFrame != null) {
+      // Only ever keep the newest frame; the older one is stale
+      camera.addCallbackBuffer(pendingFrame);
+    }
+    pendingFrame = data;
+  }
+
+  private Handler pollHandler() {
+    Handler handler = waitingHandlers[firstWaiting];
+    waitingHandlers[firstWaiting] = null;
+    firstWaiting = (firstWaiting + 1) % MAX_WAITING_HANDLERS;
+    numWaiting--;
+    return handler;
+  }
+
+  private void send(Handler previewHandler, byte[] data) {
+    Point cameraResolution = configManager.getCameraResolution();
+    Message message = previewHandler.obtainMessage(previewMessage, cameraResolution.x,
+        cameraResolution.y, data);
+    message.sendToTarget();
   }
 
 }
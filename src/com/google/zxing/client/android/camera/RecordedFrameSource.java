@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android.camera;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Replays the frames kept by a {@link FrameRecorder}, oldest first. Each recorded portrait crop is
+ * turned back into a landscape NV21 frame with neutral chroma, so that it goes through the decode
+ * pipeline exactly as it did on the device; the decode region is the whole crop.
+ */
+public final class RecordedFrameSource implements SequentialFrameSource {
+
+  private final RandomAccessFile file;
+  private final ByteBuffer buffer;
+  private final int[] slotOffsets;
+  private int nextRecord;
+  private int width;
+  private int height;
+  private int outcome;
+  private long timestamp;
+  private long hintMask;
+  private byte[] luma;
+  private byte[] spare;
+
+  /**
+   * @param path ring file written by {@link FrameRecorder}
+   * @throws IOException if the file cannot be read or is not a ring file
+   */
+  public RecordedFrameSource(File path) throws IOException {
+    file = new RandomAccessFile(path, "r");
+    try {
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+      if (buffer.limit() < FrameRecorder.HEADER_LENGTH ||
+          buffer.getInt(0) != FrameRecorder.MAGIC ||
+          buffer.getInt(4) != FrameRecorder.VERSION) {
+        throw new IOException("Not a frame recording: " + path);
+      }
+    } catch (IOException ioe) {
+      file.close();
+      throw ioe;
+    }
+    int slotCount = buffer.getInt(8);
+    int maxFrameBytes = buffer.getInt(12);
+    int slotLength = FrameRecorder.SLOT_HEADER_LENGTH + maxFrameBytes;
+
+    // Order the used slots by sequence number; sequence and slot fit together in one long
+    long[] keys = new long[slotCount];
+    int used = 0;
+    for (int slot = 0; slot < slotCount; slot++) {
+      long sequence = buffer.getLong(FrameRecorder.HEADER_LENGTH + slot * slotLength);
+      if (sequence != 0L) {
+        keys[used++] = sequence * slotCount + slot;
+      }
+    }
+    Arrays.sort(keys, 0, used);
+    slotOffsets = new int[used];
+    for (int i = 0; i < used; i++) {
+      slotOffsets[i] = FrameRecorder.HEADER_LENGTH + (int) (keys[i] % slotCount) * slotLength;
+    }
+  }
+
+  /**
+   * @return number of frames in the recording
+   */
+  public int getFrameCount() {
+    return slotOffsets.length;
+  }
+
+  @Override
+  public int getFrameWidth() {
+    return width;
+  }
+
+  @Override
+  public int getFrameHeight() {
+    return height;
+  }
+
+  /**
+   * @return outcome on the device of the frame last returned, one of the
+   *  {@code FrameRecorder.OUTCOME_*} constants
+   */
+  public int getRecordedOutcome() {
+    return outcome;
+  }
+
+  /**
+   * @return when the frame last returned was recorded, in milliseconds since the epoch
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @return hints in effect for the frame last returned, as from {@link FrameRecorder#hintMask}
+   */
+  public long getHintMask() {
+    return hintMask;
+  }
+
+  @Override
+  public int[] getDecodeRegion() {
+    // The crop, once rotated back to portrait
+    return new int[] {0, 0, height, width};
+  }
+
+  @Override
+  public byte[] nextFrame() {
+    if (nextRecord == slotOffsets.length) {
+      return null;
+    }
+    int offset = slotOffsets[nextRecord++];
+    timestamp = buffer.getLong(offset + 8);
+    int cropWidth = buffer.getInt(offset + 16);
+    int cropHeight = buffer.getInt(offset + 20);
+    outcome = buffer.getInt(offset + 24);
+    hintMask = buffer.getLong(offset + 28);
+    int cropLength = cropWidth * cropHeight;
+    if (luma == null || luma.length < cropLength) {
+      luma = new byte[cropLength];
+    }
+    buffer.position(offset + FrameRecorder.SLOT_HEADER_LENGTH);
+    buffer.get(luma, 0, cropLength);
+
+    // Undo the decoder's rotation: portrait (x, y) came from landscape (y, cropWidth - 1 - x)
+    width = cropHeight;
+    height = cropWidth;
+    int frameLength = width * height * 3 / 2;
+    byte[] frame = spare != null && spare.length == frameLength ? spare : new byte[frameLength];
+    spare = null;
+    for (int y = 0; y < cropHeight; y++) {
+      for (int x = 0; x < cropWidth; x++) {
+        frame[y + (cropWidth - 1 - x) * width] = luma[x + y * cropWidth];
+      }
+    }
+    Arrays.fill(frame, width * height, frameLength, (byte) 128);
+    return frame;
+  }
+
+  @Override
+  public void releaseFrame(byte[] data) {
+    spare = data;
+  }
+
+  @Override
+  public void close() throws IOException {
+    nextRecord = slotOffsets.length;
+    file.close();
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.client.android.camera;
+
+import java.io.IOException;
+
+/**
+ * A {@link FrameSource} that is read frame by frame by its consumer, as opposed to the camera,
+ * which pushes frames through {@link CameraManager#requestPreviewFrame(android.os.Handler, int)}.
+ */
+public interface SequentialFrameSource extends FrameSource {
+
+  /**
+   * @return width of the frame last returned by {@link #nextFrame()}, in the camera's landscape
+   *  orientation
+   */
+  int getFrameWidth();
+
+  /**
+   * @return height of the frame last returned by {@link #nextFrame()}, in the camera's landscape
+   *  orientation
+   */
+  int getFrameHeight();
+
+  /**
+   * @return the next frame as NV21 data, or null once there are no more
+   * @throws IOException if the frame cannot be read
+   */
+  byte[] nextFrame() throws IOException;
+
+  /**
+   * Releases any resources held by the source.
+   *
+   * @throws IOException if they cannot be released cleanly
+   */
+  void close() throws IOException;
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.client.android.camera;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.Code128Writer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates NV21 frames of sensor-like noise in which, after a number of empty frames, a Code 128
+ * barcode appears and drifts slowly, as when a user brings a label into view. It is drawn so that
+ * it reads upright once the frame is rotated to portrait. The same seed gives the same frames.
+ */
+public final class SyntheticFrameSource implements SequentialFrameSource {
+
+  private static final int NOISE_AMPLITUDE = 48;
+  private static final int DRIFT_PIXELS_PER_FRAME = 2;
+
+  private final int width;
+  private final int height;
+  private final int frameCount;
+  private final int firstBarcodeFrame;
+  private final BitMatrix barcode;
+  private final Random random;
+  private int frameNumber;
+  private byte[] spare;
+
+  /**
+   * @param width frame width
+   * @param height frame height
+   * @param contents text to encode
+   * @param frameCount total number of frames to generate
+   * @param firstBarcodeFrame index of the first frame showing the barcode
+   * @param seed random seed for the noise
+   */
+  public SyntheticFrameSource(int width,
+                              int height,
+                              String contents,
+                              int frameCount,
+                              int firstBarcodeFrame,
+                              long seed) {
+    this.width = width;
+    this.height = height;
+    this.frameCount = frameCount;
+    this.firstBarcodeFrame = firstBarcodeFrame;
+    try {
+      // Half the portrait width across, a quarter of it high
+      barcode = new Code128Writer().encode(contents, BarcodeFormat.CODE_128, height / 2, height / 4);
+    } catch (WriterException we) {
+      throw new IllegalArgumentException(we.toString());
+    }
+    random = new Random(seed);
+  }
+
+  @Override
+  public int getFrameWidth() {
+    return width;
+  }
+
+  @Override
+  public int getFrameHeight() {
+    return height;
+  }
+
+  @Override
+  public int[] getDecodeRegion() {
+    return new int[] {0, 0, height, width};
+  }
+
+  @Override
+  public byte[] nextFrame() {
+    if (frameNumber == frameCount) {
+      return null;
+    }
+    byte[] frame = spare == null ? new byte[width * height * 3 / 2] : spare;
+    spare = null;
+    int lumaSize = width * height;
+    for (int i = 0; i < lumaSize; i++) {
+      frame[i] = (byte) (128 + random.nextInt(NOISE_AMPLITUDE) - NOISE_AMPLITUDE / 2);
+    }
+    Arrays.fill(frame, lumaSize, frame.length, (byte) 128);
+    if (frameNumber >= firstBarcodeFrame) {
+      drawBarcode(frame, (frameNumber - firstBarcodeFrame) * DRIFT_PIXELS_PER_FRAME);
+    }
+    frameNumber++;
+    return frame;
+  }
+
+  // Portrait pixel (col, row) is landscape pixel (x = row, y = height - 1 - col)
+  private void drawBarcode(byte[] frame, int drift) {
+    int barcodeWidth = barcode.getWidth();
+    int barcodeHeight = barcode.getHeight();
+    int left = (height - barcodeWidth) / 2;
+    int top = Math.min(width - barcodeHeight, (width - barcodeHeight) / 4 + drift);
+    for (int row = 0; row < barcodeHeight; row++) {
+      int x = top + row;
+      for (int col = 0; col < barcodeWidth; col++) {
+        int y = height - 1 - (left + col);
+        frame[y * width + x] = barcode.get(col, row) ? (byte) 24 : (byte) 232;
+      }
+    }
+  }
+
+  @Override
+  public void releaseFrame(byte[] data) {
+    spare = data;
+  }
+
+  @Override
+  public void close() {
+    frameNumber = frameCount;
+    spare = null;
+  }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android.common.executor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the network and disk work that enriches a result -- lookups, package lists and the like --
+ * on a small shared pool of background threads, and hands results back on the main thread.
+ *
+ * <p>Queued work runs highest {@link Priority} first. Work is identified by a key: asking for a key
+ * that is already queued or running joins that request instead of starting another. Each request
+ * also names an owner, normally the activity that will show the result; {@link #cancelAll(Object)}
+ * drops the owner's requests, and work nobody is waiting for any more is taken off the queue.</p>
+ */
+public final class EnrichmentExecutor {
+
+  private static final String TAG = EnrichmentExecutor.class.getSimpleName();
+
+  // Enough to overlap a slow lookup with local work, without competing with decoding
+  private static final int WORKERS = 2;
+
+  public enum Priority {
+    /** Someone is waiting on the result. */
+    HIGH,
+    NORMAL,
+    /** Speculative work, such as prefetching. */
+    LOW,
+  }
+
+  /**
+   * A unit of enrichment work and what to do with its result.
+   */
+  public interface Task<T> {
+
+    /**
+     * Runs on a worker thread. A {@link RuntimeException} thrown here is logged, and the result
+     * is then null.
+     */
+    T doInBackground();
+
+    /**
+     * Runs on the main thread, unless the request was cancelled first. If the work was coalesced
+     * with an earlier request for the same key, this receives that request's result.
+     *
+     * @param result what {@link #doInBackground()} returned, or null if it threw
+     */
+    void onPostExecute(T result);
+
+  }
+
+  private static EnrichmentExecutor instance;
+
+  private final ThreadPoolExecutor workers;
+  private final Executor mainThread;
+  private final Map<Object,Job> inFlight;
+  private long submitted;
+
+  EnrichmentExecutor(int workerCount, Executor mainThread) {
+    workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                                     new PriorityBlockingQueue<Runnable>(), new WorkerFactory());
+    this.mainThread = mainThread;
+    inFlight = new HashMap<Object,Job>();
+  }
+
+  public static synchronized EnrichmentExecutor getInstance() {
+    if (instance == null) {
+      final Handler handler = new Handler(Looper.getMainLooper());
+      instance = new EnrichmentExecutor(WORKERS, new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+          handler.post(runnable);
+        }
+      });
+    }
+    return instance;
+  }
+
+  /**
+   * @param owner whoever will use the result; see {@link #cancelAll(Object)}
+   * @param key identifies the work; requests with equal keys share one execution and its result
+   * @param priority how soon to run the work, relative to other queued work
+   * @param task the work, and the callback for its result
+   */
+  public synchronized <T> void execute(Object owner, Object key, Priority priority, Task<T> task) {
+    Job job = inFlight.get(key);
+    if (job == null) {
+      job = new Job(key, task, priority, submitted++);
+      job.requests.add(new Request(owner, task));
+      inFlight.put(key, job);
+      workers.execute(job);
+      return;
+    }
+    job.requests.add(new Request(owner, task));
+    // A more urgent request moves queued work up; the queue only orders on insertion
+    if (priority.compareTo(job.priority) < 0 && workers.remove(job)) {
+      job.priority = priority;
+      workers.execute(job);
+    }
+  }
+
+  /**
+   * Cancels all requests made by this owner. When called on the main thread, none of their callbacks
+   * run after this returns;
+   * work that no other owner is waiting for is removed from the queue, or its result discarded if
+   * it is already running.
+   */
+  public synchronized void cancelAll(Object owner) {
+    Iterator<Job> jobs = inFlight.values().iterator();
+    while (jobs.hasNext()) {
+      Job job = jobs.next();
+      Iterator<Request> requests = job.requests.iterator();
+      while (requests.hasNext()) {
+        if (requests.next().owner == owner) {
+          requests.remove();
+        }
+      }
+      if (job.requests.isEmpty()) {
+        jobs.remove();
+        workers.remove(job);
+      }
+    }
+  }
+
+  private synchronized List<Request> takeRequests(Job job) {
+    if (inFlight.get(job.key) == job) {
+      inFlight.remove(job.key);
+    }
+    List<Request> requests = new ArrayList<Request>(job.requests);
+    job.requests.clear();
+    return requests;
+  }
+
+  private synchronized boolean isWanted(Job job) {
+    return !job.requests.isEmpty();
+  }
+
+  private static final class Request {
+
+    final Object owner;
+    final Task<?> task;
+
+    Request(Object owner, Task<?> task) {
+      this.owner = owner;
+      this.task = task;
+    }
+
+  }
+
+  private final class Job implements Runnable, Comparable<Job> {
+
+    final Object key;
+    final Task<?> work;
+    final long sequence;
+    final List<Request> requests;
+    Priority priority;
+
+    Job(Object key, Task<?> work, Priority priority, long sequence) {
+      this.key = key;
+      this.work = work;
+      this.priority = priority;
+      this.sequence = sequence;
+      requests = new ArrayList<Request>(1);
+    }
+
+    @Override
+    public void run() {
+      if (!isWanted(this)) {
+        return;
+      }
+      Object result = null;
+      try {
+        result = work.doInBackground();
+      } catch (RuntimeException re) {
+        Log.w(TAG, "Enrichment failed for " + key, re);
+      }
+      final Object finalResult = result;
+      // Requests that join while the result is on its way still get it
+      mainThread.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (Request request : takeRequests(Job.this)) {
+            deliver(request.task, finalResult);
+          }
+        }
+      });
+    }
+
+    @Override
+    public int compareTo(Job other) {
+      int byPriority = priority.compareTo(other.priority);
+      if (byPriority != 0) {
+        return byPriority;
+      }
+      return sequence < other.sequence ? -1 : sequence > other.sequence ? 1 : 0;
+    }
+
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void deliver(Task<T> task, Object result) {
+    task.onPostExecute((T) result);
+  }
+
+  private static final class WorkerFactory implements ThreadFactory {
+
+    private int count;
+
+    @Override
+    public synchronized Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+          runnable.run();
+        }
+      }, TAG + '-' + ++count);
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android.history;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated rows one at a time, as written by {@link HistoryManager#exportHistory}:
+ * fields may be double-quoted, with double-quotes inside escaped by doubling them, and quoted
+ * fields may span lines. Only one row is held in memory at a time.
+ */
+final class CsvRowReader {
+
+  private final Reader in;
+  private final StringBuilder field;
+  private long charsRead;
+  private int pushedBack;
+
+  /**
+   * @param in source of the CSV text; should be buffered
+   */
+  CsvRowReader(Reader in) {
+    this.in = in;
+    field = new StringBuilder(64);
+    pushedBack = -1;
+  }
+
+  /**
+   * @return the fields of the next row, or null at the end of the input
+   */
+  List<String> readRow() throws IOException {
+    int c = read();
+    while (c == '\r' || c == '\n') {
+      c = read();
+    }
+    if (c < 0) {
+      return null;
+    }
+    List<String> row = new ArrayList<String>();
+    boolean quoted = false;
+    field.setLength(0);
+    while (true) {
+      if (quoted) {
+        if (c < 0) {
+          // Unterminated quote; keep what there is
+          row.add(field.toString());
+          return row;
+        }
+        if (c == '"') {
+          int next = read();
+          if (next == '"') {
+            field.append('"');
+          } else {
+            quoted = false;
+            c = next;
+            continue;
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        row.add(field.toString());
+        field.setLength(0);
+      } else if (c < 0 || c == '\r' || c == '\n') {
+        row.add(field.toString());
+        if (c == '\r') {
+          int next = read();
+          if (next != '\n') {
+            pushedBack = next;
+          }
+        }
+        return row;
+      } else {
+        field.append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  /**
+   * @return number of characters consumed so far
+   */
+  long getCharsRead() {
+    return charsRead;
+  }
+
+  void close() throws IOException {
+    in.close();
+  }
+
+  private int read() throws IOException {
+    if (pushedBack >= 0) {
+      int c = pushedBack;
+      pushedBack = -1;
+      return c;
+    }
+    int c = in.read();
+    if (c >= 0) {
+      charsRead++;
+    }
+    return c;
+  }
+
+}
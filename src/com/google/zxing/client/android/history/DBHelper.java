@@ -21,11 +21,17 @@ import android.database.sqlite.SQLiteDatabase;
 import android.content.Context;
 
 /**
+ * One instance, from {@link #getInstance(Context)}, serves the whole app: its database stays open,
+ * rather than being reopened for every history operation.
+ *
  * @author Sean Owen
  */
 final class DBHelper extends SQLiteOpenHelper {
 
-  private static final int DB_VERSION = 5;
+  private static final int DB_VERSION = 7;
+  // Versions 6 and 7 only added indexes, so a version 5 table can be kept
+  private static final int FIRST_COMPATIBLE_VERSION = 5;
+  private static final int FIRST_SEARCHABLE_VERSION = 7;
   private static final String DB_NAME = "barcode_scanner_history.db";
   static final String TABLE_NAME = "history";
   static final String ID_COL = "id";
@@ -34,11 +40,25 @@ final class DBHelper extends SQLiteOpenHelper {
   static final String DISPLAY_COL = "display";
   static final String TIMESTAMP_COL = "timestamp";
   static final String DETAILS_COL = "details";
+  // Full-text index of the text, display and details columns; its docid is the history row's id
+  static final String SEARCH_TABLE_NAME = "history_search";
+  static final String DOCID_COL = "docid";
+  private static final String SEARCHED_COLS = TEXT_COL + ", " + DISPLAY_COL + ", " + DETAILS_COL;
+
+  private static DBHelper instance;
 
-  DBHelper(Context context) {
+  private DBHelper(Context context) {
     super(context, DB_NAME, null, DB_VERSION);
   }
 
+  static synchronized DBHelper getInstance(Context context) {
+    if (instance == null) {
+      // Not the activity, which would be leaked
+      instance = new DBHelper(context.getApplicationContext());
+    }
+    return instance;
+  }
+
   @Override
   public void onCreate(SQLiteDatabase sqLiteDatabase) {
     sqLiteDatabase.execSQL(
@@ -49,12 +69,60 @@ final class DBHelper extends SQLiteOpenHelper {
             DISPLAY_COL + " TEXT, " +
             TIMESTAMP_COL + " INTEGER, " +
             DETAILS_COL + " TEXT);");
+    createIndexes(sqLiteDatabase);
+    createSearchIndex(sqLiteDatabase);
   }
 
   @Override
   public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+    if (oldVersion >= FIRST_COMPATIBLE_VERSION) {
+      createIndexes(sqLiteDatabase);
+      if (oldVersion < FIRST_SEARCHABLE_VERSION) {
+        createSearchIndex(sqLiteDatabase);
+        sqLiteDatabase.execSQL(
+            "INSERT INTO " + SEARCH_TABLE_NAME + " (" + DOCID_COL + ", " + SEARCHED_COLS + ") " +
+            "SELECT " + ID_COL + ", " + SEARCHED_COLS + " FROM " + TABLE_NAME + ';');
+      }
+      return;
+    }
+    sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + SEARCH_TABLE_NAME);
     sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
     onCreate(sqLiteDatabase);
   }
 
+  /**
+   * Pages are read newest first, and duplicates looked up by text; without these, both scan
+   * the whole table.
+   */
+  private static void createIndexes(SQLiteDatabase sqLiteDatabase) {
+    sqLiteDatabase.execSQL(
+        "CREATE INDEX IF NOT EXISTS " + TABLE_NAME + '_' + TIMESTAMP_COL + "_index ON " +
+        TABLE_NAME + " (" + TIMESTAMP_COL + ");");
+    sqLiteDatabase.execSQL(
+        "CREATE INDEX IF NOT EXISTS " + TABLE_NAME + '_' + TEXT_COL + "_index ON " +
+        TABLE_NAME + " (" + TEXT_COL + ");");
+  }
+
+  /**
+   * Creates the full-text index, and triggers that keep it in step with every insert, update
+   * and delete on the history table, whichever code path makes them. FTS3, as FTS4 needs
+   * Android 3.0.
+   */
+  private static void createSearchIndex(SQLiteDatabase sqLiteDatabase) {
+    sqLiteDatabase.execSQL(
+        "CREATE VIRTUAL TABLE " + SEARCH_TABLE_NAME + " USING fts3(" + SEARCHED_COLS + ");");
+    sqLiteDatabase.execSQL(
+        "CREATE TRIGGER " + SEARCH_TABLE_NAME + "_insert AFTER INSERT ON " + TABLE_NAME + " BEGIN " +
+        "INSERT INTO " + SEARCH_TABLE_NAME + " (" + DOCID_COL + ", " + SEARCHED_COLS + ") VALUES (" +
+        "new." + ID_COL + ", new." + TEXT_COL + ", new." + DISPLAY_COL + ", new." + DETAILS_COL + "); END;");
+    sqLiteDatabase.execSQL(
+        "CREATE TRIGGER " + SEARCH_TABLE_NAME + "_update AFTER UPDATE ON " + TABLE_NAME + " BEGIN " +
+        "UPDATE " + SEARCH_TABLE_NAME + " SET " + TEXT_COL + "=new." + TEXT_COL + ", " +
+        DISPLAY_COL + "=new." + DISPLAY_COL + ", " + DETAILS_COL + "=new." + DETAILS_COL +
+        " WHERE " + DOCID_COL + "=old." + ID_COL + "; END;");
+    sqLiteDatabase.execSQL(
+        "CREATE TRIGGER " + SEARCH_TABLE_NAME + "_delete AFTER DELETE ON " + TABLE_NAME + " BEGIN " +
+        "DELETE FROM " + SEARCH_TABLE_NAME + " WHERE " + DOCID_COL + "=old." + ID_COL + "; END;");
+  }
+
 }
@@ -19,11 +19,15 @@ package com.google.zxing.client.android.history;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.ListActivity;
+import android.app.ProgressDialog;
 import android.content.ActivityNotFoundException;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.ContextMenu;
 import android.view.Menu;
@@ -31,28 +35,69 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.AdapterView;
+import android.widget.EditText;
 import android.widget.ListView;
+import android.widget.Toast;
 import com.google.zxing.client.android.CaptureActivity;
 import com.google.zxing.client.android.Intents;
 import com.google.zxing.client.android.R;
+import com.google.zxing.client.android.common.executor.AsyncTaskExecInterface;
+import com.google.zxing.client.android.common.executor.AsyncTaskExecManager;
 
-import java.util.List;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public final class HistoryActivity extends ListActivity {
 
   private static final String TAG = HistoryActivity.class.getSimpleName();
 
+  // Wait for a pause in typing before searching
+  private static final long SEARCH_DELAY_MS = 300L;
+
   private HistoryManager historyManager;
   private HistoryItemAdapter adapter;
+  private AsyncTaskExecInterface taskExec;
+  private EditText searchTextView;
+
+  private final Runnable searchLauncher = new Runnable() {
+    @Override
+    public void run() {
+      String query = searchTextView.getText().toString().trim();
+      adapter.setQuery(query.length() == 0 ? null : query);
+    }
+  };
+
+  private final TextWatcher searchWatcher = new TextWatcher() {
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+      searchTextView.removeCallbacks(searchLauncher);
+      searchTextView.postDelayed(searchLauncher, SEARCH_DELAY_MS);
+    }
+  };
   
   @Override
   protected void onCreate(Bundle icicle) {
     super.onCreate(icicle);
+    setContentView(R.layout.history);
     this.historyManager = new HistoryManager(this);  
-    adapter = new HistoryItemAdapter(this);
+    taskExec = new AsyncTaskExecManager().build();
+    adapter = new HistoryItemAdapter(this, historyManager, taskExec);
     setListAdapter(adapter);
     ListView listview = getListView();
     registerForContextMenu(listview);
+    searchTextView = (EditText) findViewById(R.id.history_search_text_view);
+    searchTextView.addTextChangedListener(searchWatcher);
   }
 
   @Override
@@ -61,22 +106,23 @@ public final class HistoryActivity extends ListActivity {
     reloadHistoryItems();
   }
 
+  @Override
+  protected void onPause() {
+    // onResume() reads the history again anyway
+    adapter.cancel();
+    super.onPause();
+  }
+
   private void reloadHistoryItems() {
-    List<HistoryItem> items = historyManager.buildHistoryItems();
-    adapter.clear();
-    for (HistoryItem item : items) {
-      adapter.add(item);
-    }
-    if (adapter.isEmpty()) {
-      adapter.add(new HistoryItem(null, null, null));
-    }
+    adapter.reload();
   }
 
   @Override
   protected void onListItemClick(ListView l, View v, int position, long id) {
-    if (adapter.getItem(position).getResult() != null) {
+    HistoryItem item = adapter.getItem(position);
+    if (item.getResult() != null) {
       Intent intent = new Intent(this, CaptureActivity.class);
-      intent.putExtra(Intents.History.ITEM_NUMBER, position);
+      intent.putExtra(Intents.History.ITEM_ID, item.getId());
       setResult(Activity.RESULT_OK, intent);
       finish();
     }
@@ -95,45 +141,43 @@ public final class HistoryActivity extends ListActivity {
   @Override
   public boolean onContextItemSelected(MenuItem item) {
     int position = item.getItemId();
-    historyManager.deleteHistoryItem(position);
-    reloadHistoryItems();
+    if (position >= adapter.getCount()) {
+      return true;
+    }
+    HistoryItem historyItem = adapter.getItem(position);
+    historyManager.deleteHistoryItem(historyItem.getId());
+    // The pages read so far stay valid; no need to read them again
+    adapter.remove(historyItem);
+    if (adapter.isEmpty()) {
+      reloadHistoryItems();
+    }
     return true;
   }
 
   @Override
   public boolean onCreateOptionsMenu(Menu menu) {
-    if (historyManager.hasHistoryItems()) {
-      MenuInflater menuInflater = getMenuInflater();
-      menuInflater.inflate(R.menu.history, menu);
-    }
+    MenuInflater menuInflater = getMenuInflater();
+    menuInflater.inflate(R.menu.history, menu);
     return super.onCreateOptionsMenu(menu);
   }
 
+  @Override
+  public boolean onPrepareOptionsMenu(Menu menu) {
+    // Importing makes sense with no history; sending and clearing don't
+    boolean hasHistoryItems = historyManager.hasHistoryItems();
+    menu.findItem(R.id.menu_history_send).setVisible(hasHistoryItems);
+    menu.findItem(R.id.menu_history_clear_text).setVisible(hasHistoryItems);
+    return super.onPrepareOptionsMenu(menu);
+  }
+
   @Override
   public boolean onOptionsItemSelected(MenuItem item) {
     switch (item.getItemId()) {
       case R.id.menu_history_send:
-        CharSequence history = historyManager.buildHistory();
-        Uri historyFile = HistoryManager.saveHistory(history.toString());
-        if (historyFile == null) {
-          AlertDialog.Builder builder = new AlertDialog.Builder(this);
-          builder.setMessage(R.string.msg_unmount_usb);
-          builder.setPositiveButton(R.string.button_ok, null);
-          builder.show();
-        } else {
-          Intent intent = new Intent(Intent.ACTION_SEND, Uri.parse("mailto:"));
-          intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_WHEN_TASK_RESET);
-          String subject = getResources().getString(R.string.history_email_title);
-          intent.putExtra(Intent.EXTRA_SUBJECT, subject);
-          intent.putExtra(Intent.EXTRA_TEXT, subject);
-          intent.putExtra(Intent.EXTRA_STREAM, historyFile);
-          intent.setType("text/csv");
-          try {
-            startActivity(intent);
-          } catch (ActivityNotFoundException anfe) {
-            Log.w(TAG, anfe.toString());
-          }
-        }
+        taskExec.execute(new ExportHistoryTask());
+        break;
+      case R.id.menu_history_import:
+        chooseHistoryImport();
         break;
       case R.id.menu_history_clear_text:
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
@@ -156,4 +200,161 @@ public final class HistoryActivity extends ListActivity {
     return true;
   }
 
+  private void sendHistory(Uri historyFile) {
+    if (historyFile == null) {
+      AlertDialog.Builder builder = new AlertDialog.Builder(this);
+      builder.setMessage(R.string.msg_unmount_usb);
+      builder.setPositiveButton(R.string.button_ok, null);
+      builder.show();
+    } else {
+      Intent intent = new Intent(Intent.ACTION_SEND, Uri.parse("mailto:"));
+      intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_WHEN_TASK_RESET);
+      String subject = getResources().getString(R.string.history_email_title);
+      intent.putExtra(Intent.EXTRA_SUBJECT, subject);
+      intent.putExtra(Intent.EXTRA_TEXT, subject);
+      intent.putExtra(Intent.EXTRA_STREAM, historyFile);
+      intent.setType("text/csv");
+      try {
+        startActivity(intent);
+      } catch (ActivityNotFoundException anfe) {
+        Log.w(TAG, anfe.toString());
+      }
+    }
+  }
+
+  private void chooseHistoryImport() {
+    File historyRoot = HistoryManager.getHistoryDirectory();
+    File[] exports = historyRoot == null ? null : historyRoot.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(".csv");
+      }
+    });
+    AlertDialog.Builder builder = new AlertDialog.Builder(this);
+    if (exports == null || exports.length == 0) {
+      builder.setMessage(R.string.msg_history_no_exports);
+      builder.setPositiveButton(R.string.button_ok, null);
+      builder.show();
+      return;
+    }
+    // Newest first
+    Arrays.sort(exports, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return b.getName().compareTo(a.getName());
+      }
+    });
+    final File[] choices = exports;
+    String[] names = new String[choices.length];
+    for (int i = 0; i < choices.length; i++) {
+      names[i] = choices[i].getName();
+    }
+    builder.setTitle(R.string.history_import);
+    builder.setItems(names, new DialogInterface.OnClickListener() {
+      @Override
+      public void onClick(DialogInterface dialog, int which) {
+        taskExec.execute(new ImportHistoryTask(), choices[which]);
+      }
+    });
+    builder.show();
+  }
+
+  private ProgressDialog showProgress(int titleId) {
+    ProgressDialog progress = new ProgressDialog(this);
+    progress.setTitle(titleId);
+    progress.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+    progress.setCancelable(false);
+    progress.show();
+    return progress;
+  }
+
+  private void dismissProgress(ProgressDialog progress) {
+    if (!isFinishing()) {
+      progress.dismiss();
+    }
+  }
+
+  private final class ExportHistoryTask extends AsyncTask<Object,Integer,Uri>
+      implements HistoryManager.ProgressCallback {
+
+    private ProgressDialog progress;
+
+    @Override
+    protected void onPreExecute() {
+      progress = showProgress(R.string.history_send);
+    }
+
+    @Override
+    protected Uri doInBackground(Object... args) {
+      return historyManager.exportHistory(this);
+    }
+
+    @Override
+    public void onProgress(int done, int total) {
+      publishProgress(done, total);
+    }
+
+    @Override
+    protected void onProgressUpdate(Integer... values) {
+      progress.setMax(values[1]);
+      progress.setProgress(values[0]);
+    }
+
+    @Override
+    protected void onPostExecute(Uri historyFile) {
+      dismissProgress(progress);
+      sendHistory(historyFile);
+    }
+
+  }
+
+  private final class ImportHistoryTask extends AsyncTask<File,Integer,Integer>
+      implements HistoryManager.ProgressCallback {
+
+    private ProgressDialog progress;
+
+    @Override
+    protected void onPreExecute() {
+      progress = showProgress(R.string.history_import);
+    }
+
+    @Override
+    protected Integer doInBackground(File... args) {
+      try {
+        return historyManager.importHistory(args[0], this);
+      } catch (IOException ioe) {
+        Log.w(TAG, "Couldn't import " + args[0] + " due to " + ioe);
+        return null;
+      }
+    }
+
+    @Override
+    public void onProgress(int done, int total) {
+      publishProgress(done, total);
+    }
+
+    @Override
+    protected void onProgressUpdate(Integer... values) {
+      progress.setMax(values[1]);
+      progress.setProgress(values[0]);
+    }
+
+    @Override
+    protected void onPostExecute(Integer imported) {
+      dismissProgress(progress);
+      if (imported == null) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(HistoryActivity.this);
+        builder.setMessage(R.string.msg_unmount_usb);
+        builder.setPositiveButton(R.string.button_ok, null);
+        builder.show();
+        return;
+      }
+      Toast.makeText(HistoryActivity.this,
+                     getString(R.string.msg_history_imported, imported),
+                     Toast.LENGTH_SHORT).show();
+      reloadHistoryItems();
+    }
+
+  }
+
 }
@@ -20,16 +20,25 @@ import com.google.zxing.Result;
 
 public final class HistoryItem {
 
+  private final long id;
   private final Result result;
   private final String display;
   private final String details;
   
-  HistoryItem(Result result, String display, String details) {
+  HistoryItem(long id, Result result, String display, String details) {
+    this.id = id;
     this.result = result;
     this.display = display;
     this.details = details;
   }
 
+  /**
+   * @return the item's row id, which stays the same while it is in the history
+   */
+  public long getId() {
+    return id;
+  }
+
   public Result getResult() {
     return result;
   }
@@ -18,6 +18,7 @@ package com.google.zxing.client.android.history;
 
 import android.app.Activity;
 import android.content.res.Resources;
+import android.os.AsyncTask;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -26,16 +27,93 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import com.google.zxing.Result;
 import com.google.zxing.client.android.R;
+import com.google.zxing.client.android.common.executor.AsyncTaskExecInterface;
 
 import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Shows the history a page at a time: the next page is read, from where the last one ended, as
+ * the list is scrolled near the end of what has been read so far. With a search query set, only
+ * matching items are shown, paged the same way. Pages are read on a background thread, one at a
+ * time, and added when they arrive; a page started before the latest {@link #reload()} is dropped.
+ */
 final class HistoryItemAdapter extends ArrayAdapter<HistoryItem> {
 
+  private static final int PAGE_SIZE = 50;
+  // Read the next page once the list is this close to the last item read
+  private static final int PREFETCH_DISTANCE = 10;
+
   private final Activity activity;
+  private final HistoryManager historyManager;
+  private final AsyncTaskExecInterface taskExec;
+  private String query;
+  private boolean exhausted;
+  private LoadPageTask loadTask;
 
-  HistoryItemAdapter(Activity activity) {
+  HistoryItemAdapter(Activity activity, HistoryManager historyManager, AsyncTaskExecInterface taskExec) {
     super(activity, R.layout.history_list_item, new ArrayList<HistoryItem>());
     this.activity = activity;
+    this.historyManager = historyManager;
+    this.taskExec = taskExec;
+  }
+
+  /**
+   * Shows only the items matching a query, starting from the first page.
+   *
+   * @param query words to search for, or null to show everything
+   */
+  void setQuery(String query) {
+    this.query = query;
+    reload();
+  }
+
+  /**
+   * Reads the first page again. What was read so far stays on screen until it arrives.
+   */
+  void reload() {
+    cancel();
+    exhausted = false;
+    loadTask = new LoadPageTask(query, null);
+    taskExec.execute(loadTask);
+  }
+
+  /**
+   * Stops reading the page under way, if any; call when the list is going away.
+   */
+  void cancel() {
+    if (loadTask != null) {
+      loadTask.cancel(false);
+      loadTask = null;
+    }
+  }
+
+  private void loadNextPage() {
+    int count = getCount();
+    HistoryItem last = count == 0 ? null : getItem(count - 1);
+    loadTask = new LoadPageTask(query, last);
+    taskExec.execute(loadTask);
+  }
+
+  private void pageLoaded(LoadPageTask task, List<HistoryItem> page) {
+    if (task != loadTask) {
+      // Superseded by a reload
+      return;
+    }
+    loadTask = null;
+    setNotifyOnChange(false);
+    if (task.isFirstPage()) {
+      clear();
+    }
+    for (HistoryItem item : page) {
+      add(item);
+    }
+    exhausted = page.size() < PAGE_SIZE;
+    if (isEmpty()) {
+      // Placeholder saying there is no history
+      add(new HistoryItem(-1L, null, null, null));
+    }
+    notifyDataSetChanged();
   }
 
   @Override
@@ -48,6 +126,10 @@ final class HistoryItemAdapter extends ArrayAdapter<HistoryItem> {
       layout = (LinearLayout) factory.inflate(R.layout.history_list_item, viewGroup, false);
     }
 
+    if (!exhausted && loadTask == null && position >= getCount() - PREFETCH_DISTANCE) {
+      loadNextPage();
+    }
+
     HistoryItem item = getItem(position);
     Result result = item.getResult();
 
@@ -59,7 +141,7 @@ final class HistoryItemAdapter extends ArrayAdapter<HistoryItem> {
     } else {
       Resources resources = getContext().getResources();
       title = resources.getString(R.string.history_empty);
-      detail = resources.getString(R.string.history_empty_detail);
+      detail = resources.getString(query == null ? R.string.history_empty_detail : R.string.history_no_matches);
     }
 
     ((TextView) layout.findViewById(R.id.history_title)).setText(title);    
@@ -68,4 +150,32 @@ final class HistoryItemAdapter extends ArrayAdapter<HistoryItem> {
     return layout;
   }
 
+  private final class LoadPageTask extends AsyncTask<Object,Object,List<HistoryItem>> {
+
+    private final String query;
+    private final HistoryItem after;
+
+    LoadPageTask(String query, HistoryItem after) {
+      this.query = query;
+      this.after = after;
+    }
+
+    boolean isFirstPage() {
+      return after == null;
+    }
+
+    @Override
+    protected List<HistoryItem> doInBackground(Object... args) {
+      return query == null ?
+          historyManager.buildHistoryItems(after, PAGE_SIZE) :
+          historyManager.searchHistoryItems(query, after, PAGE_SIZE);
+    }
+
+    @Override
+    protected void onPostExecute(List<HistoryItem> page) {
+      pageLoaded(this, page);
+    }
+
+  }
+
 }
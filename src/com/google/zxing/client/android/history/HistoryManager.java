@@ -28,21 +28,26 @@ import android.content.ContentValues;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
 import android.net.Uri;
 import android.os.Environment;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>Manages functionality related to scan history.</p>
@@ -53,103 +58,238 @@ public final class HistoryManager {
 
   private static final String TAG = HistoryManager.class.getSimpleName();
 
+  // Retention: no more than this many scans, none older than this
   private static final int MAX_ITEMS = 2000;
+  private static final long MAX_AGE_MILLIS = 365L * 24 * 60 * 60 * 1000;
+  private static final int TRIM_EVERY_INSERTS = 100;
+  private static final int TRIM_BATCH_SIZE = 500;
+  // Starts one short, so that the first scan after the app starts trims whatever is due
+  private static final AtomicInteger INSERTS_SINCE_TRIM = new AtomicInteger(TRIM_EVERY_INSERTS - 1);
 
+  // Export columns, in the order they're written, then the id to page by
   private static final String[] COLUMNS = {
       DBHelper.TEXT_COL,
       DBHelper.DISPLAY_COL,
       DBHelper.FORMAT_COL,
       DBHelper.TIMESTAMP_COL,
       DBHelper.DETAILS_COL,
+      DBHelper.ID_COL,
   };
 
   private static final String[] COUNT_COLUMN = { "COUNT(1)" };
 
+  private static final String[] ITEM_COLUMNS = {
+      DBHelper.ID_COL,
+      DBHelper.TEXT_COL,
+      DBHelper.DISPLAY_COL,
+      DBHelper.FORMAT_COL,
+      DBHelper.TIMESTAMP_COL,
+      DBHelper.DETAILS_COL,
+  };
+
+  // Newest first; the id breaks ties so that a page boundary is always well defined
+  private static final String NEWEST_FIRST = DBHelper.TIMESTAMP_COL + " DESC, " + DBHelper.ID_COL + " DESC";
+  // Written so that the timestamp index bounds the search, which a plain OR would stop
+  private static final String OLDER_THAN = DBHelper.TIMESTAMP_COL + "<=? AND (" +
+      DBHelper.TIMESTAMP_COL + "<? OR " + DBHelper.ID_COL + "<?)";
+
+  private static final String OLDER_OR_SAME = DBHelper.TIMESTAMP_COL + "<=? AND (" +
+      DBHelper.TIMESTAMP_COL + "<? OR " + DBHelper.ID_COL + "<=?)";
+  private static final String SAME_SCAN = DBHelper.TEXT_COL + "=? AND " + DBHelper.TIMESTAMP_COL + "=?";
+
+  private static final int EXPORT_PAGE_SIZE = 200;
+  private static final int EXPORT_BUFFER_CHARS = 8192;
+  private static final int IMPORT_BATCH_SIZE = 200;
+  private static final int IMPORT_BUFFER_CHARS = 8192;
+
   private static final String[] ID_COL_PROJECTION = { DBHelper.ID_COL };
+  private static final String[] TIMESTAMP_ID_PROJECTION = { DBHelper.TIMESTAMP_COL, DBHelper.ID_COL };
   private static final String[] ID_DETAIL_COL_PROJECTION = { DBHelper.ID_COL, DBHelper.DETAILS_COL };
   private static final DateFormat EXPORT_DATE_TIME_FORMAT =
       DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM);
 
+  /**
+   * Told how far a long-running export or import has got.
+   */
+  public interface ProgressCallback {
+    /**
+     * @param done units of work done so far
+     * @param total units of work in all
+     */
+    void onProgress(int done, int total);
+  }
+
   private final Activity activity;
+  private final DBHelper helper;
+  private final HistoryWriter writer;
 
   public HistoryManager(Activity activity) {
     this.activity = activity;
+    helper = DBHelper.getInstance(activity);
+    writer = HistoryWriter.getInstance(helper);
   }
 
   public boolean hasHistoryItems() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
     Cursor cursor = null;
     try {
-      db = helper.getReadableDatabase();
-      cursor = db.query(DBHelper.TABLE_NAME, COUNT_COLUMN, null, null, null, null, null);
-      cursor.moveToFirst();
-      return cursor.getInt(0) > 0;
+      SQLiteDatabase db = helper.getReadableDatabase();
+      cursor = db.query(DBHelper.TABLE_NAME, ID_COL_PROJECTION, null, null, null, null, null, "1");
+      return cursor.moveToFirst();
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
   }
 
-  public List<HistoryItem> buildHistoryItems() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    List<HistoryItem> items = new ArrayList<HistoryItem>();
-    SQLiteDatabase db = null;
+  /**
+   * Reads one page of history, newest first. Each page starts from where the last one ended, by
+   * timestamp and id, so reading any page costs the same however far down it is.
+   *
+   * @param after last item of the previous page, or null for the first page
+   * @param limit most items to return
+   * @return up to {@code limit} items older than {@code after}; fewer means there are no more
+   */
+  public List<HistoryItem> buildHistoryItems(HistoryItem after, int limit) {
+    List<HistoryItem> items = new ArrayList<HistoryItem>(limit);
     Cursor cursor = null;
     try {
-      db = helper.getReadableDatabase();
-      cursor = db.query(DBHelper.TABLE_NAME, COLUMNS, null, null, null, null, DBHelper.TIMESTAMP_COL + " DESC");
+      SQLiteDatabase db = helper.getReadableDatabase();
+      if (after == null) {
+        cursor = db.query(DBHelper.TABLE_NAME, ITEM_COLUMNS, null, null, null, null,
+                          NEWEST_FIRST, Integer.toString(limit));
+      } else {
+        String timestamp = Long.toString(after.getResult().getTimestamp());
+        cursor = db.query(DBHelper.TABLE_NAME, ITEM_COLUMNS, OLDER_THAN,
+                          new String[] { timestamp, timestamp, Long.toString(after.getId()) },
+                          null, null, NEWEST_FIRST, Integer.toString(limit));
+      }
       while (cursor.moveToNext()) {
-        String text = cursor.getString(0);
-        String display = cursor.getString(1);
-        String format = cursor.getString(2);
-        long timestamp = cursor.getLong(3);
-        String details = cursor.getString(4);
-        Result result = new Result(text, null, null, BarcodeFormat.valueOf(format), timestamp);
-        items.add(new HistoryItem(result, display, details));
+        items.add(readHistoryItem(cursor));
       }
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
     return items;
   }
 
-  public HistoryItem buildHistoryItem(int number) {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
+  /**
+   * Like {@link #buildHistoryItems(HistoryItem, int)}, but only items whose text, display text or
+   * details contain words starting with every word of the query, found through the full-text
+   * index rather than by reading every item.
+   *
+   * @param query words to look for, e.g. part of a product code; if there are none, every item
+   *  matches
+   * @param after last item of the previous page, or null for the first page
+   * @param limit most items to return
+   * @return up to {@code limit} matching items older than {@code after}
+   */
+  public List<HistoryItem> searchHistoryItems(String query, HistoryItem after, int limit) {
+    String match = toMatchExpression(query);
+    if (match == null) {
+      return buildHistoryItems(after, limit);
+    }
+    StringBuilder sql = new StringBuilder(256);
+    sql.append("SELECT ");
+    for (int i = 0; i < ITEM_COLUMNS.length; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(ITEM_COLUMNS[i]);
+    }
+    sql.append(" FROM ").append(DBHelper.TABLE_NAME).append(" WHERE ").append(DBHelper.ID_COL)
+        .append(" IN (SELECT ").append(DBHelper.DOCID_COL).append(" FROM ").append(DBHelper.SEARCH_TABLE_NAME)
+        .append(" WHERE ").append(DBHelper.SEARCH_TABLE_NAME).append(" MATCH ?)");
+    String[] args;
+    if (after == null) {
+      args = new String[] { match };
+    } else {
+      sql.append(" AND (").append(OLDER_THAN).append(')');
+      String timestamp = Long.toString(after.getResult().getTimestamp());
+      args = new String[] { match, timestamp, timestamp, Long.toString(after.getId()) };
+    }
+    sql.append(" ORDER BY ").append(NEWEST_FIRST).append(" LIMIT ").append(limit);
+
+    List<HistoryItem> items = new ArrayList<HistoryItem>(limit);
     Cursor cursor = null;
     try {
-      db = helper.getReadableDatabase();
-      cursor = db.query(DBHelper.TABLE_NAME, COLUMNS, null, null, null, null, DBHelper.TIMESTAMP_COL + " DESC");
-      cursor.move(number + 1);
-      String text = cursor.getString(0);
-      String display = cursor.getString(1);
-      String format = cursor.getString(2);
-      long timestamp = cursor.getLong(3);
-      String details = cursor.getString(4);
-      Result result = new Result(text, null, null, BarcodeFormat.valueOf(format), timestamp);
-      return new HistoryItem(result, display, details);
+      SQLiteDatabase db = helper.getReadableDatabase();
+      cursor = db.rawQuery(sql.toString(), args);
+      while (cursor.moveToNext()) {
+        items.add(readHistoryItem(cursor));
+      }
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
+    return items;
   }
-  
-  public void deleteHistoryItem(int number) {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
+
+  /**
+   * Turns what the user typed into a full-text query matching words that start with each of
+   * theirs. Anything but letters and digits separates words, as it does in the index, which also
+   * keeps the query free of FTS syntax.
+   *
+   * @return the query, or null if there are no words in it
+   */
+  private static String toMatchExpression(String query) {
+    if (query == null) {
+      return null;
+    }
+    StringBuilder match = new StringBuilder(query.length() + 8);
+    boolean inWord = false;
+    for (int i = 0; i < query.length(); i++) {
+      char c = query.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        // Lower case, as the index is, and so that no word can be read as an operator like OR
+        match.append(Character.toLowerCase(c));
+        inWord = true;
+      } else if (inWord) {
+        match.append("* ");
+        inWord = false;
+      }
+    }
+    if (inWord) {
+      match.append('*');
+    }
+    return match.length() == 0 ? null : match.toString().trim();
+  }
+
+  /**
+   * @param id the item's {@link HistoryItem#getId() id}
+   * @return the item, or null if it has since been deleted
+   */
+  public HistoryItem buildHistoryItem(long id) {
     Cursor cursor = null;
     try {
-      db = helper.getWritableDatabase();      
-      cursor = db.query(DBHelper.TABLE_NAME,
-                        ID_COL_PROJECTION,
-                        null, null, null, null,
-                        DBHelper.TIMESTAMP_COL + " DESC");
-      cursor.move(number + 1);
-      db.delete(DBHelper.TABLE_NAME, DBHelper.ID_COL + '=' + cursor.getString(0), null);
+      SQLiteDatabase db = helper.getReadableDatabase();
+      cursor = db.query(DBHelper.TABLE_NAME, ITEM_COLUMNS, DBHelper.ID_COL + "=?",
+                        new String[] { Long.toString(id) }, null, null, null);
+      return cursor.moveToFirst() ? readHistoryItem(cursor) : null;
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
   }
 
+  private static HistoryItem readHistoryItem(Cursor cursor) {
+    long id = cursor.getLong(0);
+    String text = cursor.getString(1);
+    String display = cursor.getString(2);
+    String format = cursor.getString(3);
+    long timestamp = cursor.getLong(4);
+    String details = cursor.getString(5);
+    Result result = new Result(text, null, null, BarcodeFormat.valueOf(format), timestamp);
+    return new HistoryItem(id, result, display, details);
+  }
+
+  /**
+   * @param id the item's {@link HistoryItem#getId() id}
+   */
+  public void deleteHistoryItem(long id) {
+    SQLiteDatabase db = helper.getWritableDatabase();
+    db.delete(DBHelper.TABLE_NAME, DBHelper.ID_COL + "=?", new String[] { Long.toString(id) });
+  }
+
+  /**
+   * Saves a scan. The write happens later on a background thread; see {@link #flushHistory()}.
+   */
   public void addHistoryItem(Result result, ResultHandler handler) {
     // Do not save this item to the history if the preference is turned off, or the contents are
     // considered secure.
@@ -159,35 +299,51 @@ public final class HistoryManager {
     }
 
     SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
-    if (!prefs.getBoolean(PreferencesActivity.KEY_REMEMBER_DUPLICATES, false)) {
-      deletePrevious(result.getText());
-    }
+    final boolean deletePrevious = !prefs.getBoolean(PreferencesActivity.KEY_REMEMBER_DUPLICATES, false);
 
-    ContentValues values = new ContentValues();
+    final ContentValues values = new ContentValues();
     values.put(DBHelper.TEXT_COL, result.getText());
     values.put(DBHelper.FORMAT_COL, result.getBarcodeFormat().toString());
     values.put(DBHelper.DISPLAY_COL, handler.getDisplayContents().toString());
     values.put(DBHelper.TIMESTAMP_COL, System.currentTimeMillis());
 
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
-    try {
-      db = helper.getWritableDatabase();      
-      // Insert the new entry into the DB.
-      db.insert(DBHelper.TABLE_NAME, DBHelper.TIMESTAMP_COL, values);
-    } finally {
-      close(null, db);
-    }
+    writer.enqueue(new HistoryWriter.Write() {
+      @Override
+      public void apply(SQLiteDatabase db) {
+        // In the same transaction as the insert, so an earlier copy can't outlive it
+        if (deletePrevious) {
+          deletePrevious(db, values.getAsString(DBHelper.TEXT_COL));
+        }
+        // Insert the new entry into the DB.
+        db.insert(DBHelper.TABLE_NAME, DBHelper.TIMESTAMP_COL, values);
+      }
+    });
+    insertsMade(1);
   }
 
-  public void addHistoryItemDetails(String itemID, String itemDetails) {
+  /**
+   * Blocks until every scan saved so far is in the database, or for a couple of seconds at most.
+   * Call before leaving the scanner, e.g. from {@code onPause()}.
+   */
+  public void flushHistory() {
+    writer.flush();
+  }
+
+  public void addHistoryItemDetails(final String itemID, final String itemDetails) {
+    // Queued behind the item it belongs to, which may not have been written yet
+    writer.enqueue(new HistoryWriter.Write() {
+      @Override
+      public void apply(SQLiteDatabase db) {
+        appendDetails(db, itemID, itemDetails);
+      }
+    });
+  }
+
+  private static void appendDetails(SQLiteDatabase db, String itemID, String itemDetails) {
     // As we're going to do an update only we don't need need to worry
     // about the preferences; if the item wasn't saved it won't be udpated
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;    
     Cursor cursor = null;
     try {
-      db = helper.getWritableDatabase();
       cursor = db.query(DBHelper.TABLE_NAME,
                         ID_DETAIL_COL_PROJECTION,
                         DBHelper.TEXT_COL + "=?",
@@ -220,52 +376,87 @@ public final class HistoryManager {
       }
 
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
   }
 
-  private void deletePrevious(String text) {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
-    try {
-      db = helper.getWritableDatabase();      
-      db.delete(DBHelper.TABLE_NAME, DBHelper.TEXT_COL + "=?", new String[] { text });
-    } finally {
-      close(null, db);
+  private static void deletePrevious(SQLiteDatabase db, String text) {
+    db.delete(DBHelper.TABLE_NAME, DBHelper.TEXT_COL + "=?", new String[] { text });
+  }
+
+  /**
+   * Counts an insert, and queues a trim when enough have been made since the last one.
+   */
+  private void insertsMade(int inserts) {
+    if (INSERTS_SINCE_TRIM.addAndGet(inserts) >= TRIM_EVERY_INSERTS) {
+      INSERTS_SINCE_TRIM.set(0);
+      writer.enqueue(new TrimWrite());
     }
   }
 
-  public void trimHistory() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
+  /**
+   * Deletes up to one batch of items older than {@link #MAX_AGE_MILLIS}, or beyond the newest
+   * {@link #MAX_ITEMS}, then queues itself again if there may be more. Each batch is one indexed
+   * statement, and the next one is written in the writer's next transaction, so trimming a large
+   * history never holds the database for long.
+   */
+  private final class TrimWrite implements HistoryWriter.Write {
+    @Override
+    public void apply(SQLiteDatabase db) {
+      int deleted;
+      try {
+        deleted = trimHistory(db, TRIM_BATCH_SIZE);
+      } catch (SQLiteException sqle) {
+        // Not worth losing the scans written in the same transaction over
+        Log.w(TAG, sqle);
+        return;
+      }
+      if (deleted > 0) {
+        Log.i(TAG, "Trimmed " + deleted + " scans from history");
+      }
+      if (deleted == TRIM_BATCH_SIZE && !writer.offer(this)) {
+        // The queue is full of scans; the trim after them will carry on
+        INSERTS_SINCE_TRIM.set(TRIM_EVERY_INSERTS);
+      }
+    }
+  }
+
+  /**
+   * @return number of items deleted, at most {@code limit}
+   */
+  private static int trimHistory(SQLiteDatabase db, int limit) {
+    String expired = Long.toString(System.currentTimeMillis() - MAX_AGE_MILLIS);
+    int deleted = db.delete(DBHelper.TABLE_NAME, DBHelper.ID_COL + " IN (SELECT " + DBHelper.ID_COL +
+        " FROM " + DBHelper.TABLE_NAME + " WHERE " + DBHelper.TIMESTAMP_COL + "<? LIMIT " + limit + ')',
+        new String[] { expired });
+    if (deleted == limit) {
+      return deleted;
+    }
+    // The newest item beyond the count; it and everything older goes
     Cursor cursor = null;
+    String[] olderOrSame;
     try {
-      db = helper.getWritableDatabase();      
-      cursor = db.query(DBHelper.TABLE_NAME,
-                        ID_COL_PROJECTION,
-                        null, null, null, null,
-                        DBHelper.TIMESTAMP_COL + " DESC");
-      cursor.move(MAX_ITEMS);
-      while (cursor.moveToNext()) {
-        String id = cursor.getString(0);
-        Log.i(TAG, "Deleting scan history ID " + id);
-        db.delete(DBHelper.TABLE_NAME, DBHelper.ID_COL + '=' + id, null);
+      cursor = db.query(DBHelper.TABLE_NAME, TIMESTAMP_ID_PROJECTION, null, null, null, null,
+                        NEWEST_FIRST, MAX_ITEMS + ",1");
+      if (!cursor.moveToFirst()) {
+        return deleted;
       }
-    } catch (SQLiteException sqle) {
-      // We're seeing an error here when called in CaptureActivity.onCreate() in rare cases
-      // and don't understand it. First theory is that it's transient so can be safely ignored.
-      Log.w(TAG, sqle);
-      // continue
+      String timestamp = cursor.getString(0);
+      olderOrSame = new String[] { timestamp, timestamp, cursor.getString(1) };
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
+    deleted += db.delete(DBHelper.TABLE_NAME, DBHelper.ID_COL + " IN (SELECT " + DBHelper.ID_COL +
+        " FROM " + DBHelper.TABLE_NAME + " WHERE " + OLDER_OR_SAME + " LIMIT " + (limit - deleted) + ')',
+        olderOrSame);
+    return deleted;
   }
 
   /**
-   * <p>Builds a text representation of the scanning history. Each scan is encoded on one
-   * line, terminated by a line break (\r\n). The values in each line are comma-separated,
-   * and double-quoted. Double-quotes within values are escaped with a sequence of two
-   * double-quotes. The fields output are:</p>
+   * <p>Writes the scanning history to a new file under {@link #getHistoryDirectory()}. Each scan
+   * is encoded on one line, terminated by a line break (\r\n). The values in each line are
+   * comma-separated, and double-quoted. Double-quotes within values are escaped with a sequence
+   * of two double-quotes. The fields output are:</p>
    *
    * <ul>
    *  <li>Raw text</li>
@@ -273,91 +464,218 @@ public final class HistoryManager {
    *  <li>Format (e.g. QR_CODE)</li>
    *  <li>Timestamp</li>
    *  <li>Formatted version of timestamp</li>
+   *  <li>Supplemental info (e.g. price info for a product barcode)</li>
    * </ul>
+   *
+   * <p>The history is read a page at a time and each row written straight out, so memory use
+   * doesn't grow with the size of the history. Call from a background thread.</p>
+   *
+   * @param callback told of the number of scans written so far, out of the total
+   * @return URI of the file written, or null if it couldn't be
    */
-  CharSequence buildHistory() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
+  Uri exportHistory(ProgressCallback callback) {
+    File historyRoot = getHistoryDirectory();
+    if (historyRoot == null) {
+      return null;
+    }
+    File historyFile = new File(historyRoot, "history-" + System.currentTimeMillis() + ".csv");
+    Writer out = null;
     Cursor cursor = null;
     try {
-      db = helper.getWritableDatabase();
-      cursor = db.query(DBHelper.TABLE_NAME,
-                        COLUMNS,
-                        null, null, null, null,
-                        DBHelper.TIMESTAMP_COL + " DESC");
+      out = new BufferedWriter(
+          Channels.newWriter(new FileOutputStream(historyFile).getChannel(), "UTF-8"), EXPORT_BUFFER_CHARS);
+      SQLiteDatabase db = helper.getReadableDatabase();
+      int total = countHistoryItems(db);
+      int done = 0;
+      String[] olderThan = null;
+      int rows;
+      do {
+        cursor = db.query(DBHelper.TABLE_NAME, COLUMNS, olderThan == null ? null : OLDER_THAN, olderThan,
+                          null, null, NEWEST_FIRST, Integer.toString(EXPORT_PAGE_SIZE));
+        rows = 0;
+        long timestamp = 0L;
+        long id = 0L;
+        while (cursor.moveToNext()) {
+          writeHistoryRow(out, cursor);
+          timestamp = cursor.getLong(3);
+          id = cursor.getLong(5);
+          rows++;
+        }
+        close(cursor);
+        cursor = null;
+        String timestampString = Long.toString(timestamp);
+        olderThan = new String[] { timestampString, timestampString, Long.toString(id) };
+        done += rows;
+        callback.onProgress(done, Math.max(done, total));
+      } while (rows == EXPORT_PAGE_SIZE);
+      out.close();
+      out = null;
+      return Uri.parse("file://" + historyFile.getAbsolutePath());
+    } catch (IOException ioe) {
+      Log.w(TAG, "Couldn't access file " + historyFile + " due to " + ioe);
+      return null;
+    } finally {
+      close(cursor);
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException ioe) {
+          // do nothing
+        }
+      }
+    }
+  }
 
-      StringBuilder historyText = new StringBuilder(1000);
-      while (cursor.moveToNext()) {
+  private static void writeHistoryRow(Writer out, Cursor cursor) throws IOException {
+    out.append('"').append(massageHistoryField(cursor.getString(0))).append("\",");
+    out.append('"').append(massageHistoryField(cursor.getString(1))).append("\",");
+    out.append('"').append(massageHistoryField(cursor.getString(2))).append("\",");
+    out.append('"').append(massageHistoryField(cursor.getString(3))).append("\",");
 
-        historyText.append('"').append(massageHistoryField(cursor.getString(0))).append("\",");
-        historyText.append('"').append(massageHistoryField(cursor.getString(1))).append("\",");
-        historyText.append('"').append(massageHistoryField(cursor.getString(2))).append("\",");
-        historyText.append('"').append(massageHistoryField(cursor.getString(3))).append("\",");
+    // Add timestamp again, formatted
+    long timestamp = cursor.getLong(3);
+    out.append('"').append(massageHistoryField(
+        EXPORT_DATE_TIME_FORMAT.format(new Date(timestamp)))).append("\",");
 
-        // Add timestamp again, formatted
-        long timestamp = cursor.getLong(3);
-        historyText.append('"').append(massageHistoryField(
-            EXPORT_DATE_TIME_FORMAT.format(new Date(timestamp)))).append("\",");
+    // Above we're preserving the old ordering of columns which had formatted data in position 5
 
-        // Above we're preserving the old ordering of columns which had formatted data in position 5
+    out.append('"').append(massageHistoryField(cursor.getString(4))).append("\"\r\n");
+  }
 
-        historyText.append('"').append(massageHistoryField(cursor.getString(4))).append("\"\r\n");
-      }
-      return historyText;
+  private static int countHistoryItems(SQLiteDatabase db) {
+    Cursor cursor = null;
+    try {
+      cursor = db.query(DBHelper.TABLE_NAME, COUNT_COLUMN, null, null, null, null, null);
+      return cursor.moveToFirst() ? cursor.getInt(0) : 0;
     } finally {
-      close(cursor, db);
+      close(cursor);
     }
   }
-  
-  void clearHistory() {
-    SQLiteOpenHelper helper = new DBHelper(activity);
-    SQLiteDatabase db = null;
+
+  /**
+   * Adds the scans in a file written by {@link #exportHistory(ProgressCallback)} to the history,
+   * skipping any already there with the same text and timestamp. Rows are read and inserted a
+   * batch at a time, each batch in one transaction. Call from a background thread.
+   *
+   * @param historyFile file to read
+   * @param callback told of the number of characters read so far, out of the file's length
+   * @return number of scans added
+   * @throws IOException if the file can't be read
+   */
+  int importHistory(File historyFile, ProgressCallback callback) throws IOException {
+    // Anything still queued should land first, as it would have been exported first
+    writer.flush();
+    SQLiteDatabase db = helper.getWritableDatabase();
+    int total = (int) Math.min(Integer.MAX_VALUE, historyFile.length());
+    CsvRowReader in = new CsvRowReader(new BufferedReader(
+        new InputStreamReader(new FileInputStream(historyFile), Charset.forName("UTF-8")), IMPORT_BUFFER_CHARS));
+    List<ContentValues> batch = new ArrayList<ContentValues>(IMPORT_BATCH_SIZE);
+    int imported = 0;
     try {
-      db = helper.getWritableDatabase();      
-      db.delete(DBHelper.TABLE_NAME, null, null);
+      List<String> row;
+      do {
+        row = in.readRow();
+        if (row != null) {
+          ContentValues values = parseHistoryRow(row);
+          if (values != null) {
+            batch.add(values);
+          }
+        }
+        if (batch.size() == IMPORT_BATCH_SIZE || (row == null && !batch.isEmpty())) {
+          imported += insertNewHistoryItems(db, batch);
+          batch.clear();
+          callback.onProgress((int) Math.min(total, in.getCharsRead()), total);
+        }
+      } while (row != null);
     } finally {
-      close(null, db);
+      try {
+        in.close();
+      } catch (IOException ioe) {
+        // do nothing
+      }
     }
+    callback.onProgress(total, total);
+    insertsMade(imported);
+    return imported;
   }
 
-  static Uri saveHistory(String history) {
-    File bsRoot = new File(Environment.getExternalStorageDirectory(), "BarcodeScanner");
-    File historyRoot = new File(bsRoot, "History");
-    if (!historyRoot.exists() && !historyRoot.mkdirs()) {
-      Log.w(TAG, "Couldn't make dir " + historyRoot);
+  private static ContentValues parseHistoryRow(List<String> row) {
+    if (row.size() < 4) {
       return null;
     }
-    File historyFile = new File(historyRoot, "history-" + System.currentTimeMillis() + ".csv");
-    OutputStreamWriter out = null;
+    ContentValues values = new ContentValues();
     try {
-      out = new OutputStreamWriter(new FileOutputStream(historyFile), Charset.forName("UTF-8"));
-      out.write(history);
-      return Uri.parse("file://" + historyFile.getAbsolutePath());
-    } catch (IOException ioe) {
-      Log.w(TAG, "Couldn't access file " + historyFile + " due to " + ioe);
+      BarcodeFormat.valueOf(row.get(2));
+      values.put(DBHelper.TIMESTAMP_COL, Long.parseLong(row.get(3)));
+    } catch (IllegalArgumentException iae) {
+      // Not a row we wrote, e.g. a header; NumberFormatException is one of these too
       return null;
-    } finally {
-      if (out != null) {
+    }
+    values.put(DBHelper.TEXT_COL, row.get(0));
+    values.put(DBHelper.DISPLAY_COL, row.get(1));
+    values.put(DBHelper.FORMAT_COL, row.get(2));
+    if (row.size() > 5 && row.get(5).length() > 0) {
+      values.put(DBHelper.DETAILS_COL, row.get(5));
+    }
+    return values;
+  }
+
+  private static int insertNewHistoryItems(SQLiteDatabase db, List<ContentValues> batch) {
+    int inserted = 0;
+    String[] textAndTimestamp = new String[2];
+    db.beginTransaction();
+    try {
+      for (ContentValues values : batch) {
+        textAndTimestamp[0] = values.getAsString(DBHelper.TEXT_COL);
+        textAndTimestamp[1] = values.getAsString(DBHelper.TIMESTAMP_COL);
+        Cursor cursor = db.query(DBHelper.TABLE_NAME, ID_COL_PROJECTION, SAME_SCAN, textAndTimestamp,
+                                 null, null, null, "1");
         try {
-          out.close();
-        } catch (IOException ioe) {
-          // do nothing
+          if (cursor.moveToFirst()) {
+            continue;
+          }
+        } finally {
+          cursor.close();
+        }
+        if (db.insert(DBHelper.TABLE_NAME, DBHelper.TIMESTAMP_COL, values) >= 0L) {
+          inserted++;
         }
       }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
     }
+    return inserted;
+  }
+
+  void clearHistory() {
+    SQLiteDatabase db = helper.getWritableDatabase();
+    db.delete(DBHelper.TABLE_NAME, null, null);
+  }
+
+  /**
+   * @return directory exports are written to, created if need be, or null if storage isn't
+   *  available
+   */
+  static File getHistoryDirectory() {
+    File bsRoot = new File(Environment.getExternalStorageDirectory(), "BarcodeScanner");
+    File historyRoot = new File(bsRoot, "History");
+    if (!historyRoot.exists() && !historyRoot.mkdirs()) {
+      Log.w(TAG, "Couldn't make dir " + historyRoot);
+      return null;
+    }
+    return historyRoot;
   }
 
   private static String massageHistoryField(String value) {
     return value == null ? "" : value.replace("\"","\"\"");
   }
   
-  private static void close(Cursor cursor, SQLiteDatabase database) {
+  // The database itself stays open for as long as the helper, which is the life of the app
+  private static void close(Cursor cursor) {
     if (cursor != null) {
       cursor.close();
     }
-    if (database != null) {
-      database.close();
-    }
   }
 
 }
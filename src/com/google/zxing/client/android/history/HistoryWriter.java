@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.android.history;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Applies history writes on a background thread, so that saving a scan never touches the
+ * database on the main thread. Whatever has queued up while the last batch was being written
+ * goes into the next one, in a single transaction, in the order it was queued. If that
+ * transaction fails, the batch is applied again one write per transaction, so that only the
+ * failing write is lost. One instance, from {@link #getInstance(DBHelper)}, serves the whole app.
+ */
+final class HistoryWriter extends Thread {
+
+  private static final String TAG = HistoryWriter.class.getSimpleName();
+
+  // Far more than a burst of batch scanning queues up; a caller waits rather than lose a scan
+  private static final int QUEUE_CAPACITY = 256;
+  private static final int MAX_BATCH = 64;
+  // Called from onPause(), so never hold the main thread for long
+  private static final long FLUSH_TIMEOUT_MS = 2000L;
+
+  /**
+   * A change to the history, applied inside the writer's transaction.
+   */
+  interface Write {
+    void apply(SQLiteDatabase db);
+  }
+
+  private static HistoryWriter instance;
+
+  private final DBHelper helper;
+  private final BlockingQueue<Write> queue;
+  // Counts only writes actually in the queue; written may run ahead of it briefly
+  private long queued;
+  // Writes taken off the queue and either committed or given up on
+  private long written;
+
+  private HistoryWriter(DBHelper helper) {
+    super(TAG);
+    this.helper = helper;
+    queue = new ArrayBlockingQueue<Write>(QUEUE_CAPACITY);
+    setDaemon(true);
+  }
+
+  static synchronized HistoryWriter getInstance(DBHelper helper) {
+    if (instance == null) {
+      instance = new HistoryWriter(helper);
+      instance.start();
+    }
+    return instance;
+  }
+
+  /**
+   * Queues a write, waiting only if the queue is full.
+   */
+  void enqueue(Write write) {
+    try {
+      queue.put(write);
+    } catch (InterruptedException ie) {
+      Log.w(TAG, "Interrupted; history write dropped");
+      Thread.currentThread().interrupt();
+      return;
+    }
+    synchronized (this) {
+      queued++;
+    }
+  }
+
+  /**
+   * Queues a write unless the queue is full. Unlike {@link #enqueue(Write)}, safe to call from a
+   * write being applied.
+   *
+   * @return true if it was queued
+   */
+  boolean offer(Write write) {
+    if (!queue.offer(write)) {
+      return false;
+    }
+    synchronized (this) {
+      queued++;
+    }
+    return true;
+  }
+
+  /**
+   * Blocks until everything queued before the call has been committed or given up on, or for at
+   * most {@link #FLUSH_TIMEOUT_MS}.
+   *
+   * @return true if everything was done in time
+   */
+  boolean flush() {
+    synchronized (this) {
+      long target = queued;
+      long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MS;
+      while (written < target) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0L) {
+          Log.w(TAG, "Gave up waiting for " + (target - written) + " history writes");
+          return false;
+        }
+        try {
+          wait(remaining);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public void run() {
+    List<Write> batch = new ArrayList<Write>(MAX_BATCH);
+    while (true) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException ie) {
+        return;
+      }
+      queue.drainTo(batch, MAX_BATCH - 1);
+      try {
+        write(batch);
+      } catch (RuntimeException re) {
+        // Keep the thread alive, or every later enqueue and flush would wait on it forever
+        Log.w(TAG, "Couldn't write history; dropped " + batch.size() + " writes", re);
+      } finally {
+        synchronized (this) {
+          written += batch.size();
+          notifyAll();
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<Write> batch) {
+    SQLiteDatabase db;
+    try {
+      db = helper.getWritableDatabase();
+    } catch (SQLiteException sqle) {
+      Log.w(TAG, "Couldn't open history; dropped " + batch.size() + " writes", sqle);
+      return;
+    }
+    try {
+      apply(db, batch);
+    } catch (RuntimeException re) {
+      if (batch.size() == 1) {
+        Log.w(TAG, "Couldn't write history; dropped 1 write", re);
+        return;
+      }
+      // Nothing of the batch was committed; find the bad write by applying them one by one
+      Log.w(TAG, "Couldn't write batch of " + batch.size() + " to history; retrying one by one", re);
+      for (Write write : batch) {
+        try {
+          apply(db, Collections.singletonList(write));
+        } catch (RuntimeException re2) {
+          Log.w(TAG, "Couldn't write history; dropped 1 write", re2);
+        }
+      }
+    }
+  }
+
+  private static void apply(SQLiteDatabase db, List<Write> writes) {
+    db.beginTransaction();
+    try {
+      for (Write write : writes) {
+        write.apply(db);
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+  }
+
+}
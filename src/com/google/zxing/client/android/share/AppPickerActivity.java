@@ -23,32 +23,24 @@ import android.view.View;
 import android.widget.ListAdapter;
 import android.widget.ListView;
 
-import com.google.zxing.client.android.common.executor.AsyncTaskExecInterface;
-import com.google.zxing.client.android.common.executor.AsyncTaskExecManager;
+import com.google.zxing.client.android.common.executor.EnrichmentExecutor;
 
 public final class AppPickerActivity extends ListActivity {
 
-  private LoadPackagesAsyncTask backgroundTask;
-  private final AsyncTaskExecInterface taskExec;
-
-  public AppPickerActivity() {
-    taskExec = new AsyncTaskExecManager().build();
-  }
+  private static final String LOAD_PACKAGES_KEY = "installed packages";
 
   @Override
   protected void onResume() {
     super.onResume();
-    backgroundTask = new LoadPackagesAsyncTask(this);
-    taskExec.execute(backgroundTask);
+    EnrichmentExecutor.getInstance().execute(this,
+                                             LOAD_PACKAGES_KEY,
+                                             EnrichmentExecutor.Priority.HIGH,
+                                             new LoadPackagesTask(this));
   }
 
   @Override
   protected void onPause() {
-    LoadPackagesAsyncTask task = backgroundTask;
-    if (task != null) {
-      task.cancel(true);
-      backgroundTask = null;
-    }
+    EnrichmentExecutor.getInstance().cancelAll(this);
     super.onPause();
   }
 
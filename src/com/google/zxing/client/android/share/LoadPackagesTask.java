@@ -20,24 +20,25 @@ import android.app.ListActivity;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
-import android.os.AsyncTask;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.ListAdapter;
 import com.google.zxing.client.android.R;
+import com.google.zxing.client.android.common.executor.EnrichmentExecutor;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Loads a list of packages installed on the device asynchronously.
+ * Loads a list of packages installed on the device, in the background through
+ * {@link EnrichmentExecutor}.
  *
  * @author Sean Owen
  */
-final class LoadPackagesAsyncTask extends AsyncTask<Void,Void,List<AppInfo>> {
+final class LoadPackagesTask implements EnrichmentExecutor.Task<List<AppInfo>> {
 
   private static final String[] PKG_PREFIX_WHITELIST = {
       "com.google.android.apps.",
@@ -51,12 +52,12 @@ final class LoadPackagesAsyncTask extends AsyncTask<Void,Void,List<AppInfo>> {
 
   private final ListActivity activity;
 
-  LoadPackagesAsyncTask(ListActivity activity) {
+  LoadPackagesTask(ListActivity activity) {
     this.activity = activity;
   }
 
   @Override
-  protected List<AppInfo> doInBackground(Void... objects) {
+  public List<AppInfo> doInBackground() {
     List<AppInfo> labelsPackages = new ArrayList<AppInfo>();
     PackageManager packageManager = activity.getPackageManager();
     List<ApplicationInfo> appInfos = packageManager.getInstalledApplications(0);
@@ -92,15 +93,17 @@ final class LoadPackagesAsyncTask extends AsyncTask<Void,Void,List<AppInfo>> {
   }
 
   @Override
-  protected void onPostExecute(final List<AppInfo> results) {    
+  public void onPostExecute(List<AppInfo> results) {
+    // Null if listing the packages failed; show an empty list then
+    final List<AppInfo> apps = results == null ? Collections.<AppInfo>emptyList() : results;
     ListAdapter listAdapter = new ArrayAdapter<AppInfo>(activity, 
                                                         R.layout.app_picker_list_item, 
                                                         R.id.app_picker_list_item_label, 
-                                                        results) {
+                                                        apps) {
       @Override
       public View getView(int position, View convertView, ViewGroup parent) {
         View view = super.getView(position, convertView, parent);
-        Drawable icon = results.get(position).getIcon();
+        Drawable icon = apps.get(position).getIcon();
         if (icon != null) {
           ((ImageView) view.findViewById(R.id.app_picker_list_item_icon)).setImageDrawable(icon);
         }
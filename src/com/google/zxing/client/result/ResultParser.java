@@ -16,11 +16,13 @@
 
 package com.google.zxing.client.result;
 
+import com.google.zxing.BarcodeFormat;
 import com.google.zxing.Result;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,13 +41,31 @@ import java.util.regex.Pattern;
  */
 public abstract class ResultParser {
 
-  private static final ResultParser[] PARSERS = {
-      new WifiResultParser(),
-      new URLTOResultParser(),
-      new URIResultParser(),
-      new ProductResultParser(),
-      new DataColumnResultParser()
-  };
+  // Parsers are tried in this order, but only those that could accept the result: the text-based
+  // ones by the text's first character, then the format-based ones by barcode format. Each index
+  // entry must be implied by that parser's own checks, so that skipping it can never change the
+  // outcome.
+  private static final ResultParser WIFI_PARSER = new WifiResultParser();
+  private static final ResultParser URLTO_PARSER = new URLTOResultParser();
+  private static final ResultParser URI_PARSER = new URIResultParser();
+  private static final ResultParser PRODUCT_PARSER = new ProductResultParser();
+  private static final ResultParser DATA_COLUMN_PARSER = new DataColumnResultParser();
+
+  private static final ResultParser[] NO_PARSERS = {};
+  private static final ResultParser[][] PARSERS_BY_FIRST_CHAR = new ResultParser[128][];
+  private static final Map<BarcodeFormat,ResultParser[]> PARSERS_BY_FORMAT =
+      new EnumMap<BarcodeFormat,ResultParser[]>(BarcodeFormat.class);
+  static {
+    PARSERS_BY_FIRST_CHAR['W'] = new ResultParser[] { WIFI_PARSER }; // WIFI:
+    PARSERS_BY_FIRST_CHAR['U'] = new ResultParser[] { URLTO_PARSER }; // URLTO:
+    PARSERS_BY_FIRST_CHAR['u'] = new ResultParser[] { URLTO_PARSER }; // urlto:
+    ResultParser[] productParsers = { PRODUCT_PARSER };
+    PARSERS_BY_FORMAT.put(BarcodeFormat.UPC_A, productParsers);
+    PARSERS_BY_FORMAT.put(BarcodeFormat.UPC_E, productParsers);
+    PARSERS_BY_FORMAT.put(BarcodeFormat.EAN_8, productParsers);
+    PARSERS_BY_FORMAT.put(BarcodeFormat.EAN_13, productParsers);
+    PARSERS_BY_FORMAT.put(BarcodeFormat.DATA_COLUMN, new ResultParser[] { DATA_COLUMN_PARSER });
+  }
 
   private static final Pattern DIGITS = Pattern.compile("\\d*");
   private static final Pattern ALPHANUM = Pattern.compile("[a-zA-Z0-9]*");
@@ -69,13 +89,60 @@ public abstract class ResultParser {
   }
 
   public static ParsedResult parseResult(Result theResult) {
-    for (ResultParser parser : PARSERS) {
+    String text = getMassagedText(theResult);
+    ResultParser[] parsers = NO_PARSERS;
+    if (text.length() > 0 && text.charAt(0) < PARSERS_BY_FIRST_CHAR.length) {
+      ResultParser[] byFirstChar = PARSERS_BY_FIRST_CHAR[text.charAt(0)];
+      if (byFirstChar != null) {
+        parsers = byFirstChar;
+      }
+    }
+    ParsedResult result = parseWith(parsers, theResult);
+    if (result == null && mightBeURI(text)) {
+      result = URI_PARSER.parse(theResult);
+    }
+    if (result == null) {
+      parsers = PARSERS_BY_FORMAT.get(theResult.getBarcodeFormat());
+      if (parsers != null) {
+        result = parseWith(parsers, theResult);
+      }
+    }
+    return result == null ? new TextParsedResult(theResult.getText(), null) : result;
+  }
+
+  private static ParsedResult parseWith(ResultParser[] parsers, Result theResult) {
+    for (ResultParser parser : parsers) {
       ParsedResult result = parser.parse(theResult);
       if (result != null) {
         return result;
       }
     }
-    return new TextParsedResult(theResult.getText(), null);
+    return null;
+  }
+
+  /**
+   * @return false only if {@link URIResultParser} certainly rejects this text: it has no "URL:" or
+   *  "URI:" prefix, and once trimmed it neither starts like a scheme or host name nor contains
+   *  the ':' or '.' that one needs
+   */
+  private static boolean mightBeURI(String text) {
+    if (text.startsWith("URL:") || text.startsWith("URI:")) {
+      return true;
+    }
+    int length = text.length();
+    int start = 0;
+    while (start < length && text.charAt(start) <= ' ') {
+      start++;
+    }
+    if (start == length) {
+      return false;
+    }
+    char first = text.charAt(start);
+    if (!((first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z') ||
+          (first >= '0' && first <= '9') || first == '-')) {
+      return false;
+    }
+    return text.indexOf(':', start) >= 0 || text.indexOf('.', start) >= 0;
   }
 
   protected static void maybeAppend(String value, StringBuilder result) {
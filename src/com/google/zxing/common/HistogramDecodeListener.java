@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.common;
+
+import com.google.zxing.DecodeListener;
+import com.google.zxing.DecodeStage;
+import com.google.zxing.Reader;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link DecodeListener} that keeps a power-of-two histogram of the time spent in each
+ * {@link DecodeStage}, attempt and success counts per reader class, and the number of rows
+ * scanned per pass. Memory use is fixed after the first call for each reader class, so it is
+ * safe to leave installed for a whole scanning session and {@link #toString() dump} at the end.
+ */
+public final class HistogramDecodeListener implements DecodeListener {
+
+  // Bucket i counts values v with 2^(i-1) <= v < 2^i; bucket 0 counts zeros
+  private static final int BUCKETS = 64;
+
+  private final Map<DecodeStage,Histogram> stages;
+  private final Map<Class<?>,long[]> readers;
+  private final Histogram rows;
+
+  public HistogramDecodeListener() {
+    stages = new EnumMap<DecodeStage,Histogram>(DecodeStage.class);
+    for (DecodeStage stage : DecodeStage.values()) {
+      stages.put(stage, new Histogram());
+    }
+    readers = new LinkedHashMap<Class<?>,long[]>();
+    rows = new Histogram();
+  }
+
+  @Override
+  public synchronized void stageFinished(DecodeStage stage, long elapsedNanos) {
+    stages.get(stage).add(elapsedNanos);
+  }
+
+  @Override
+  public synchronized void readerAttempted(Reader reader, boolean found) {
+    Class<?> readerClass = reader.getClass();
+    long[] counts = readers.get(readerClass);
+    if (counts == null) {
+      counts = new long[2];
+      readers.put(readerClass, counts);
+    }
+    counts[0]++;
+    if (found) {
+      counts[1]++;
+    }
+  }
+
+  @Override
+  public synchronized void rowsScanned(int rows) {
+    this.rows.add(rows);
+  }
+
+  /**
+   * @param stage stage to query
+   * @return number of times the stage was reported
+   */
+  public synchronized long getCount(DecodeStage stage) {
+    return stages.get(stage).count;
+  }
+
+  /**
+   * @param stage stage to query
+   * @param fraction quantile, between 0 and 1, e.g. 0.5 for the median
+   * @return upper bound of the histogram bucket holding that quantile, in nanoseconds
+   */
+  public synchronized long getQuantileNanos(DecodeStage stage, double fraction) {
+    return stages.get(stage).quantile(fraction);
+  }
+
+  /**
+   * @param readerClass reader class to query
+   * @return number of times that class was attempted and number of times it found something,
+   *  as a two-element array
+   */
+  public synchronized long[] getReaderCounts(Class<? extends Reader> readerClass) {
+    long[] counts = readers.get(readerClass);
+    return counts == null ? new long[2] : counts.clone();
+  }
+
+  /**
+   * @return total rows scanned by 1D readers
+   */
+  public synchronized long getRowsScanned() {
+    return rows.sum;
+  }
+
+  public synchronized void reset() {
+    for (Histogram histogram : stages.values()) {
+      histogram.clear();
+    }
+    readers.clear();
+    rows.clear();
+  }
+
+  /**
+   * @return a multi-line, human readable summary suitable for a log or a test report
+   */
+  @Override
+  public synchronized String toString() {
+    StringBuilder result = new StringBuilder(512);
+    for (Map.Entry<DecodeStage,Histogram> entry : stages.entrySet()) {
+      Histogram histogram = entry.getValue();
+      if (histogram.count == 0) {
+        continue;
+      }
+      result.append(entry.getKey()).append(": n=").append(histogram.count)
+          .append(" mean=").append(histogram.sum / histogram.count / 1000L).append("us")
+          .append(" p50<=").append(histogram.quantile(0.5) / 1000L).append("us")
+          .append(" p90<=").append(histogram.quantile(0.9) / 1000L).append("us")
+          .append(" p99<=").append(histogram.quantile(0.99) / 1000L).append("us")
+          .append(" max=").append(histogram.max / 1000L).append("us\n");
+    }
+    for (Map.Entry<Class<?>,long[]> entry : readers.entrySet()) {
+      long[] counts = entry.getValue();
+      result.append(entry.getKey().getSimpleName()).append(": ")
+          .append(counts[1]).append('/').append(counts[0]).append(" found\n");
+    }
+    if (rows.count > 0) {
+      result.append("rows scanned: ").append(rows.sum)
+          .append(" in ").append(rows.count).append(" passes, max ").append(rows.max).append('\n');
+    }
+    return result.toString();
+  }
+
+  private static final class Histogram {
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    void add(long value) {
+      if (value < 0) {
+        value = 0;
+      }
+      buckets[BUCKETS - Long.numberOfLeadingZeros(value)]++;
+      count++;
+      sum += value;
+      if (value > max) {
+        max = value;
+      }
+    }
+
+    long quantile(double fraction) {
+      long target = (long) Math.ceil(fraction * count);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets[i];
+        if (seen >= target && seen > 0) {
+          return i == 0 ? 0 : Math.min(max, (1L << i) - 1);
+        }
+      }
+      return max;
+    }
+
+    void clear() {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] = 0;
+      }
+      count = 0;
+      sum = 0;
+      max = 0;
+    }
+
+  }
+
+}
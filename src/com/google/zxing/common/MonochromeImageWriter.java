@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes black-and-white images at one bit per pixel, as PNG or binary PBM, a row at a time from
+ * {@link BitArray}s, so that no {@link BitMatrix} or ARGB image of the whole picture is needed.
+ * Set bits are black.
+ *
+ * <p>An instance keeps its buffers and compressor from one image to the next. It is not
+ * thread-safe; use one per thread.</p>
+ */
+public final class MonochromeImageWriter {
+
+  public enum Format {
+    PNG,
+    /** Netpbm "P4" bitmap. */
+    PBM,
+  }
+
+  private static final byte[] PNG_SIGNATURE = {
+      (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+  };
+  private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+  private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+  private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+  private static final int FILTER_NONE = 0;
+  private static final int FILTER_UP = 2;
+  private static final int IDAT_SIZE = 32 * 1024;
+  // Scanlines are handed to the compressor in blocks of about this size, not one by one
+  private static final int DEFLATE_INPUT_SIZE = 16 * 1024;
+
+  // Bit order within a byte is reversed between BitArray and both image formats
+  private static final byte[] REVERSED = new byte[256];
+  static {
+    for (int i = 0; i < 256; i++) {
+      REVERSED[i] = (byte) (Integer.reverse(i) >>> 24);
+    }
+  }
+
+  private final Format format;
+  private final Deflater deflater;
+  private final CRC32 crc;
+  private final byte[] chunk;
+  private final byte[] header;
+  private byte[] pending;
+  private int pendingLength;
+  private byte[] scanline;
+  private byte[] previous;
+  private BitArray rowBuffer;
+  private int chunkLength;
+  private OutputStream out;
+  private int width;
+  private int rowBytes;
+  private int rowsLeft;
+  private boolean havePrevious;
+
+  public MonochromeImageWriter(Format format) {
+    this.format = format;
+    if (format == Format.PNG) {
+      // Barcode rows repeat, which even the fastest setting squeezes to almost nothing
+      deflater = new Deflater(Deflater.BEST_SPEED);
+      crc = new CRC32();
+      chunk = new byte[IDAT_SIZE];
+      header = new byte[13];
+    } else {
+      deflater = null;
+      crc = null;
+      chunk = null;
+      header = null;
+    }
+  }
+
+  /**
+   * Writes a whole matrix.
+   */
+  public void write(BitMatrix matrix, OutputStream out) throws IOException {
+    int height = matrix.getHeight();
+    begin(out, matrix.getWidth(), height);
+    for (int y = 0; y < height; y++) {
+      rowBuffer = matrix.getRow(y, rowBuffer);
+      writeRow(rowBuffer);
+    }
+    end();
+  }
+
+  /**
+   * Starts an image, which is complete once {@code height} rows have been written and
+   * {@link #end()} called. The stream is not closed.
+   */
+  public void begin(OutputStream out, int width, int height) throws IOException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Bad image size: " + width + 'x' + height);
+    }
+    this.out = out;
+    this.width = width;
+    rowsLeft = height;
+    havePrevious = false;
+    rowBytes = (width + 7) >> 3;
+    if (scanline == null || scanline.length < rowBytes + 1) {
+      scanline = new byte[rowBytes + 1];
+      previous = new byte[rowBytes];
+      if (format == Format.PNG) {
+        pending = new byte[Math.max(DEFLATE_INPUT_SIZE, rowBytes + 1)];
+      }
+    }
+    if (format == Format.PNG) {
+      out.write(PNG_SIGNATURE);
+      putInt(header, 0, width);
+      putInt(header, 4, height);
+      header[8] = 1; // bit depth
+      header[9] = 0; // greyscale
+      header[10] = 0; // compression method
+      header[11] = 0; // filter method
+      header[12] = 0; // no interlace
+      writeChunk(IHDR, header, 13);
+      deflater.reset();
+      pendingLength = 0;
+      chunkLength = 0;
+    } else {
+      out.write(("P4\n" + width + ' ' + height + '\n').getBytes("US-ASCII"));
+    }
+  }
+
+  /**
+   * @param row the next row; only its first {@code width} bits are used
+   */
+  public void writeRow(BitArray row) throws IOException {
+    writeRows(row, 1);
+  }
+
+  /**
+   * Writes the same row {@code count} times, packing it only once; a one-dimensional barcode is
+   * one row repeated.
+   *
+   * @param row the next row; only its first {@code width} bits are used
+   */
+  public void writeRows(BitArray row, int count) throws IOException {
+    if (count <= 0 || count > rowsLeft) {
+      throw new IllegalStateException("Can't write " + count + " more rows; " + rowsLeft + " left");
+    }
+    if (row.getSize() < width) {
+      throw new IllegalArgumentException("Row is narrower than the image");
+    }
+    int[] bits = row.getBitArray();
+    boolean png = format == Format.PNG;
+    boolean sameAsPrevious = png && havePrevious;
+    for (int i = 0; i < rowBytes; i++) {
+      byte b = REVERSED[(bits[i >> 2] >>> ((i & 3) << 3)) & 0xFF];
+      if (png) {
+        // PNG greyscale has 0 for black
+        b = (byte) ~b;
+      }
+      sameAsPrevious &= b == previous[i];
+      scanline[i + 1] = b;
+    }
+    rowsLeft -= count;
+    if (!png) {
+      for (int i = 0; i < count; i++) {
+        out.write(scanline, 1, rowBytes);
+      }
+      return;
+    }
+    if (sameAsPrevious) {
+      appendRepeatedRows(count);
+    } else {
+      scanline[0] = FILTER_NONE;
+      System.arraycopy(scanline, 1, previous, 0, rowBytes);
+      havePrevious = true;
+      if (pendingLength + rowBytes + 1 > pending.length) {
+        deflatePending();
+      }
+      System.arraycopy(scanline, 0, pending, pendingLength, rowBytes + 1);
+      pendingLength += rowBytes + 1;
+      appendRepeatedRows(count - 1);
+    }
+  }
+
+  /**
+   * Appends rows equal to the one before, which "Up" filtering turns to all zeroes.
+   */
+  private void appendRepeatedRows(int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      if (pendingLength + rowBytes + 1 > pending.length) {
+        deflatePending();
+      }
+      pending[pendingLength] = FILTER_UP;
+      Arrays.fill(pending, pendingLength + 1, pendingLength + 1 + rowBytes, (byte) 0);
+      pendingLength += rowBytes + 1;
+    }
+  }
+
+  /**
+   * Finishes the image. The stream is flushed but not closed.
+   */
+  public void end() throws IOException {
+    if (rowsLeft != 0) {
+      throw new IllegalStateException(rowsLeft + " rows not written");
+    }
+    if (format == Format.PNG) {
+      deflatePending();
+      deflater.finish();
+      while (!deflater.finished()) {
+        deflate();
+      }
+      if (chunkLength > 0) {
+        writeChunk(IDAT, chunk, chunkLength);
+        chunkLength = 0;
+      }
+      writeChunk(IEND, chunk, 0);
+    }
+    out.flush();
+    out = null;
+  }
+
+  private void deflatePending() throws IOException {
+    deflater.setInput(pending, 0, pendingLength);
+    while (!deflater.needsInput()) {
+      deflate();
+    }
+    pendingLength = 0;
+  }
+
+  private void deflate() throws IOException {
+    chunkLength += deflater.deflate(chunk, chunkLength, chunk.length - chunkLength);
+    if (chunkLength == chunk.length) {
+      writeChunk(IDAT, chunk, chunkLength);
+      chunkLength = 0;
+    }
+  }
+
+  private void writeChunk(byte[] type, byte[] data, int length) throws IOException {
+    writeInt(length);
+    out.write(type);
+    out.write(data, 0, length);
+    crc.reset();
+    crc.update(type);
+    crc.update(data, 0, length);
+    writeInt((int) crc.getValue());
+  }
+
+  private void writeInt(int value) throws IOException {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+
+}
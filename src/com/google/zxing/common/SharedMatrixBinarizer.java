@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A {@link Binarizer} over a rectangular region of a {@link BitMatrix} that has already been
+ * binarized, typically the black matrix of a much larger image. Nothing is re-thresholded:
+ * rows are read straight out of the shared matrix, and the region's own matrix is copied out of it
+ * only when a 2D reader asks for one. Cropping or rotating a {@link BinaryBitmap} built on this
+ * class yields another view of the same bits, so recursive readers such as
+ * {@link com.google.zxing.multi.GenericMultipleBarcodeReader} never binarize twice.
+ *
+ * <p>The shared matrix must not be modified while views of it are in use. Views themselves are
+ * not thread-safe, but any number of threads may each use their own views of one matrix.</p>
+ */
+public final class SharedMatrixBinarizer extends Binarizer {
+
+  private final BitMatrix matrix;
+  private final int left;
+  private final int top;
+  private BitArray sharedRow;
+  private BitMatrix region;
+
+  public SharedMatrixBinarizer(BitMatrix matrix, int left, int top, int width, int height) {
+    this(new RegionLuminanceSource(matrix, left, top, width, height));
+  }
+
+  private SharedMatrixBinarizer(RegionLuminanceSource source) {
+    super(source);
+    this.matrix = source.matrix;
+    this.left = source.left;
+    this.top = source.top;
+  }
+
+  /**
+   * @param matrix binarized image to share
+   * @param left left coordinate of the region in {@code matrix}
+   * @param top top coordinate of the region in {@code matrix}
+   * @param width region width
+   * @param height region height
+   * @return a {@link BinaryBitmap} of the region which reuses {@code matrix}
+   */
+  public static BinaryBitmap view(BitMatrix matrix, int left, int top, int width, int height) {
+    return new BinaryBitmap(new SharedMatrixBinarizer(matrix, left, top, width, height));
+  }
+
+  @Override
+  public BitArray getBlackRow(int y, BitArray row) {
+    int width = getWidth();
+    if (row == null || row.getSize() < width) {
+      row = new BitArray(width);
+    } else {
+      row.clear();
+    }
+    if (left == 0 && width == matrix.getWidth()) {
+      return matrix.getRow(top + y, row);
+    }
+    sharedRow = matrix.getRow(top + y, sharedRow);
+    int end = left + width;
+    int x = sharedRow.getNextSet(left);
+    while (x < end) {
+      int unset = Math.min(sharedRow.getNextUnset(x), end);
+      row.setRange(x - left, unset - left);
+      x = sharedRow.getNextSet(unset);
+    }
+    return row;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() {
+    if (region == null) {
+      int width = getWidth();
+      int height = getHeight();
+      if (left == 0 && top == 0 && width == matrix.getWidth() && height == matrix.getHeight()) {
+        region = matrix;
+      } else {
+        region = new BitMatrix(width, height);
+        BitArray row = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+          region.setRow(y, getBlackRow(y, row));
+        }
+      }
+    }
+    return region;
+  }
+
+  /**
+   * Views are only ever created over {@link SharedMatrixBinarizer}'s own sources by
+   * {@link BinaryBitmap#crop(int, int, int, int)} and
+   * {@link BinaryBitmap#rotateCounterClockwise()}; anything else is thresholded afresh.
+   */
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    if (source instanceof RegionLuminanceSource) {
+      return new SharedMatrixBinarizer((RegionLuminanceSource) source);
+    }
+    return new HybridBinarizer(source);
+  }
+
+  /**
+   * Presents a region of a {@link BitMatrix} as black (0) and white (255) luminance, so that
+   * the usual {@link LuminanceSource} operations stay available on a view.
+   */
+  private static final class RegionLuminanceSource extends LuminanceSource {
+
+    private final BitMatrix matrix;
+    private final int left;
+    private final int top;
+
+    RegionLuminanceSource(BitMatrix matrix, int left, int top, int width, int height) {
+      super(width, height);
+      if (left < 0 || top < 0 ||
+          left + width > matrix.getWidth() || top + height > matrix.getHeight()) {
+        throw new IllegalArgumentException("Region does not fit within the matrix.");
+      }
+      this.matrix = matrix;
+      this.left = left;
+      this.top = top;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+      int width = getWidth();
+      if (row == null || row.length < width) {
+        row = new byte[width];
+      }
+      for (int x = 0; x < width; x++) {
+        row[x] = matrix.get(left + x, top + y) ? 0 : (byte) 0xFF;
+      }
+      return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+      int width = getWidth();
+      int height = getHeight();
+      byte[] result = new byte[width * height];
+      byte[] row = new byte[width];
+      for (int y = 0; y < height; y++) {
+        System.arraycopy(getRow(y, row), 0, result, y * width, width);
+      }
+      return result;
+    }
+
+    @Override
+    public boolean isCropSupported() {
+      return true;
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+      return new RegionLuminanceSource(matrix, this.left + left, this.top + top, width, height);
+    }
+
+    @Override
+    public boolean isRotateSupported() {
+      return true;
+    }
+
+    /**
+     * Rotation cannot be expressed as a view, so this copies the region's bits once.
+     */
+    @Override
+    public LuminanceSource rotateCounterClockwise() {
+      int width = getWidth();
+      int height = getHeight();
+      BitMatrix rotated = new BitMatrix(height, width);
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          if (matrix.get(left + x, top + y)) {
+            rotated.set(y, width - 1 - x);
+          }
+        }
+      }
+      return new RegionLuminanceSource(rotated, 0, 0, height, width);
+    }
+
+  }
+
+}
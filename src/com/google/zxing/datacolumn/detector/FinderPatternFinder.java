@@ -16,6 +16,7 @@
 
 package com.google.zxing.datacolumn.detector;
 
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -82,7 +83,11 @@ public class FinderPatternFinder {
     
     boolean done = false;
     int[] stateCount = new int[1];
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
     for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
+      if (DecodeDeadline.isExpired(deadline)) {
+        throw NotFoundException.getNotFoundInstance();
+      }
       // Get a row of black/white values
       stateCount[0] = 0;
       for (int j = 0; j < maxJ; j++) {
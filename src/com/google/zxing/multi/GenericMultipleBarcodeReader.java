@@ -17,12 +17,14 @@
 package com.google.zxing.multi;
 
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
+import com.google.zxing.TryReader;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -40,6 +42,11 @@ import java.util.Map;
  * <p>That is, instead of passing a {@link Reader} a caller might pass
  * {@code new ByQuadrantReader(reader)}.</p>
  *
+ * <p>When constructed to share binarization, the image is binarized once up front and every sub-region is a view of
+ * that {@link com.google.zxing.common.BitMatrix} rather than a re-thresholded crop; this is much
+ * faster for images holding many symbols, though 1D readers then see rows of the 2D matrix instead
+ * of separately thresholded rows.</p>
+ *
  * @author Sean Owen
  */
 public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader {
@@ -48,9 +55,20 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
   private static final int MAX_DEPTH = 4;
 
   private final Reader delegate;
+  private final boolean shareBinarization;
 
   public GenericMultipleBarcodeReader(Reader delegate) {
+    this(delegate, false);
+  }
+
+  /**
+   * @param delegate reader to apply to the image and its sub-regions
+   * @param shareBinarization if true, binarize the whole image once and search sub-regions as
+   *  views of the result; see {@link BinaryBitmap#shareBlackMatrix()}
+   */
+  public GenericMultipleBarcodeReader(Reader delegate, boolean shareBinarization) {
     this.delegate = delegate;
+    this.shareBinarization = shareBinarization;
   }
 
   @Override
@@ -61,6 +79,9 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
   @Override
   public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints)
       throws NotFoundException {
+    if (shareBinarization) {
+      image = image.shareBlackMatrix();
+    }
     List<Result> results = new ArrayList<Result>();
     doDecodeMultiple(image, hints, results, 0, 0, 0);
     if (results.isEmpty()) {
@@ -78,11 +99,12 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     if (currentDepth > MAX_DEPTH) {
       return;
     }
-    
-    Result result;
-    try {
-      result = delegate.decode(image, hints);
-    } catch (ReaderException ignored) {
+    if (DecodeDeadline.isExpired(DecodeDeadline.fromHints(hints))) {
+      return;
+    }
+
+    Result result = tryDecode(image, hints);
+    if (result == null) {
       return;
     }
     boolean alreadyFound = false;
@@ -125,33 +147,44 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     // Decode left of barcode
     if (minX > MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop(0, 0, (int) minX, height),
-                       hints, results, 
+                       hints, results,
                        xOffset, yOffset, 
                        currentDepth + 1);
     }
     // Decode above barcode
     if (minY > MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop(0, 0, width, (int) minY),
-                       hints, results, 
+                       hints, results,
                        xOffset, yOffset, 
                        currentDepth + 1);
     }
     // Decode right of barcode
     if (maxX < width - MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop((int) maxX, 0, width - (int) maxX, height),
-                       hints, results, 
+                       hints, results,
                        xOffset + (int) maxX, yOffset, 
                        currentDepth + 1);
     }
     // Decode below barcode
     if (maxY < height - MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop(0, (int) maxY, width, height - (int) maxY),
-                       hints, results, 
+                       hints, results,
                        xOffset, yOffset + (int) maxY, 
                        currentDepth + 1);
     }
   }
 
+  private Result tryDecode(BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    if (delegate instanceof TryReader) {
+      return ((TryReader) delegate).tryDecode(image, hints);
+    }
+    try {
+      return delegate.decode(image, hints);
+    } catch (ReaderException ignored) {
+      return null;
+    }
+  }
+
   private static Result translateResultPoints(Result result, int xOffset, int yOffset) {
     ResultPoint[] oldResultPoints = result.getResultPoints();
     if (oldResultPoints == null) {
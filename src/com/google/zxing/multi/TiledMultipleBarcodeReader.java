@@ -0,0 +1,254 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.zxing.multi;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.SharedMatrixBinarizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Finds many barcodes in one very large image, such as a photo of a pallet or a full page
+ * scan, by decoding overlapping tiles of it in parallel.</p>
+ *
+ * <p>Tiles are sized from the largest expected symbol: each tile is two symbols across and
+ * neighbouring tiles overlap by one symbol, so every symbol lies wholly inside at least one tile.
+ * The image is binarized once; tiles are {@link SharedMatrixBinarizer} views of that one
+ * matrix. Each worker runs its own {@link MultiFormatReader}, wrapped in a
+ * {@link GenericMultipleBarcodeReader} so a tile may yield several results. A symbol found by
+ * more than one tile is reported once: results with the same format and text whose centers are
+ * closer than one symbol size are treated as the same symbol, since two distinct symbols that
+ * large could not overlap that much.</p>
+ *
+ * <p>The caller supplies, and owns, the {@link ExecutorService}. This reader does not shut it
+ * down.</p>
+ *
+ * @see ByQuadrantReader
+ */
+public final class TiledMultipleBarcodeReader implements MultipleBarcodeReader {
+
+  // Two symbols across with one symbol of overlap: any symbol fits wholly in some tile, and
+  // the middle halves of vertically adjacent tiles, which is all a 1D reader scans without
+  // TRY_HARDER, cover every row below the first half symbol
+  private static final int SYMBOLS_PER_TILE = 2;
+
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final int symbolSize;
+
+  /**
+   * @param executor runs tile decoding
+   * @param parallelism number of tasks to split the tiles into; usually the pool size
+   * @param symbolSize side of the largest expected barcode, in pixels
+   */
+  public TiledMultipleBarcodeReader(ExecutorService executor, int parallelism, int symbolSize) {
+    if (parallelism < 1 || symbolSize < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.symbolSize = symbolSize;
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
+    return decodeMultiple(image, null);
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints)
+      throws NotFoundException {
+    BitMatrix matrix = image.getBlackMatrix();
+    List<int[]> tiles = layoutTiles(matrix.getWidth(), matrix.getHeight());
+
+    int taskCount = Math.min(parallelism, tiles.size());
+    List<Future<List<Result>>> futures = new ArrayList<Future<List<Result>>>(taskCount);
+    for (int i = 0; i < taskCount; i++) {
+      // Contiguous runs of tiles, so that the merged output is in the same order every time
+      int from = i * tiles.size() / taskCount;
+      int to = (i + 1) * tiles.size() / taskCount;
+      futures.add(executor.submit(new TileTask(matrix, tiles.subList(from, to), hints)));
+    }
+
+    List<Result> results = new ArrayList<Result>();
+    try {
+      for (Future<List<Result>> future : futures) {
+        for (Result result : future.get()) {
+          if (!isDuplicate(result, results)) {
+            results.add(result);
+          }
+        }
+      }
+    } catch (InterruptedException ie) {
+      cancelAll(futures);
+      Thread.currentThread().interrupt();
+      throw NotFoundException.getNotFoundInstance();
+    } catch (ExecutionException ee) {
+      cancelAll(futures);
+      Throwable cause = ee.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+
+    if (results.isEmpty()) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  @Override
+  public void reset() {
+    // do nothing; all state is per call
+  }
+
+  /**
+   * @return {left, top, width, height} of each tile, row by row
+   */
+  private List<int[]> layoutTiles(int width, int height) {
+    int tileSize = SYMBOLS_PER_TILE * symbolSize;
+    int step = tileSize - symbolSize;
+    List<int[]> tiles = new ArrayList<int[]>();
+    for (int top = 0; ; top += step) {
+      int tileHeight = Math.min(tileSize, height - top);
+      for (int left = 0; ; left += step) {
+        int tileWidth = Math.min(tileSize, width - left);
+        tiles.add(new int[] {left, top, tileWidth, tileHeight});
+        if (left + tileWidth >= width) {
+          break;
+        }
+      }
+      if (top + tileHeight >= height) {
+        break;
+      }
+    }
+    return tiles;
+  }
+
+  private boolean isDuplicate(Result result, List<Result> results) {
+    ResultPoint center = center(result.getResultPoints());
+    for (Result existing : results) {
+      if (existing.getBarcodeFormat() != result.getBarcodeFormat() ||
+          !existing.getText().equals(result.getText())) {
+        continue;
+      }
+      ResultPoint existingCenter = center(existing.getResultPoints());
+      if (center == null || existingCenter == null ||
+          ResultPoint.distance(center, existingCenter) < symbolSize) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ResultPoint center(ResultPoint[] points) {
+    if (points == null || points.length == 0) {
+      return null;
+    }
+    float x = 0.0f;
+    float y = 0.0f;
+    int count = 0;
+    for (ResultPoint point : points) {
+      if (point != null) {
+        x += point.getX();
+        y += point.getY();
+        count++;
+      }
+    }
+    return count == 0 ? null : new ResultPoint(x / count, y / count);
+  }
+
+  private static Result translateResultPoints(Result result, int xOffset, int yOffset) {
+    ResultPoint[] oldResultPoints = result.getResultPoints();
+    if (oldResultPoints == null) {
+      return result;
+    }
+    ResultPoint[] newResultPoints = new ResultPoint[oldResultPoints.length];
+    for (int i = 0; i < oldResultPoints.length; i++) {
+      ResultPoint oldPoint = oldResultPoints[i];
+      if (oldPoint != null) {
+        newResultPoints[i] = new ResultPoint(oldPoint.getX() + xOffset, oldPoint.getY() + yOffset);
+      }
+    }
+    Result newResult = new Result(result.getText(), result.getRawBytes(), newResultPoints,
+        result.getBarcodeFormat());
+    newResult.putAllMetadata(result.getResultMetadata());
+    return newResult;
+  }
+
+  private static void cancelAll(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(true);
+    }
+  }
+
+  /**
+   * Decodes a run of tiles with one reader, which is why readers need not be thread-safe.
+   */
+  private static final class TileTask implements Callable<List<Result>> {
+
+    private final BitMatrix matrix;
+    private final List<int[]> tiles;
+    private final Map<DecodeHintType,?> hints;
+
+    TileTask(BitMatrix matrix, List<int[]> tiles, Map<DecodeHintType,?> hints) {
+      this.matrix = matrix;
+      this.tiles = tiles;
+      this.hints = hints;
+    }
+
+    @Override
+    public List<Result> call() {
+      MultiFormatReader delegate = new MultiFormatReader();
+      delegate.setHints(hints);
+      // The tiles are views of one matrix already, so their crops are too
+      MultipleBarcodeReader reader = new GenericMultipleBarcodeReader(delegate, true);
+      List<Result> results = new ArrayList<Result>();
+      DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+      for (int[] tile : tiles) {
+        if (Thread.currentThread().isInterrupted() || DecodeDeadline.isExpired(deadline)) {
+          break;
+        }
+        BinaryBitmap view = SharedMatrixBinarizer.view(matrix, tile[0], tile[1], tile[2], tile[3]);
+        try {
+          for (Result result : reader.decodeMultiple(view, hints)) {
+            results.add(translateResultPoints(result, tile[0], tile[1]));
+          }
+        } catch (NotFoundException nfe) {
+          // continue
+        }
+        delegate.reset();
+      }
+      return results;
+    }
+
+  }
+
+}
@@ -6,11 +6,13 @@ import java.util.Map;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
+import com.google.zxing.TryReader;
 import com.google.zxing.datacolumn.DataColumnReader;
 import com.google.zxing.multi.MultipleBarcodeReader;
 import com.google.zxing.oned.MultiFormatOneDReader;
@@ -41,12 +43,14 @@ public class DataColumnAndOnedMultiReader implements MultipleBarcodeReader {
 		this.setHints(hints);
 		Collection<Result> results = new ArrayList<Result>();
 		if (readers != null) {
+		      DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
 		      for (Reader reader : readers) {
-		        try {
-		          Result r= reader.decode(image, hints);
+		        if (DecodeDeadline.isExpired(deadline)) {
+		          break;
+		        }
+		        Result r = tryDecode(reader, image, hints);
+		        if (r != null) {
 		          results.add(r);
-		        } catch (ReaderException re) {
-		          // continue
 		        }
 		      }
 		      return results.toArray(new Result[results.size()]);
@@ -55,6 +59,18 @@ public class DataColumnAndOnedMultiReader implements MultipleBarcodeReader {
 
 	}
 
+	private static Result tryDecode(Reader reader, BinaryBitmap image,
+			Map<DecodeHintType, ?> hints) {
+		if (reader instanceof TryReader) {
+			return ((TryReader) reader).tryDecode(image, hints);
+		}
+		try {
+			return reader.decode(image, hints);
+		} catch (ReaderException re) {
+			return null;
+		}
+	}
+
 	/**
 	 * ʼhints
 	 * @param hints
@@ -78,10 +78,36 @@ public final class CodaBarReader extends OneDReader {
 
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) throws NotFoundException {
+    int startOffset = locateStart(row);
+    if (startOffset < 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return decodeRow(rowNumber, startOffset);
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    int startOffset = locateStart(row);
+    if (startOffset < 0) {
+      return null;
+    }
+    try {
+      return decodeRow(rowNumber, startOffset);
+    } catch (NotFoundException nfe) {
+      return null;
+    }
+  }
 
+  // Loads the counters from the row; returns the start pattern offset, or -1 if there is none
+  private int locateStart(BitArray row) {
     Arrays.fill(counters, 0);
-    setCounters(row);
-    int startOffset = findStartPattern();
+    if (!setCounters(row)) {
+      return -1;
+    }
+    return findStartPattern();
+  }
+
+  private Result decodeRow(int rowNumber, int startOffset) throws NotFoundException {
     int nextStart = startOffset;
 
     decodeRowResult.setLength(0);
@@ -225,14 +251,15 @@ public final class CodaBarReader extends OneDReader {
    * This is just like recordPattern, except it records all the counters, and
    * uses our builtin "counters" member for storage.
    * @param row row to count from
+   * @return false if the row has no white pixel to start from
    */
-  private void setCounters(BitArray row) throws NotFoundException {
+  private boolean setCounters(BitArray row) {
     counterLength = 0;
     // Start from the first white bit.
     int i = row.getNextUnset(0);
     int end = row.getSize();
     if (i >= end) {
-      throw NotFoundException.getNotFoundInstance();
+      return false;
     }
     boolean isWhite = true;
     int count = 0;
@@ -246,6 +273,7 @@ public final class CodaBarReader extends OneDReader {
       }
     }
     counterAppend(count);
+    return true;
   }
 
   private void counterAppend(int e) {
@@ -258,7 +286,7 @@ public final class CodaBarReader extends OneDReader {
     }
   }
 
-  private int findStartPattern() throws NotFoundException {
+  private int findStartPattern() {
     for (int i = 1; i < counterLength; i += 2) {
       int charOffset = toNarrowWidePattern(i);
       if (charOffset != -1 && arrayContains(STARTEND_ENCODING, ALPHABET[charOffset])) {
@@ -273,7 +301,7 @@ public final class CodaBarReader extends OneDReader {
         }
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return -1;
   }
 
   static boolean arrayContains(char[] array, char key) {
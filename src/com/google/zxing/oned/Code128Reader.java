@@ -21,6 +21,7 @@ import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
@@ -166,7 +167,8 @@ public final class Code128Reader extends OneDReader {
   private static final int CODE_START_C = 105;
   private static final int CODE_STOP = 106;
 
-  private static int[] findStartPattern(BitArray row) throws NotFoundException {
+  // Returns null rather than throwing when there is no start pattern, which is the common case
+  private static int[] findStartPattern(BitArray row) {
     int width = row.getSize();
     int rowOffset = row.getNextSet(0);
 
@@ -208,7 +210,7 @@ public final class Code128Reader extends OneDReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   private static int decodeCode(BitArray row, int[] counters, int rowOffset)
@@ -235,10 +237,34 @@ public final class Code128Reader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, FormatException, ChecksumException {
+    int[] startPatternInfo = findStartPattern(row);
+    if (startPatternInfo == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return decodeRow(rowNumber, row, startPatternInfo, hints);
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    int[] startPatternInfo = findStartPattern(row);
+    if (startPatternInfo == null) {
+      return null;
+    }
+    try {
+      return decodeRow(rowNumber, row, startPatternInfo, hints);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  private Result decodeRow(int rowNumber,
+                           BitArray row,
+                           int[] startPatternInfo,
+                           Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException, ChecksumException {
 
     boolean convertFNC1 = hints != null && hints.containsKey(DecodeHintType.ASSUME_GS1);
 
-    int[] startPatternInfo = findStartPattern(row);
     int startCode = startPatternInfo[2];
     int codeSet;
     switch (startCode) {
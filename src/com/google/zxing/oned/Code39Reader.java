@@ -21,6 +21,7 @@ import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
@@ -98,13 +99,35 @@ public final class Code39Reader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    Arrays.fill(counters, 0);
+    int[] start = findAsteriskPattern(row, counters);
+    if (start == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return decodeRow(rowNumber, row, start);
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    Arrays.fill(counters, 0);
+    int[] start = findAsteriskPattern(row, counters);
+    if (start == null) {
+      return null;
+    }
+    try {
+      return decodeRow(rowNumber, row, start);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  private Result decodeRow(int rowNumber, BitArray row, int[] start)
+      throws NotFoundException, ChecksumException, FormatException {
 
     int[] theCounters = counters;
-    Arrays.fill(theCounters, 0);
     StringBuilder result = decodeRowResult;
     result.setLength(0);
 
-    int[] start = findAsteriskPattern(row, theCounters);
     // Read off white space    
     int nextStart = row.getNextSet(start[1]);
     int end = row.getSize();
@@ -176,7 +199,8 @@ public final class Code39Reader extends OneDReader {
 
   }
 
-  private static int[] findAsteriskPattern(BitArray row, int[] counters) throws NotFoundException {
+  // Like toNarrowWidePattern below, signals "not found" with a return value: null
+  private static int[] findAsteriskPattern(BitArray row, int[] counters) {
     int width = row.getSize();
     int rowOffset = row.getNextSet(0);
 
@@ -207,7 +231,7 @@ public final class Code39Reader extends OneDReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   // For efficiency, returns -1 on failure. Not throwing here saved as many as 700 exceptions
@@ -21,6 +21,7 @@ import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
@@ -65,8 +66,29 @@ public final class Code93Reader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    int[] start = findAsteriskPattern(row);
+    if (start == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return decodeRow(rowNumber, row, start);
+  }
 
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
     int[] start = findAsteriskPattern(row);
+    if (start == null) {
+      return null;
+    }
+    try {
+      return decodeRow(rowNumber, row, start);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  private Result decodeRow(int rowNumber, BitArray row, int[] start)
+      throws NotFoundException, ChecksumException, FormatException {
+
     // Read off white space    
     int nextStart = row.getNextSet(start[1]);
     int end = row.getSize();
@@ -123,7 +145,8 @@ public final class Code93Reader extends OneDReader {
 
   }
 
-  private int[] findAsteriskPattern(BitArray row) throws NotFoundException {
+  // Returns null if the row holds no asterisk; decodeRow() and tryDecodeRow() decide what that means
+  private int[] findAsteriskPattern(BitArray row) {
     int width = row.getSize();
     int rowOffset = row.getNextSet(0);
 
@@ -154,7 +177,7 @@ public final class Code93Reader extends OneDReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   private static int toPattern(int[] counters) {
@@ -16,9 +16,6 @@
 
 package com.google.zxing.oned;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Records EAN prefix to GS1 Member Organization, where the member organization
  * correlates strongly with a country. This is an imperfect means of identifying
@@ -26,146 +23,150 @@ import java.util.List;
  * <a href="http://en.wikipedia.org/wiki/List_of_GS1_country_codes">
  * http://en.wikipedia.org/wiki/List_of_GS1_country_codes</a>.
  *
+ * <p>The table is expanded once into an array indexed by the 3-digit prefix, so a lookup
+ * is a single array read. Finer-grained tables, such as GS1 company prefixes, are
+ * supplied separately as an {@link EANPrefixTable}.</p>
+ *
  * @author Sean Owen
  */
 final class EANManufacturerOrgSupport {
 
-  private final List<int[]> ranges = new ArrayList<int[]>();
-  private final List<String> countryIdentifiers = new ArrayList<String>();
+  private static final String[] COUNTRY_IDENTIFIERS = new String[1000];
+
+  static {
+    add(0, 19,    "US/CA");
+    add(30, 39,   "US");
+    add(60, 139,  "US/CA");
+    add(300, 379, "FR");
+    add(380, 380, "BG");
+    add(383, 383, "SI");
+    add(385, 385, "HR");
+    add(387, 387, "BA");
+    add(400, 440, "DE");
+    add(450, 459, "JP");
+    add(460, 469, "RU");
+    add(471, 471, "TW");
+    add(474, 474, "EE");
+    add(475, 475, "LV");
+    add(476, 476, "AZ");
+    add(477, 477, "LT");
+    add(478, 478, "UZ");
+    add(479, 479, "LK");
+    add(480, 480, "PH");
+    add(481, 481, "BY");
+    add(482, 482, "UA");
+    add(484, 484, "MD");
+    add(485, 485, "AM");
+    add(486, 486, "GE");
+    add(487, 487, "KZ");
+    add(489, 489, "HK");
+    add(490, 499, "JP");
+    add(500, 509, "GB");
+    add(520, 520, "GR");
+    add(528, 528, "LB");
+    add(529, 529, "CY");
+    add(531, 531, "MK");
+    add(535, 535, "MT");
+    add(539, 539, "IE");
+    add(540, 549, "BE/LU");
+    add(560, 560, "PT");
+    add(569, 569, "IS");
+    add(570, 579, "DK");
+    add(590, 590, "PL");
+    add(594, 594, "RO");
+    add(599, 599, "HU");
+    add(600, 601, "ZA");
+    add(603, 603, "GH");
+    add(608, 608, "BH");
+    add(609, 609, "MU");
+    add(611, 611, "MA");
+    add(613, 613, "DZ");
+    add(616, 616, "KE");
+    add(618, 618, "CI");
+    add(619, 619, "TN");
+    add(621, 621, "SY");
+    add(622, 622, "EG");
+    add(624, 624, "LY");
+    add(625, 625, "JO");
+    add(626, 626, "IR");
+    add(627, 627, "KW");
+    add(628, 628, "SA");
+    add(629, 629, "AE");
+    add(640, 649, "FI");
+    add(690, 695, "CN");
+    add(700, 709, "NO");
+    add(729, 729, "IL");
+    add(730, 739, "SE");
+    add(740, 740, "GT");
+    add(741, 741, "SV");
+    add(742, 742, "HN");
+    add(743, 743, "NI");
+    add(744, 744, "CR");
+    add(745, 745, "PA");
+    add(746, 746, "DO");
+    add(750, 750, "MX");
+    add(754, 755, "CA");
+    add(759, 759, "VE");
+    add(760, 769, "CH");
+    add(770, 770, "CO");
+    add(773, 773, "UY");
+    add(775, 775, "PE");
+    add(777, 777, "BO");
+    add(779, 779, "AR");
+    add(780, 780, "CL");
+    add(784, 784, "PY");
+    add(785, 785, "PE");
+    add(786, 786, "EC");
+    add(789, 790, "BR");
+    add(800, 839, "IT");
+    add(840, 849, "ES");
+    add(850, 850, "CU");
+    add(858, 858, "SK");
+    add(859, 859, "CZ");
+    add(860, 860, "YU");
+    add(865, 865, "MN");
+    add(867, 867, "KP");
+    add(868, 869, "TR");
+    add(870, 879, "NL");
+    add(880, 880, "KR");
+    add(885, 885, "TH");
+    add(888, 888, "SG");
+    add(890, 890, "IN");
+    add(893, 893, "VN");
+    add(896, 896, "PK");
+    add(899, 899, "ID");
+    add(900, 919, "AT");
+    add(930, 939, "AU");
+    add(940, 949, "AZ");
+    add(955, 955, "MY");
+    add(958, 958, "MO");
+  }
+
+  private EANManufacturerOrgSupport() {
+  }
 
-  String lookupCountryIdentifier(String productCode) {
-    initIfNeeded();
-    int prefix = Integer.parseInt(productCode.substring(0, 3));
-    int max = ranges.size();
-    for (int i = 0; i < max; i++) {
-      int[] range = ranges.get(i);
-      int start = range[0];
-      if (prefix < start) {
+  /**
+   * @return the member organization for the code's first three digits, or {@code null}
+   */
+  static String lookupCountryIdentifier(CharSequence productCode) {
+    if (productCode.length() < 3) {
+      return null;
+    }
+    int prefix = 0;
+    for (int i = 0; i < 3; i++) {
+      int digit = productCode.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
         return null;
       }
-      int end = range.length == 1 ? start : range[1];
-      if (prefix <= end) {
-        return countryIdentifiers.get(i);
-      }
+      prefix = prefix * 10 + digit;
     }
-    return null;
+    return COUNTRY_IDENTIFIERS[prefix];
   }
-  
-  private void add(int[] range, String id) {
-    ranges.add(range);
-    countryIdentifiers.add(id);
-  }
-  
-  private synchronized void initIfNeeded() {
-    if (!ranges.isEmpty()) {
-      return;
+
+  private static void add(int start, int end, String id) {
+    for (int prefix = start; prefix <= end; prefix++) {
+      COUNTRY_IDENTIFIERS[prefix] = id;
     }
-    add(new int[] {0,19},    "US/CA");
-    add(new int[] {30,39},   "US");
-    add(new int[] {60,139},  "US/CA");
-    add(new int[] {300,379}, "FR");
-    add(new int[] {380},     "BG");
-    add(new int[] {383},     "SI");
-    add(new int[] {385},     "HR");
-    add(new int[] {387},     "BA");
-    add(new int[] {400,440}, "DE");
-    add(new int[] {450,459}, "JP");
-    add(new int[] {460,469}, "RU");
-    add(new int[] {471},     "TW");
-    add(new int[] {474},     "EE");
-    add(new int[] {475},     "LV");
-    add(new int[] {476},     "AZ");
-    add(new int[] {477},     "LT");
-    add(new int[] {478},     "UZ");
-    add(new int[] {479},     "LK");
-    add(new int[] {480},     "PH");
-    add(new int[] {481},     "BY");
-    add(new int[] {482},     "UA");
-    add(new int[] {484},     "MD");
-    add(new int[] {485},     "AM");
-    add(new int[] {486},     "GE");
-    add(new int[] {487},     "KZ");
-    add(new int[] {489},     "HK");
-    add(new int[] {490,499}, "JP");    
-    add(new int[] {500,509}, "GB");    
-    add(new int[] {520},     "GR");
-    add(new int[] {528},     "LB");
-    add(new int[] {529},     "CY");
-    add(new int[] {531},     "MK");
-    add(new int[] {535},     "MT");
-    add(new int[] {539},     "IE");
-    add(new int[] {540,549}, "BE/LU");    
-    add(new int[] {560},     "PT");
-    add(new int[] {569},     "IS");
-    add(new int[] {570,579}, "DK");
-    add(new int[] {590},     "PL");
-    add(new int[] {594},     "RO");
-    add(new int[] {599},     "HU");
-    add(new int[] {600,601}, "ZA");
-    add(new int[] {603},     "GH");    
-    add(new int[] {608},     "BH");
-    add(new int[] {609},     "MU");
-    add(new int[] {611},     "MA");
-    add(new int[] {613},     "DZ");
-    add(new int[] {616},     "KE");
-    add(new int[] {618},     "CI");    
-    add(new int[] {619},     "TN");
-    add(new int[] {621},     "SY");
-    add(new int[] {622},     "EG");
-    add(new int[] {624},     "LY");
-    add(new int[] {625},     "JO");
-    add(new int[] {626},     "IR");
-    add(new int[] {627},     "KW");
-    add(new int[] {628},     "SA");
-    add(new int[] {629},     "AE");
-    add(new int[] {640,649}, "FI");
-    add(new int[] {690,695}, "CN");
-    add(new int[] {700,709}, "NO");
-    add(new int[] {729},     "IL");
-    add(new int[] {730,739}, "SE");
-    add(new int[] {740},     "GT");
-    add(new int[] {741},     "SV");
-    add(new int[] {742},     "HN");
-    add(new int[] {743},     "NI");
-    add(new int[] {744},     "CR");
-    add(new int[] {745},     "PA");
-    add(new int[] {746},     "DO");
-    add(new int[] {750},     "MX");
-    add(new int[] {754,755}, "CA");
-    add(new int[] {759},     "VE");
-    add(new int[] {760,769}, "CH");
-    add(new int[] {770},     "CO");
-    add(new int[] {773},     "UY");
-    add(new int[] {775},     "PE");
-    add(new int[] {777},     "BO");
-    add(new int[] {779},     "AR");
-    add(new int[] {780},     "CL");
-    add(new int[] {784},     "PY");
-    add(new int[] {785},     "PE");  
-    add(new int[] {786},     "EC");
-    add(new int[] {789,790}, "BR");
-    add(new int[] {800,839}, "IT");
-    add(new int[] {840,849}, "ES");
-    add(new int[] {850},     "CU");
-    add(new int[] {858},     "SK");
-    add(new int[] {859},     "CZ");
-    add(new int[] {860},     "YU");
-    add(new int[] {865},     "MN");    
-    add(new int[] {867},     "KP");
-    add(new int[] {868,869}, "TR");
-    add(new int[] {870,879}, "NL");
-    add(new int[] {880},     "KR");
-    add(new int[] {885},     "TH");
-    add(new int[] {888},     "SG");
-    add(new int[] {890},     "IN");
-    add(new int[] {893},     "VN");
-    add(new int[] {896},     "PK");    
-    add(new int[] {899},     "ID");
-    add(new int[] {900,919}, "AT");
-    add(new int[] {930,939}, "AU");
-    add(new int[] {940,949}, "AZ");
-    add(new int[] {955},     "MY");
-    add(new int[] {958},     "MO");
   }
 
 }
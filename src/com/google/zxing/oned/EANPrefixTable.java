@@ -0,0 +1,279 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps ranges of EAN-13 / UPC-A codes to labels, such as the owners of GS1 company prefixes.
+ * Pass one as {@link com.google.zxing.DecodeHintType#EAN_PREFIX_TABLE} and the label of the range
+ * containing each decoded product code is reported as
+ * {@link com.google.zxing.ResultMetadataType#POSSIBLE_COMPANY}.
+ *
+ * <p>A code is keyed by its first 12 digits as a GTIN-13, without the check digit, so the prefix
+ * "5012345" covers 501234500000 through 501234599999. Tables are loaded with
+ * {@link #read(InputStream)} from a compact binary form that {@link #write(OutputStream)}
+ * produces: the magic bytes "EANP", a version byte, the distinct labels, then each range as the
+ * gap after the previous one, its span and its label's index, all as unsigned varints.</p>
+ */
+public final class EANPrefixTable {
+
+  private static final int MAGIC = ('E' << 24) | ('A' << 16) | ('N' << 8) | 'P';
+  private static final int VERSION = 1;
+  private static final int KEY_DIGITS = 12;
+  private static final long MAX_KEY = 999999999999L;
+
+  private final long[] starts;
+  private final long[] ends;
+  private final int[] labelIndices;
+  private final String[] labels;
+
+  private EANPrefixTable(long[] starts, long[] ends, int[] labelIndices, String[] labels) {
+    this.starts = starts;
+    this.ends = ends;
+    this.labelIndices = labelIndices;
+    this.labels = labels;
+  }
+
+  /**
+   * @param labelsByPrefix labels keyed by digit prefix of between 1 and 12 digits. Where prefixes
+   *  nest, the longer one wins within its range.
+   * @throws IllegalArgumentException if a prefix is empty, too long or not all digits, or a label
+   *  is {@code null}
+   */
+  public static EANPrefixTable fromPrefixes(Map<String,String> labelsByPrefix) {
+    // Boundaries at which the label changes; nested prefixes override the range around them
+    TreeMap<Long,String> boundaries = new TreeMap<Long,String>();
+    List<String> prefixes = new ArrayList<String>(labelsByPrefix.keySet());
+    sortByLength(prefixes);
+    for (String prefix : prefixes) {
+      long digits = prefix.length() > KEY_DIGITS ? -1L : parseDigits(prefix, prefix.length());
+      if (prefix.length() == 0 || digits < 0L) {
+        throw new IllegalArgumentException("Bad prefix: " + prefix);
+      }
+      String label = labelsByPrefix.get(prefix);
+      if (label == null) {
+        throw new IllegalArgumentException("No label for prefix: " + prefix);
+      }
+      long scale = 1L;
+      for (int i = prefix.length(); i < KEY_DIGITS; i++) {
+        scale *= 10L;
+      }
+      long start = digits * scale;
+      long end = start + scale - 1L;
+      // What was in effect just past the end still applies after it
+      Map.Entry<Long,String> after = boundaries.floorEntry(end + 1L);
+      String labelAfter = after == null ? null : after.getValue();
+      boundaries.subMap(start, true, end, true).clear();
+      boundaries.put(start, label);
+      if (end < MAX_KEY && !boundaries.containsKey(end + 1L)) {
+        boundaries.put(end + 1L, labelAfter);
+      }
+    }
+
+    List<long[]> ranges = new ArrayList<long[]>();
+    List<String> rangeLabels = new ArrayList<String>();
+    Map.Entry<Long,String> boundary = boundaries.firstEntry();
+    while (boundary != null) {
+      Map.Entry<Long,String> next = boundaries.higherEntry(boundary.getKey());
+      if (boundary.getValue() != null) {
+        long end = next == null ? MAX_KEY : next.getKey() - 1L;
+        int last = ranges.size() - 1;
+        // Merge adjacent ranges with the same label, as nesting can split one in two
+        if (last >= 0 && ranges.get(last)[1] + 1L == boundary.getKey() &&
+            rangeLabels.get(last).equals(boundary.getValue())) {
+          ranges.get(last)[1] = end;
+        } else {
+          ranges.add(new long[] {boundary.getKey(), end});
+          rangeLabels.add(boundary.getValue());
+        }
+      }
+      boundary = next;
+    }
+
+    int size = ranges.size();
+    long[] starts = new long[size];
+    long[] ends = new long[size];
+    int[] labelIndices = new int[size];
+    List<String> labels = new ArrayList<String>();
+    Map<String,Integer> labelIndex = new HashMap<String,Integer>();
+    for (int i = 0; i < size; i++) {
+      starts[i] = ranges.get(i)[0];
+      ends[i] = ranges.get(i)[1];
+      String label = rangeLabels.get(i);
+      Integer index = labelIndex.get(label);
+      if (index == null) {
+        index = labels.size();
+        labelIndex.put(label, index);
+        labels.add(label);
+      }
+      labelIndices[i] = index;
+    }
+    return new EANPrefixTable(starts, ends, labelIndices, labels.toArray(new String[labels.size()]));
+  }
+
+  /**
+   * @throws IOException if the stream can't be read or isn't a valid table
+   */
+  public static EANPrefixTable read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC || data.readUnsignedByte() != VERSION) {
+      throw new IOException("Not a prefix table");
+    }
+    String[] labels = new String[readCount(data)];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = data.readUTF();
+    }
+    int size = readCount(data);
+    long[] starts = new long[size];
+    long[] ends = new long[size];
+    int[] labelIndices = new int[size];
+    long previousEnd = -1L;
+    for (int i = 0; i < size; i++) {
+      starts[i] = previousEnd + 1L + readVarint(data);
+      ends[i] = starts[i] + readVarint(data);
+      long labelIndex = readVarint(data);
+      if (ends[i] > MAX_KEY || labelIndex >= labels.length) {
+        throw new IOException("Bad prefix range");
+      }
+      labelIndices[i] = (int) labelIndex;
+      previousEnd = ends[i];
+    }
+    return new EANPrefixTable(starts, ends, labelIndices, labels);
+  }
+
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeByte(VERSION);
+    writeVarint(data, labels.length);
+    for (String label : labels) {
+      data.writeUTF(label);
+    }
+    writeVarint(data, starts.length);
+    long previousEnd = -1L;
+    for (int i = 0; i < starts.length; i++) {
+      writeVarint(data, starts[i] - previousEnd - 1L);
+      writeVarint(data, ends[i] - starts[i]);
+      writeVarint(data, labelIndices[i]);
+      previousEnd = ends[i];
+    }
+    data.flush();
+  }
+
+  /**
+   * @param productCode a 13-digit EAN-13 or 12-digit UPC-A code, including its check digit
+   * @return the label of the range containing the code, or {@code null} if none does or the code
+   *  isn't one of those
+   */
+  public String lookup(CharSequence productCode) {
+    int length = productCode.length();
+    if (length != KEY_DIGITS && length != KEY_DIGITS + 1) {
+      return null;
+    }
+    // A UPC-A code is an EAN-13 code with a leading 0, which doesn't change the key's value
+    long key = parseDigits(productCode, length - 1);
+    if (key < 0L) {
+      return null;
+    }
+    int low = 0;
+    int high = starts.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (key < starts[mid]) {
+        high = mid - 1;
+      } else if (key > ends[mid]) {
+        low = mid + 1;
+      } else {
+        return labels[labelIndices[mid]];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the number of distinct ranges in the table
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * @return the value of the first {@code count} characters as decimal digits, or -1 if they aren't
+   */
+  private static long parseDigits(CharSequence digits, int count) {
+    long value = 0L;
+    for (int i = 0; i < count; i++) {
+      int digit = digits.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1L;
+      }
+      value = value * 10L + digit;
+    }
+    return value;
+  }
+
+  private static void sortByLength(List<String> prefixes) {
+    Collections.sort(prefixes, new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        return a.length() - b.length();
+      }
+    });
+  }
+
+  private static int readCount(DataInputStream in) throws IOException {
+    long count = readVarint(in);
+    if (count > Integer.MAX_VALUE) {
+      throw new IOException("Bad count");
+    }
+    return (int) count;
+  }
+
+  private static long readVarint(DataInputStream in) throws IOException {
+    long value = 0L;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Bad varint");
+  }
+
+  private static void writeVarint(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0L) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+}
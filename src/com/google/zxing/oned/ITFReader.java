@@ -20,6 +20,7 @@ import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
@@ -83,9 +84,28 @@ public final class ITFReader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws FormatException, NotFoundException {
+    return decodeRow(rowNumber, row, decodeStart(row), hints);
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    int[] startRange = locateStart(row);
+    if (startRange == null) {
+      return null;
+    }
+    try {
+      return decodeRow(rowNumber, row, startRange, hints);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  private Result decodeRow(int rowNumber,
+                           BitArray row,
+                           int[] startRange,
+                           Map<DecodeHintType,?> hints) throws FormatException, NotFoundException {
 
-    // Find out where the Middle section (payload) starts & ends
-    int[] startRange = decodeStart(row);
+    // Find out where the Middle section (payload) ends
     int[] endRange = decodeEnd(row);
 
     StringBuilder result = new StringBuilder(20);
@@ -174,17 +194,33 @@ public final class ITFReader extends OneDReader {
    * @throws NotFoundException
    */
   int[] decodeStart(BitArray row) throws NotFoundException {
-    int endStart = skipWhiteSpace(row);
-    int[] startPattern = findGuardPattern(row, endStart, START_PATTERN);
+    int[] startPattern = locateStart(row);
+    if (startPattern == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return startPattern;
+  }
+
+  /**
+   * Like {@link #decodeStart(BitArray)}, but returns null instead of throwing, since
+   * most scanned rows contain no ITF start block at all.
+   */
+  private int[] locateStart(BitArray row) {
+    int endStart = row.getNextSet(0);
+    if (endStart == row.getSize()) {
+      return null;
+    }
+    int[] startPattern = locateGuardPattern(row, endStart, START_PATTERN);
+    if (startPattern == null) {
+      return null;
+    }
 
     // Determine the width of a narrow line in pixels. We can do this by
     // getting the width of the start pattern and dividing by 4 because its
     // made up of 4 narrow lines.
     this.narrowLineWidth = (startPattern[1] - startPattern[0]) >> 2;
 
-    validateQuietZone(row, startPattern[0]);
-
-    return startPattern;
+    return hasQuietZone(row, startPattern[0]) ? startPattern : null;
   }
 
   /**
@@ -203,7 +239,13 @@ public final class ITFReader extends OneDReader {
    * @throws NotFoundException if the quiet zone cannot be found, a ReaderException is thrown.
    */
   private void validateQuietZone(BitArray row, int startPattern) throws NotFoundException {
+    if (!hasQuietZone(row, startPattern)) {
+      // Unable to find the necessary number of quiet zone pixels.
+      throw NotFoundException.getNotFoundInstance();
+    }
+  }
 
+  private boolean hasQuietZone(BitArray row, int startPattern) {
     int quietCount = this.narrowLineWidth * 10;  // expect to find this many pixels of quiet zone
 
     for (int i = startPattern - 1; quietCount > 0 && i >= 0; i--) {
@@ -212,10 +254,7 @@ public final class ITFReader extends OneDReader {
       }
       quietCount--;
     }
-    if (quietCount != 0) {
-      // Unable to find the necessary number of quiet zone pixels.
-      throw NotFoundException.getNotFoundInstance();
-    }
+    return quietCount == 0;
   }
 
   /**
@@ -283,6 +322,14 @@ public final class ITFReader extends OneDReader {
   private static int[] findGuardPattern(BitArray row,
                                         int rowOffset,
                                         int[] pattern) throws NotFoundException {
+    int[] range = locateGuardPattern(row, rowOffset, pattern);
+    if (range == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return range;
+  }
+
+  private static int[] locateGuardPattern(BitArray row, int rowOffset, int[] pattern) {
 
     // TODO: This is very similar to implementation in UPCEANReader. Consider if they can be
     // merged to a single method.
@@ -313,7 +360,7 @@ public final class ITFReader extends OneDReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   /**
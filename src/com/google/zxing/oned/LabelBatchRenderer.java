@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.MonochromeImageWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders many one-dimensional barcode labels of one format and size straight to PNG or PBM.
+ * Each label's bars are laid out once into a single row, which is streamed out as every row of
+ * the image; no {@link com.google.zxing.common.BitMatrix} or ARGB image is built, and each
+ * worker reuses its row and image buffers from label to label. The images are the same as
+ * rendering the {@link com.google.zxing.common.BitMatrix} from the format's writer.
+ */
+public final class LabelBatchRenderer {
+
+  /**
+   * Receives the rendered images.
+   */
+  public interface Sink {
+
+    /**
+     * @return where to write the image for {@code contents}, the {@code index}th in the batch. It
+     *  is closed once the image is written. Called from the rendering threads.
+     */
+    OutputStream open(int index, String contents) throws IOException;
+
+  }
+
+  private final OneDimensionalCodeWriter writer;
+  private final boolean upcA;
+  private final int width;
+  private final int height;
+  private final int sidesMargin;
+  private final MonochromeImageWriter.Format imageFormat;
+
+  /**
+   * @param format one of the one-dimensional formats that can be written
+   * @param width minimum width; as for {@link OneDimensionalCodeWriter}, a label is widened if
+   *  its bars and quiet zone don't fit
+   * @param height label height
+   * @param hints encoding hints; {@link EncodeHintType#MARGIN} is used
+   * @param imageFormat what to write
+   */
+  public LabelBatchRenderer(BarcodeFormat format,
+                            int width,
+                            int height,
+                            Map<EncodeHintType,?> hints,
+                            MonochromeImageWriter.Format imageFormat) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Negative size is not allowed. Input: "
+                                             + width + 'x' + height);
+    }
+    // As UPCAWriter does, a UPC-A code is written as an EAN-13 code, once checked and prefixed
+    upcA = format == BarcodeFormat.UPC_A;
+    switch (format) {
+      case EAN_8:
+        writer = new EAN8Writer();
+        break;
+      case EAN_13:
+      case UPC_A:
+        writer = new EAN13Writer();
+        break;
+      case CODE_39:
+        writer = new Code39Writer();
+        break;
+      case CODE_128:
+        writer = new Code128Writer();
+        break;
+      case ITF:
+        writer = new ITFWriter();
+        break;
+      case CODABAR:
+        writer = new CodaBarWriter();
+        break;
+      default:
+        throw new IllegalArgumentException("No one-dimensional writer for " + format);
+    }
+    this.width = width;
+    this.height = Math.max(1, height);
+    sidesMargin = writer.getSidesMargin(hints);
+    this.imageFormat = imageFormat;
+  }
+
+  /**
+   * Renders the labels in order on the calling thread.
+   *
+   * @return indices of contents that the format can't encode, which are skipped
+   * @throws IOException if writing any image fails
+   */
+  public List<Integer> renderAll(List<String> contents, Sink sink) throws IOException {
+    List<Integer> rejected = new ArrayList<Integer>();
+    new Worker(contents, sink, new AtomicInteger(), rejected).call();
+    return rejected;
+  }
+
+  /**
+   * Renders the labels on up to {@code parallelism} threads from {@code workers}, which the caller
+   * owns. Returns once all are written, or the first failure has stopped the others.
+   *
+   * @return indices of contents that the format can't encode, which are skipped, in order
+   * @throws IOException if writing any image fails
+   */
+  public List<Integer> renderAll(List<String> contents,
+                                 Sink sink,
+                                 ExecutorService workers,
+                                 int parallelism) throws IOException {
+    AtomicInteger next = new AtomicInteger();
+    List<Integer> rejected = Collections.synchronizedList(new ArrayList<Integer>());
+    List<Future<Void>> running = new ArrayList<Future<Void>>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      running.add(workers.submit(new Worker(contents, sink, next, rejected)));
+    }
+    try {
+      for (Future<Void> worker : running) {
+        worker.get();
+      }
+    } catch (InterruptedException ie) {
+      throw new InterruptedIOException();
+    } catch (ExecutionException ee) {
+      Throwable cause = ee.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      // Stop the rest at their next label
+      next.set(contents.size());
+      for (Future<Void> worker : running) {
+        worker.cancel(false);
+      }
+    }
+    Collections.sort(rejected);
+    return rejected;
+  }
+
+  /**
+   * Takes labels from a shared counter until there are none left, with its own buffers.
+   */
+  private final class Worker implements Callable<Void> {
+
+    private final List<String> contents;
+    private final Sink sink;
+    private final AtomicInteger next;
+    private final List<Integer> rejected;
+    private final MonochromeImageWriter imageWriter;
+    private BitArray row;
+
+    Worker(List<String> contents, Sink sink, AtomicInteger next, List<Integer> rejected) {
+      this.contents = contents;
+      this.sink = sink;
+      this.next = next;
+      this.rejected = rejected;
+      imageWriter = new MonochromeImageWriter(imageFormat);
+    }
+
+    @Override
+    public Void call() throws IOException {
+      int index;
+      while ((index = next.getAndIncrement()) < contents.size()) {
+        String text = contents.get(index);
+        boolean[] code;
+        try {
+          if (text.length() == 0) {
+            throw new IllegalArgumentException("Found empty contents");
+          }
+          code = writer.encode(upcA ? UPCAWriter.preencode(text) : text);
+        } catch (IllegalArgumentException iae) {
+          rejected.add(index);
+          continue;
+        }
+        int outputWidth = OneDimensionalCodeWriter.getOutputWidth(code, width, sidesMargin);
+        if (row == null || row.getSize() < outputWidth) {
+          row = new BitArray(outputWidth);
+        } else {
+          row.clear();
+        }
+        OneDimensionalCodeWriter.renderRow(code, outputWidth, sidesMargin, row);
+        OutputStream out = sink.open(index, text);
+        try {
+          imageWriter.begin(out, outputWidth, height);
+          imageWriter.writeRows(row, height);
+          imageWriter.end();
+        } finally {
+          out.close();
+        }
+      }
+      return null;
+    }
+
+  }
+
+}
@@ -18,9 +18,9 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeListener;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
-import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.common.BitArray;
 import com.google.zxing.oned.rss.RSS14Reader;
@@ -91,15 +91,27 @@ public final class MultiFormatOneDReader extends OneDReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    Result result = tryDecodeRow(rowNumber, row, hints);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    DecodeListener listener = hints == null ?
+        null : (DecodeListener) hints.get(DecodeHintType.NEED_DECODE_LISTENER);
     for (OneDReader reader : readers) {
-      try {
-        return reader.decodeRow(rowNumber, row, hints);
-      } catch (ReaderException re) {
-        // continue
+      Result result = reader.tryDecodeRow(rowNumber, row, hints);
+      if (listener != null) {
+        listener.readerAttempted(reader, result != null);
+      }
+      if (result != null) {
+        return result;
       }
     }
-
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   @Override
@@ -70,8 +70,20 @@ public final class MultiFormatUPCEANReader extends OneDReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    Result result = tryDecodeRow(rowNumber, row, hints);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
     // Compute this location once and reuse it on multiple implementations
-    int[] startGuardPattern = UPCEANReader.findStartGuardPattern(row);
+    int[] startGuardPattern = UPCEANReader.locateStartGuardPattern(row);
+    if (startGuardPattern == null) {
+      return null;
+    }
     for (UPCEANReader reader : readers) {
       Result result;
       try {
@@ -111,7 +123,7 @@ public final class MultiFormatUPCEANReader extends OneDReader {
       return result;
     }
 
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   @Override
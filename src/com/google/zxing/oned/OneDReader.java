@@ -18,14 +18,17 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeListener;
+import com.google.zxing.DecodeStage;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
 import com.google.zxing.ResultPoint;
+import com.google.zxing.TryReader;
 import com.google.zxing.common.BitArray;
 
 import java.util.Arrays;
@@ -39,7 +42,7 @@ import java.util.Map;
  * @author dswitkin@google.com (Daniel Switkin)
  * @author Sean Owen
  */
-public abstract class OneDReader implements Reader {
+public abstract class OneDReader implements TryReader {
 
   protected static final int INTEGER_MATH_SHIFT = 8;
   protected static final int PATTERN_MATCH_RESULT_SCALE_FACTOR = 1 << INTEGER_MATH_SHIFT;
@@ -53,35 +56,47 @@ public abstract class OneDReader implements Reader {
   @Override
   public Result decode(BinaryBitmap image,
                        Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
-    try {
-      return doDecode(image, hints);
-    } catch (NotFoundException nfe) {
-      boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
-      if (tryHarder && image.isRotateSupported()) { //if can be rotated. 
-        BinaryBitmap rotatedImage = image.rotateCounterClockwise();
-        Result result = doDecode(rotatedImage, hints);
-        // Record that we found it rotated 90 degrees CCW / 270 degrees CW
-        Map<ResultMetadataType,?> metadata = result.getResultMetadata();
-        int orientation = 270;
-        if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
-          // But if we found it reversed in doDecode(), add in that result here:
-          orientation = (orientation +
-              (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
-        }
-        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
-        // Update result points
-        ResultPoint[] points = result.getResultPoints();
-        if (points != null) {
-          int height = rotatedImage.getHeight();
-          for (int i = 0; i < points.length; i++) {
-            points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
-          }
-        }
-        return result;
-      } else {
-        throw nfe;
+    Result result = tryDecode(image, hints);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  @Override
+  public Result tryDecode(BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    Result result = doDecode(image, hints);
+    if (result != null) {
+      return result;
+    }
+    boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+    if (!tryHarder || !image.isRotateSupported() ||
+        DecodeDeadline.isExpired(DecodeDeadline.fromHints(hints))) {
+      return null;
+    }
+    BinaryBitmap rotatedImage = image.rotateCounterClockwise();
+    result = doDecode(rotatedImage, hints);
+    if (result == null) {
+      return null;
+    }
+    // Record that we found it rotated 90 degrees CCW / 270 degrees CW
+    Map<ResultMetadataType,?> metadata = result.getResultMetadata();
+    int orientation = 270;
+    if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
+      // But if we found it reversed in doDecode(), add in that result here:
+      orientation = (orientation +
+          (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
+    }
+    result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+    // Update result points
+    ResultPoint[] points = result.getResultPoints();
+    if (points != null) {
+      int height = rotatedImage.getHeight();
+      for (int i = 0; i < points.length; i++) {
+        points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
       }
     }
+    return result;
   }
 
   @Override
@@ -100,11 +115,9 @@ public abstract class OneDReader implements Reader {
    *
    * @param image The image to decode
    * @param hints Any hints that were requested
-   * @return The contents of the decoded barcode
-   * @throws NotFoundException Any spontaneous errors which occur
+   * @return The contents of the decoded barcode, or null if no row decoded
    */
-  private Result doDecode(BinaryBitmap image,
-                          Map<DecodeHintType,?> hints) throws NotFoundException {
+  private Result doDecode(BinaryBitmap image, Map<DecodeHintType,?> hints) {
     int width = image.getWidth();
     int height = image.getHeight();
     BitArray row = new BitArray(width);
@@ -119,7 +132,18 @@ public abstract class OneDReader implements Reader {
       maxLines = 15; // 15 rows spaced 1/32 apart is roughly the middle half of the image
     }
 
+    // Timing is only taken when someone asked for it; System.nanoTime() is not free per row
+    DecodeListener listener = hints == null ?
+        null : (DecodeListener) hints.get(DecodeHintType.NEED_DECODE_LISTENER);
+    long binarizeNanos = 0L;
+    long detectNanos = 0L;
+    int rowsScanned = 0;
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+
     for (int x = 0; x < maxLines; x++) {
+      if (deadline != null && deadline.isExpired()) {
+        break;
+      }
 
       // Scanning from the middle out. Determine which row we're looking at next:
       int rowStepsAboveOrBelow = (x + 1) >> 1;
@@ -131,11 +155,17 @@ public abstract class OneDReader implements Reader {
       }
 
       // Estimate black point for this row and load it:
+      long start = listener == null ? 0L : System.nanoTime();
       try {
         row = image.getBlackRow(rowNumber, row);
       } catch (NotFoundException ignored) {
         continue;
+      } finally {
+        if (listener != null) {
+          binarizeNanos += System.nanoTime() - start;
+        }
       }
+      rowsScanned++;
 
       // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
       // handle decoding upside down barcodes.
@@ -153,9 +183,21 @@ public abstract class OneDReader implements Reader {
             hints = newHints;
           }
         }
-        try {
-          // Look for a barcode
-          Result result = decodeRow(rowNumber, row, hints);
+        // Look for a barcode
+        if (listener != null) {
+          start = System.nanoTime();
+        }
+        Result result = tryDecodeRow(rowNumber, row, hints);
+        if (listener != null) {
+          long elapsed = System.nanoTime() - start;
+          if (result == null) {
+            detectNanos += elapsed;
+          } else {
+            reportScan(listener, binarizeNanos, detectNanos, rowsScanned);
+            listener.stageFinished(DecodeStage.SYMBOL_DECODE, elapsed);
+          }
+        }
+        if (result != null) {
           // We found our barcode
           if (attempt == 1) {
             // But it was upside down, so note that
@@ -168,13 +210,24 @@ public abstract class OneDReader implements Reader {
             }
           }
           return result;
-        } catch (ReaderException re) {
-          // continue -- just couldn't decode this row
         }
+        // otherwise continue -- just couldn't decode this row
       }
     }
 
-    throw NotFoundException.getNotFoundInstance();
+    if (listener != null) {
+      reportScan(listener, binarizeNanos, detectNanos, rowsScanned);
+    }
+    return null;
+  }
+
+  private static void reportScan(DecodeListener listener,
+                                 long binarizeNanos,
+                                 long detectNanos,
+                                 int rowsScanned) {
+    listener.stageFinished(DecodeStage.BINARIZATION, binarizeNanos);
+    listener.stageFinished(DecodeStage.DETECTION, detectNanos);
+    listener.rowsScanned(rowsScanned);
   }
 
   /**
@@ -300,4 +353,23 @@ public abstract class OneDReader implements Reader {
   public abstract Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException;
 
+  /**
+   * <p>Like {@link #decodeRow(int, BitArray, Map)}, but returns null rather than throwing
+   * when the row holds no barcode. This is what {@link #doDecode} calls for every scanned row,
+   * so readers that can reject a row cheaply (typically when no start pattern is present)
+   * should override it. The default simply catches the exception.</p>
+   *
+   * @param rowNumber row number from top of the row
+   * @param row the black/white pixel data of the row
+   * @param hints decode hints
+   * @return {@link Result} containing encoded string and start/end of barcode, or null
+   */
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    try {
+      return decodeRow(rowNumber, row, hints);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
 }
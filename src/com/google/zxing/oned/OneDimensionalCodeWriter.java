@@ -20,6 +20,7 @@ import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.Writer;
 import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
 import com.google.zxing.common.BitMatrix;
 
 import java.util.Map;
@@ -59,38 +60,67 @@ public abstract class OneDimensionalCodeWriter implements Writer {
                                              + width + 'x' + height);
     }
 
-    int sidesMargin = getDefaultMargin();
+    boolean[] code = encode(contents);
+    return renderResult(code, width, height, getSidesMargin(hints));
+  }
+
+  int getSidesMargin(Map<EncodeHintType,?> hints) {
     if (hints != null) {
       Integer sidesMarginInt = (Integer) hints.get(EncodeHintType.MARGIN);
       if (sidesMarginInt != null) {
-        sidesMargin = sidesMarginInt;
+        return sidesMarginInt;
       }
     }
-
-    boolean[] code = encode(contents);
-    return renderResult(code, width, height, sidesMargin);
+    return getDefaultMargin();
   }
 
   /**
    * @return a byte array of horizontal pixels (0 = white, 1 = black)
    */
   private static BitMatrix renderResult(boolean[] code, int width, int height, int sidesMargin) {
-    int inputWidth = code.length;
-    // Add quiet zone on both sides.
-    int fullWidth = inputWidth + sidesMargin;
-    int outputWidth = Math.max(width, fullWidth);
+    int outputWidth = getOutputWidth(code, width, sidesMargin);
     int outputHeight = Math.max(1, height);
 
-    int multiple = outputWidth / fullWidth;
+    // Every row of a one-dimensional barcode is the same
+    BitArray row = new BitArray(outputWidth);
+    renderRow(code, outputWidth, sidesMargin, row);
+    BitMatrix output = new BitMatrix(outputWidth, outputHeight);
+    for (int y = 0; y < outputHeight; y++) {
+      output.setRow(y, row);
+    }
+    return output;
+  }
+
+  /**
+   * @return width of the rendered barcode: the requested width, or the least that fits the
+   *  code and its quiet zone
+   */
+  static int getOutputWidth(boolean[] code, int width, int sidesMargin) {
+    // Add quiet zone on both sides.
+    return Math.max(width, code.length + sidesMargin);
+  }
+
+  /**
+   * Sets the bars of {@code code} in a cleared row, each module scaled to the largest whole number
+   * of pixels that fits and the whole centred in {@code outputWidth}.
+   */
+  static void renderRow(boolean[] code, int outputWidth, int sidesMargin, BitArray row) {
+    int inputWidth = code.length;
+    int multiple = outputWidth / (inputWidth + sidesMargin);
     int leftPadding = (outputWidth - (inputWidth * multiple)) / 2;
 
-    BitMatrix output = new BitMatrix(outputWidth, outputHeight);
-    for (int inputX = 0, outputX = leftPadding; inputX < inputWidth; inputX++, outputX += multiple) {
+    int inputX = 0;
+    while (inputX < inputWidth) {
       if (code[inputX]) {
-        output.setRegion(outputX, 0, multiple, outputHeight);
+        int barStart = inputX;
+        do {
+          inputX++;
+        } while (inputX < inputWidth && code[inputX]);
+        row.setRange(leftPadding + barStart * multiple, leftPadding + inputX * multiple);
+      } else {
+        inputX++;
       }
     }
-    return output;
   }
 
 
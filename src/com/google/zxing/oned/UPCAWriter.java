@@ -55,7 +55,7 @@ public final class UPCAWriter implements Writer {
    * Transform a UPC-A code into the equivalent EAN-13 code, and add a check digit if it is not
    * already present.
    */
-  private static String preencode(String contents) {
+  static String preencode(String contents) {
     int length = contents.length();
     if (length == 11) {
       // No check digit present, calculate it and add it
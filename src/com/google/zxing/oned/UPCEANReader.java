@@ -93,22 +93,35 @@ public abstract class UPCEANReader extends OneDReader {
 
   private final StringBuilder decodeRowStringBuffer;
   private final UPCEANExtensionSupport extensionReader;
-  private final EANManufacturerOrgSupport eanManSupport;
 
   protected UPCEANReader() {
     decodeRowStringBuffer = new StringBuilder(20);
     extensionReader = new UPCEANExtensionSupport();
-    eanManSupport = new EANManufacturerOrgSupport();
   }
 
   static int[] findStartGuardPattern(BitArray row) throws NotFoundException {
+    int[] startRange = locateStartGuardPattern(row);
+    if (startRange == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return startRange;
+  }
+
+  /**
+   * Like {@link #findStartGuardPattern(BitArray)}, but returns null when the row has no start
+   * guard pattern. Most rows of most frames end up here, so this must not throw.
+   */
+  static int[] locateStartGuardPattern(BitArray row) {
     boolean foundStart = false;
     int[] startRange = null;
     int nextStart = 0;
     int[] counters = new int[START_END_PATTERN.length];
     while (!foundStart) {
       Arrays.fill(counters, 0, START_END_PATTERN.length, 0);
-      startRange = findGuardPattern(row, nextStart, false, START_END_PATTERN, counters);
+      startRange = locateGuardPattern(row, nextStart, false, START_END_PATTERN, counters);
+      if (startRange == null) {
+        return null;
+      }
       int start = startRange[0];
       nextStart = startRange[1];
       // Make sure there is a quiet zone at least as big as the start pattern before the barcode.
@@ -128,6 +141,19 @@ public abstract class UPCEANReader extends OneDReader {
     return decodeRow(rowNumber, row, findStartGuardPattern(row), hints);
   }
 
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    int[] startGuardRange = locateStartGuardPattern(row);
+    if (startGuardRange == null) {
+      return null;
+    }
+    try {
+      return decodeRow(rowNumber, row, startGuardRange, hints);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
   /**
    * <p>Like {@link #decodeRow(int, BitArray, java.util.Map)}, but
    * allows caller to inform method about where the UPC/EAN start pattern is
@@ -200,10 +226,18 @@ public abstract class UPCEANReader extends OneDReader {
     }
 
     if (format == BarcodeFormat.EAN_13 || format == BarcodeFormat.UPC_A) {
-      String countryID = eanManSupport.lookupCountryIdentifier(resultString);
+      String countryID = EANManufacturerOrgSupport.lookupCountryIdentifier(resultString);
       if (countryID != null) {
         decodeResult.putMetadata(ResultMetadataType.POSSIBLE_COUNTRY, countryID);
       }
+      // The hint is typed Object, so a value from an intent may be anything
+      Object prefixTable = hints == null ? null : hints.get(DecodeHintType.EAN_PREFIX_TABLE);
+      if (prefixTable instanceof EANPrefixTable) {
+        String company = ((EANPrefixTable) prefixTable).lookup(resultString);
+        if (company != null) {
+          decodeResult.putMetadata(ResultMetadataType.POSSIBLE_COMPANY, company);
+        }
+      }
     }
 
     return decodeResult;
@@ -257,7 +291,11 @@ public abstract class UPCEANReader extends OneDReader {
                                 int rowOffset,
                                 boolean whiteFirst,
                                 int[] pattern) throws NotFoundException {
-    return findGuardPattern(row, rowOffset, whiteFirst, pattern, new int[pattern.length]);
+    int[] range = locateGuardPattern(row, rowOffset, whiteFirst, pattern, new int[pattern.length]);
+    if (range == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return range;
   }
 
   /**
@@ -268,14 +306,14 @@ public abstract class UPCEANReader extends OneDReader {
    * @param pattern pattern of counts of number of black and white pixels that are being
    * searched for as a pattern
    * @param counters array of counters, as long as pattern, to re-use
-   * @return start/end horizontal offset of guard pattern, as an array of two ints
-   * @throws NotFoundException if pattern is not found
+   * @return start/end horizontal offset of guard pattern, as an array of two ints, or null
+   *  if pattern is not found
    */
-  private static int[] findGuardPattern(BitArray row,
-                                        int rowOffset,
-                                        boolean whiteFirst,
-                                        int[] pattern,
-                                        int[] counters) throws NotFoundException {
+  private static int[] locateGuardPattern(BitArray row,
+                                          int rowOffset,
+                                          boolean whiteFirst,
+                                          int[] pattern,
+                                          int[] counters) {
     int patternLength = pattern.length;
     int width = row.getSize();
     boolean isWhite = whiteFirst;
@@ -302,7 +340,7 @@ public abstract class UPCEANReader extends OneDReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   /**
@@ -65,6 +65,15 @@ public final class RSS14Reader extends AbstractRSSReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    Result result = tryDecodeRow(rowNumber, row, hints);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
     Pair leftPair = decodePair(row, false, rowNumber, hints);
     addOrTally(possibleLeftPairs, leftPair);
     row.reverse();
@@ -86,7 +95,7 @@ public final class RSS14Reader extends AbstractRSSReader {
         }
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   private static void addOrTally(Collection<Pair> possiblePairs, Pair pair) {
@@ -163,6 +172,9 @@ public final class RSS14Reader extends AbstractRSSReader {
   private Pair decodePair(BitArray row, boolean right, int rowNumber, Map<DecodeHintType,?> hints) {
     try {
       int[] startEnd = findFinderPattern(row, 0, right);
+      if (startEnd == null) {
+        return null;
+      }
       FinderPattern pattern = parseFoundFinderPattern(row, rowNumber, right, startEnd);
 
       ResultPointCallback resultPointCallback = hints == null ? null :
@@ -284,8 +296,8 @@ public final class RSS14Reader extends AbstractRSSReader {
 
   }
 
-  private int[] findFinderPattern(BitArray row, int rowOffset, boolean rightFinderPattern)
-      throws NotFoundException {
+  // Returns null when no finder pattern is found; this is the usual outcome on an empty row
+  private int[] findFinderPattern(BitArray row, int rowOffset, boolean rightFinderPattern) {
 
     int[] counters = getDecodeFinderCounters();
     counters[0] = 0;
@@ -327,7 +339,7 @@ public final class RSS14Reader extends AbstractRSSReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
 
   }
 
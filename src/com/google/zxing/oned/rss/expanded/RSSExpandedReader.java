@@ -27,6 +27,7 @@
 package com.google.zxing.oned.rss.expanded;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
@@ -116,6 +117,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   private final List<ExpandedPair> pairs = new ArrayList<ExpandedPair>(MAX_PAIRS);
   private final List<ExpandedRow> rows = new ArrayList<ExpandedRow>();
   private final int [] startEnd = new int[2];
+  private DecodeDeadline deadline;
   //private final int [] currentSequence = new int[LONGEST_SEQUENCE_SIZE];
   private boolean startFromEven = false;
 
@@ -123,21 +125,39 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    Result result = tryDecodeRow(rowNumber, row, hints);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  @Override
+  public Result tryDecodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) {
+    this.deadline = DecodeDeadline.fromHints(hints);
     // Rows can start with even pattern in case in prev rows there where odd number of patters.
     // So lets try twice
     this.pairs.clear();
     this.startFromEven = false;
-    try {
-      List<ExpandedPair> pairs = decodeRow2pairs(rowNumber, row);
-      return constructResult(pairs);
-    } catch (NotFoundException e) {
-      // OK
+    Result result = constructResultOrNull(findRowPairs(rowNumber, row));
+    if (result != null) {
+      return result;
     }
 
     this.pairs.clear();
     this.startFromEven = true;
-    List<ExpandedPair> pairs = decodeRow2pairs(rowNumber, row);
-    return constructResult(pairs);
+    return constructResultOrNull(findRowPairs(rowNumber, row));
+  }
+
+  private static Result constructResultOrNull(List<ExpandedPair> pairs) {
+    if (pairs == null) {
+      return null;
+    }
+    try {
+      return constructResult(pairs);
+    } catch (NotFoundException e) {
+      return null;
+    }
   }
 
   @Override
@@ -148,17 +168,27 @@ public final class RSSExpandedReader extends AbstractRSSReader {
 
   // Not private for testing
   List<ExpandedPair> decodeRow2pairs(int rowNumber, BitArray row) throws NotFoundException {
+    List<ExpandedPair> rowPairs = findRowPairs(rowNumber, row);
+    if (rowPairs == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return rowPairs;
+  }
+
+  // As decodeRow2pairs(), but returns null when the row (alone or stacked) yields no valid pairs
+  private List<ExpandedPair> findRowPairs(int rowNumber, BitArray row) {
     try {
-      while (true){
-        ExpandedPair nextPair = retrieveNextPair(row, this.pairs, rowNumber);
+      ExpandedPair nextPair;
+      while ((nextPair = retrieveNextPair(row, this.pairs, rowNumber)) != null) {
         this.pairs.add(nextPair);
         //System.out.println(this.pairs.size()+" pairs found so far on row "+rowNumber+": "+this.pairs);
-        // exit this loop when retrieveNextPair() fails and throws
+        // exit this loop when no further finder pattern is found, or a pair fails to decode
       }
     } catch (NotFoundException nfe) {
-      if (this.pairs.isEmpty()) {
-        throw nfe;
-      }
+      // keep the pairs we already have
+    }
+    if (this.pairs.isEmpty()) {
+      return null;
     }
 
     // TODO: verify sequence of finder patterns as in checkPairSequence()
@@ -182,7 +212,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
       }
     }
     
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   private List<ExpandedPair> checkRows(boolean reverse) {
@@ -217,6 +247,10 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   // Recursion is used to implement backtracking
   private List<ExpandedPair> checkRows(List<ExpandedRow> collectedRows, int currentRow) throws NotFoundException {
     for (int i = currentRow; i < rows.size(); i++) {
+      // Backtracking over stored rows can take very long on noisy input
+      if (DecodeDeadline.isExpired(deadline)) {
+        break;
+      }
       ExpandedRow row = rows.get(i);
       this.pairs.clear();
       int size = collectedRows.size();
@@ -421,7 +455,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     return currentPos;
   }
 
-  // not private for testing
+  // not private for testing; returns null once the row has no further finder pattern
   ExpandedPair retrieveNextPair(BitArray row, List<ExpandedPair> previousPairs, int rowNumber)
       throws NotFoundException {
     boolean isOddPattern  = previousPairs.size() % 2 == 0;
@@ -434,7 +468,9 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     boolean keepFinding = true;
     int forcedOffset = -1;
     do{
-      this.findNextPair(row, previousPairs, forcedOffset);
+      if (!this.findNextPair(row, previousPairs, forcedOffset)) {
+        return null;
+      }
       pattern = parseFoundFinderPattern(row, rowNumber, isOddPattern);
       if (pattern == null){
         forcedOffset = getNextSecondBar(row, this.startEnd[0]);
@@ -462,8 +498,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     return new ExpandedPair(leftChar, rightChar, pattern, mayBeLast);
   }
 
-  private void findNextPair(BitArray row, List<ExpandedPair> previousPairs, int forcedOffset)
-      throws NotFoundException {
+  private boolean findNextPair(BitArray row, List<ExpandedPair> previousPairs, int forcedOffset) {
     int[] counters = this.getDecodeFinderCounters();
     counters[0] = 0;
     counters[1] = 0;
@@ -509,7 +544,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
           if (isFinderPattern(counters)){
             this.startEnd[0] = patternStart;
             this.startEnd[1] = x;
-            return;
+            return true;
           }
 
           if (searchingEvenPair) {
@@ -529,7 +564,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return false;
   }
 
   private static void reverseCounters(int [] counters){
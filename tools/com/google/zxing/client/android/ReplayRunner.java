@@ -0,0 +1,183 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.android;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeStage;
+import com.google.zxing.client.android.camera.FrameRecorder;
+import com.google.zxing.client.android.camera.NV21FileFrameSource;
+import com.google.zxing.client.android.camera.RecordedFrameSource;
+import com.google.zxing.client.android.camera.SequentialFrameSource;
+import com.google.zxing.client.android.camera.SyntheticFrameSource;
+import com.google.zxing.common.HistogramDecodeListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Runs recorded or synthetic NV21 frames through {@link FrameDecoder} on a plain JVM, with the
+ * same hints and time budget as the device, and reports how many frames it took to get the first
+ * result, per-frame latency percentiles and throughput. Usage:
+ *
+ * <pre>
+ * ReplayRunner synthetic [width height frames firstBarcodeFrame]
+ * ReplayRunner directory width height
+ * ReplayRunner ringFile
+ * </pre>
+ *
+ * <p>The ring file is one written by {@link FrameRecorder} on a device.</p>
+ */
+public final class ReplayRunner {
+
+  private static final int DEFAULT_WIDTH = 640;
+  private static final int DEFAULT_HEIGHT = 480;
+  private static final int DEFAULT_FRAMES = 120;
+  private static final int DEFAULT_FIRST_BARCODE_FRAME = 20;
+
+  private ReplayRunner() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    SequentialFrameSource frames;
+    if (args.length >= 1 && "synthetic".equals(args[0])) {
+      int width = args.length > 2 ? Integer.parseInt(args[1]) : DEFAULT_WIDTH;
+      int height = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_HEIGHT;
+      int count = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_FRAMES;
+      int first = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_FIRST_BARCODE_FRAME;
+      frames = new SyntheticFrameSource(width, height, "REPLAY-0123456789", count, first, 1L);
+    } else if (args.length == 1) {
+      frames = new RecordedFrameSource(new File(args[0]));
+    } else if (args.length == 3) {
+      frames = new NV21FileFrameSource(new File(args[0]),
+                                       Integer.parseInt(args[1]),
+                                       Integer.parseInt(args[2]),
+                                       null);
+    } else {
+      System.err.println("Usage: ReplayRunner synthetic [width height frames firstBarcodeFrame]");
+      System.err.println("       ReplayRunner directory width height");
+      System.err.println("       ReplayRunner ringFile");
+      return;
+    }
+    try {
+      run(frames);
+    } finally {
+      frames.close();
+    }
+  }
+
+  private static void run(SequentialFrameSource frames) throws IOException {
+    HistogramDecodeListener listener = new HistogramDecodeListener();
+    Map<DecodeHintType,Object> hints = new EnumMap<DecodeHintType,Object>(DecodeHintType.class);
+    // The scanner's 1D formats; DecodeFormatManager itself depends on Android
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, new ArrayList<BarcodeFormat>(EnumSet.of(
+        BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8,
+        BarcodeFormat.RSS_14, BarcodeFormat.RSS_EXPANDED, BarcodeFormat.CODE_39,
+        BarcodeFormat.CODE_93, BarcodeFormat.CODE_128, BarcodeFormat.ITF, BarcodeFormat.CODABAR)));
+    hints.put(DecodeHintType.DECODE_DEADLINE, new DecodeDeadline(FrameDecoder.DECODE_BUDGET_MS));
+    hints.put(DecodeHintType.NEED_DECODE_LISTENER, listener);
+    FrameDecoder frameDecoder = new FrameDecoder(hints);
+    // As on the device by default
+    FrameQualityGate qualityGate = new FrameQualityGate();
+    frameDecoder.setQualityGate(qualityGate);
+    frameDecoder.setRegionTracker(new RegionTracker());
+
+    long[] latencies = new long[16];
+    int frameCount = 0;
+    int firstResultFrame = -1;
+    int found = 0;
+    int timedOut = 0;
+    // Frames that failed on the device but decode here
+    int recoveredFailures = 0;
+    long runStart = System.nanoTime();
+    byte[] data;
+    while ((data = frames.nextFrame()) != null) {
+      long start = System.nanoTime();
+      boolean decoded = frameDecoder.decode(data,
+                                            frames.getFrameWidth(),
+                                            frames.getFrameHeight(),
+                                            frames);
+      long elapsed = System.nanoTime() - start;
+      if (frameCount == latencies.length) {
+        long[] newLatencies = new long[latencies.length * 2];
+        System.arraycopy(latencies, 0, newLatencies, 0, latencies.length);
+        latencies = newLatencies;
+      }
+      latencies[frameCount] = elapsed;
+      if (decoded) {
+        found++;
+        if (frames instanceof RecordedFrameSource &&
+            ((RecordedFrameSource) frames).getRecordedOutcome() != FrameRecorder.OUTCOME_FOUND) {
+          recoveredFailures++;
+        }
+        if (firstResultFrame < 0) {
+          firstResultFrame = frameCount;
+          System.out.println("First result at frame " + frameCount + ": " +
+              frameDecoder.getResults()[0].getText());
+        }
+      } else if (frameDecoder.isTimedOut()) {
+        timedOut++;
+      }
+      frameCount++;
+    }
+    long runNanos = System.nanoTime() - runStart;
+
+    if (frameCount == 0) {
+      System.out.println("No frames");
+      return;
+    }
+    Arrays.sort(latencies, 0, frameCount);
+    System.out.println("Frames: " + frameCount + ", with results: " + found +
+        ", timed out: " + timedOut + ", skipped as blurred or moving: " +
+        qualityGate.getSkippedFrames());
+    System.out.println("Tracked region hits: " + frameDecoder.getRegionHits() + ", misses: " +
+        frameDecoder.getRegionMisses());
+    if (frames instanceof RecordedFrameSource) {
+      System.out.println("Failed on device but decoded here: " + recoveredFailures);
+    }
+    System.out.println("Frames to first result: " +
+        (firstResultFrame < 0 ? "none" : String.valueOf(firstResultFrame + 1)));
+    System.out.println("Latency ms: p50=" + millis(percentile(latencies, frameCount, 0.5)) +
+        " p90=" + millis(percentile(latencies, frameCount, 0.9)) +
+        " p99=" + millis(percentile(latencies, frameCount, 0.99)) +
+        " max=" + millis(latencies[frameCount - 1]));
+    System.out.println("Throughput: " + (frameCount * 1000000000L / Math.max(1L, runNanos)) +
+        " frames/s");
+    for (DecodeStage stage : DecodeStage.values()) {
+      if (listener.getCount(stage) > 0) {
+        System.out.println(stage + ": p50=" + millis(listener.getQuantileNanos(stage, 0.5)) +
+            " ms over " + listener.getCount(stage));
+      }
+    }
+  }
+
+  private static long percentile(long[] sorted, int count, double fraction) {
+    int index = (int) Math.ceil(fraction * count) - 1;
+    return sorted[Math.max(0, Math.min(count - 1, index))];
+  }
+
+  private static String millis(long nanos) {
+    return String.valueOf(nanos / 1000L / 1000.0);
+  }
+
+}
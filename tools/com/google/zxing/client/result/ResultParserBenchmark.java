@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.client.result;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures {@link ResultParser#parseResult(Result)} on a plain JVM, against trying every parser in
+ * turn as it did before dispatch by first character and format, on a mix like a retail scanner
+ * sees: mostly EAN and UPC codes, then URLs, plain text, Wi-Fi settings and data column codes.
+ * First checks that both give the same result, or throw the same exception, for the mix, for
+ * fixed tricky inputs in every format and for random prefix soup; it stops if they differ.
+ * Usage:
+ *
+ * <pre>
+ * ResultParserBenchmark [results [rounds]]
+ * </pre>
+ */
+public final class ResultParserBenchmark {
+
+  private static final int DEFAULT_RESULTS = 20000;
+  private static final int DEFAULT_ROUNDS = 5;
+  private static final int RANDOM_CHECKS = 200000;
+  private static final int REPEATS = 10;
+
+  // The order parseResult() used to try them in
+  private static final ResultParser[] LINEAR_PARSERS = {
+      new WifiResultParser(),
+      new URLTOResultParser(),
+      new URIResultParser(),
+      new ProductResultParser(),
+      new DataColumnResultParser(),
+  };
+
+  private static final String[] TRICKY_TEXTS = {
+      "http://example.com/x?y=1", "HTTPS://EXAMPLE.COM", "www.google.com", "WIFI:S:net;T:WPA;P:pw;;",
+      "WIFI:T:WPA;;", "URLTO:title:http://a.b", "urlto::x", "URL: http://a b", "URI:foo", "hello world",
+      "\ufeffWIFI:S:x;;", "  example.org ", "-a.bc", "mailto:a@b.c", "0123456789012", "12345670",
+      "04210000526", "abc", "", " ", "a:b", "..", "1.2", "\u00df.de", "Wx", "urlto", "12:34", "foo.bar baz",
+  };
+  private static final String[] RANDOM_PREFIXES = { "WIFI:", "URLTO:", "urlto:", "URL:", "URI:", "http:" };
+  private static final String RANDOM_ALPHABET = "WIFIURLTOurlto:;.- \ufeff0123456789abcS:P:/";
+
+  private ResultParserBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RESULTS;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+    Random random = new Random(1L);
+    List<Result> mix = makeMix(random, count);
+
+    int checked = checkEquivalence(mix, random);
+    System.out.println("Linear and dispatched parsing agree on " + checked + " results");
+
+    int sink = 0;
+    for (int round = 1; round <= rounds; round++) {
+      long start = System.nanoTime();
+      for (int repeat = 0; repeat < REPEATS; repeat++) {
+        for (Result result : mix) {
+          sink += parseLinearly(result).getType().ordinal();
+        }
+      }
+      long linearNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int repeat = 0; repeat < REPEATS; repeat++) {
+        for (Result result : mix) {
+          sink += ResultParser.parseResult(result).getType().ordinal();
+        }
+      }
+      long dispatchedNanos = System.nanoTime() - start;
+      double parses = (double) REPEATS * count;
+      System.out.printf("round %d  linear %6.0f ns/result  dispatched %6.0f ns/result%n",
+                        round, linearNanos / parses, dispatchedNanos / parses);
+    }
+    // Keeps the work from being optimized away
+    if (sink == 42) {
+      System.out.println();
+    }
+  }
+
+  private static ParsedResult parseLinearly(Result result) {
+    for (ResultParser parser : LINEAR_PARSERS) {
+      ParsedResult parsed = parser.parse(result);
+      if (parsed != null) {
+        return parsed;
+      }
+    }
+    return new TextParsedResult(result.getText(), null);
+  }
+
+  /**
+   * @return number of results checked
+   * @throws IllegalStateException if the two ways of parsing differ on any of them
+   */
+  private static int checkEquivalence(List<Result> mix, Random random) {
+    int checked = 0;
+    for (Result result : mix) {
+      checkEquivalence(result);
+      checked++;
+    }
+    BarcodeFormat[] formats = BarcodeFormat.values();
+    for (String text : TRICKY_TEXTS) {
+      for (BarcodeFormat format : formats) {
+        checkEquivalence(new Result(text, null, null, format));
+        checked++;
+      }
+    }
+    for (int i = 0; i < RANDOM_CHECKS; i++) {
+      StringBuilder text = new StringBuilder();
+      if (random.nextInt(4) == 0) {
+        text.append(RANDOM_PREFIXES[random.nextInt(RANDOM_PREFIXES.length)]);
+      }
+      for (int length = random.nextInt(12); length > 0; length--) {
+        text.append(RANDOM_ALPHABET.charAt(random.nextInt(RANDOM_ALPHABET.length())));
+      }
+      checkEquivalence(new Result(text.toString(), null, null, formats[random.nextInt(formats.length)]));
+      checked++;
+    }
+    return checked;
+  }
+
+  private static void checkEquivalence(Result result) {
+    String linear;
+    try {
+      linear = describe(parseLinearly(result));
+    } catch (RuntimeException re) {
+      linear = re.getClass().getName();
+    }
+    String dispatched;
+    try {
+      dispatched = describe(ResultParser.parseResult(result));
+    } catch (RuntimeException re) {
+      dispatched = re.getClass().getName();
+    }
+    if (!linear.equals(dispatched)) {
+      throw new IllegalStateException(result.getBarcodeFormat() + " \"" + result.getText() + "\": " +
+                                      linear + " linearly, but " + dispatched + " dispatched");
+    }
+  }
+
+  private static String describe(ParsedResult parsed) {
+    return parsed.getClass().getSimpleName() + '|' + parsed.getType() + '|' + parsed.getDisplayResult();
+  }
+
+  /**
+   * @return half product codes, a fifth URLs, and a tenth each of plain text, Wi-Fi settings and
+   *  data column codes
+   */
+  private static List<Result> makeMix(Random random, int count) {
+    BarcodeFormat[] productFormats = { BarcodeFormat.EAN_13, BarcodeFormat.UPC_A, BarcodeFormat.EAN_8 };
+    List<Result> mix = new ArrayList<Result>(count);
+    for (int i = 0; i < count; i++) {
+      int kind = random.nextInt(10);
+      String text;
+      BarcodeFormat format;
+      if (kind < 5) {
+        StringBuilder digits = new StringBuilder(13);
+        for (int j = 0; j < 13; j++) {
+          digits.append((char) ('0' + random.nextInt(10)));
+        }
+        text = digits.toString();
+        format = productFormats[random.nextInt(productFormats.length)];
+      } else if (kind < 7) {
+        text = "http://example.com/p/" + random.nextInt(100000);
+        format = BarcodeFormat.QR_CODE;
+      } else if (kind < 8) {
+        text = "Lot " + random.nextInt(99999) + " batch text";
+        format = BarcodeFormat.CODE_128;
+      } else if (kind < 9) {
+        text = "WIFI:S:net" + random.nextInt(99) + ";T:WPA;P:secret;;";
+        format = BarcodeFormat.QR_CODE;
+      } else {
+        text = "DC" + random.nextInt(1000000);
+        format = BarcodeFormat.DATA_COLUMN;
+      }
+      mix.add(new Result(text, null, null, format));
+    }
+    return mix;
+  }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.MonochromeImageWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link LabelBatchRenderer} throughput on a plain JVM, against encoding each label to a
+ * {@link BitMatrix} with the format's writer and then writing that, and reports labels and
+ * megabytes per second. Images are counted and discarded. Usage:
+ *
+ * <pre>
+ * LabelBatchBenchmark [CODE_128|EAN_13 [labels [threads [PNG|PBM [width height]]]]]
+ * </pre>
+ */
+public final class LabelBatchBenchmark {
+
+  private static final int DEFAULT_LABELS = 20000;
+  private static final int DEFAULT_WIDTH = 600;
+  private static final int DEFAULT_HEIGHT = 200;
+  private static final int ROUNDS = 5;
+
+  private LabelBatchBenchmark() {
+  }
+
+  public static void main(String[] args) throws IOException, WriterException {
+    BarcodeFormat format = args.length > 0 ? BarcodeFormat.valueOf(args[0]) : BarcodeFormat.CODE_128;
+    int labels = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LABELS;
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    MonochromeImageWriter.Format imageFormat =
+        args.length > 3 ? MonochromeImageWriter.Format.valueOf(args[3]) : MonochromeImageWriter.Format.PNG;
+    int width = args.length > 5 ? Integer.parseInt(args[4]) : DEFAULT_WIDTH;
+    int height = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_HEIGHT;
+    if (format != BarcodeFormat.CODE_128 && format != BarcodeFormat.EAN_13) {
+      System.err.println("Usage: LabelBatchBenchmark [CODE_128|EAN_13 [labels [threads [PNG|PBM [width height]]]]]");
+      return;
+    }
+
+    List<String> contents = makeContents(format, labels);
+    LabelBatchRenderer renderer = new LabelBatchRenderer(format, width, height, null, imageFormat);
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    try {
+      for (int round = 1; round <= ROUNDS; round++) {
+        CountingSink sink = new CountingSink();
+        long start = System.nanoTime();
+        renderViaMatrix(format, contents, width, height, imageFormat, sink);
+        report(round, "matrix, 1 thread", labels, sink.bytes.get(), System.nanoTime() - start);
+
+        sink = new CountingSink();
+        start = System.nanoTime();
+        renderer.renderAll(contents, sink);
+        report(round, "batch, 1 thread", labels, sink.bytes.get(), System.nanoTime() - start);
+
+        sink = new CountingSink();
+        start = System.nanoTime();
+        renderer.renderAll(contents, sink, workers, threads);
+        report(round, "batch, " + threads + " threads", labels, sink.bytes.get(), System.nanoTime() - start);
+      }
+    } finally {
+      workers.shutdown();
+    }
+  }
+
+  private static void renderViaMatrix(BarcodeFormat format,
+                                      List<String> contents,
+                                      int width,
+                                      int height,
+                                      MonochromeImageWriter.Format imageFormat,
+                                      CountingSink sink) throws IOException, WriterException {
+    OneDimensionalCodeWriter writer = format == BarcodeFormat.EAN_13 ? new EAN13Writer() : new Code128Writer();
+    MonochromeImageWriter imageWriter = new MonochromeImageWriter(imageFormat);
+    for (int i = 0; i < contents.size(); i++) {
+      BitMatrix matrix = writer.encode(contents.get(i), format, width, height);
+      OutputStream out = sink.open(i, contents.get(i));
+      imageWriter.write(matrix, out);
+      out.close();
+    }
+  }
+
+  private static void report(int round, String method, int labels, long bytes, long nanos) {
+    double seconds = nanos / 1.0e9;
+    System.out.printf("round %d  %-18s %8.0f labels/s  %6.1f MB/s  %.1f KB/label%n",
+                      round, method, labels / seconds, bytes / seconds / 1.0e6, bytes / 1024.0 / labels);
+  }
+
+  /**
+   * @return nightly-run-like contents: serials for Code 128, valid random EAN-13 codes otherwise
+   */
+  private static List<String> makeContents(BarcodeFormat format, int count) {
+    Random random = new Random(1L);
+    List<String> contents = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      if (format == BarcodeFormat.CODE_128) {
+        contents.add("LOT" + (100000 + random.nextInt(900000)) + "-SN" + i);
+      } else {
+        StringBuilder code = new StringBuilder(13);
+        int sum = 0;
+        for (int j = 0; j < 12; j++) {
+          int digit = random.nextInt(10);
+          code.append((char) ('0' + digit));
+          // EAN-13 weights alternate 1, 3 from the left
+          sum += (j & 1) == 0 ? digit : 3 * digit;
+        }
+        code.append((char) ('0' + (10 - sum % 10) % 10));
+        contents.add(code.toString());
+      }
+    }
+    return contents;
+  }
+
+  private static final class CountingSink implements LabelBatchRenderer.Sink {
+
+    final AtomicLong bytes = new AtomicLong();
+
+    @Override
+    public OutputStream open(int index, String contents) {
+      return new OutputStream() {
+        private long count;
+
+        @Override
+        public void write(int b) {
+          count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          count += len;
+        }
+
+        @Override
+        public void close() {
+          bytes.addAndGet(count);
+        }
+      };
+    }
+
+  }
+
+}
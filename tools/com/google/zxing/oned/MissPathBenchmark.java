@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.common.BitArray;
+
+import java.util.Random;
+
+/**
+ * Measures what a miss costs in the one-dimensional readers on a plain JVM: each reader is given
+ * rows of noise through {@link OneDReader#decodeRow}, which throws on a miss, and through
+ * {@link OneDReader#tryDecodeRow}, which returns null, and the time per row of each is reported.
+ * Usage:
+ *
+ * <pre>
+ * MissPathBenchmark [rows [width]]
+ * </pre>
+ *
+ * <p>HotSpot throws the preallocated {@link com.google.zxing.NotFoundException} cheaply, so the
+ * difference here understates what Dalvik pays for the throw and unwind.</p>
+ */
+public final class MissPathBenchmark {
+
+  private static final int DEFAULT_ROWS = 20000;
+  private static final int DEFAULT_WIDTH = 640;
+  private static final int ROUNDS = 5;
+  // Widest run of one colour in a noise row, in pixels
+  private static final int MAX_RUN = 8;
+
+  private MissPathBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+    int width = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WIDTH;
+    BitArray[] rows = makeNoiseRows(rowCount, width);
+    OneDReader[] readers = {
+        new MultiFormatOneDReader(null),
+        new EAN13Reader(),
+        new Code128Reader(),
+        new Code39Reader(),
+        new Code93Reader(),
+        new ITFReader(),
+        new CodaBarReader(),
+    };
+    for (int round = 1; round <= ROUNDS; round++) {
+      for (OneDReader reader : readers) {
+        long start = System.nanoTime();
+        int thrownMisses = missesByException(reader, rows);
+        long thrownNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        int nullMisses = missesByNull(reader, rows);
+        long nullNanos = System.nanoTime() - start;
+        System.out.printf("round %d  %-22s throwing %7.0f ns/row  null-returning %7.0f ns/row  (%d/%d misses)%n",
+                          round, reader.getClass().getSimpleName(),
+                          (double) thrownNanos / rowCount, (double) nullNanos / rowCount,
+                          thrownMisses, nullMisses);
+      }
+    }
+  }
+
+  private static int missesByException(OneDReader reader, BitArray[] rows) {
+    // RSS readers pair up symbol halves across rows; start each pass from nothing
+    reader.reset();
+    int misses = 0;
+    for (int i = 0; i < rows.length; i++) {
+      try {
+        reader.decodeRow(i, rows[i], null);
+      } catch (ReaderException re) {
+        misses++;
+      }
+    }
+    return misses;
+  }
+
+  private static int missesByNull(OneDReader reader, BitArray[] rows) {
+    // RSS readers pair up symbol halves across rows; start each pass from nothing
+    reader.reset();
+    int misses = 0;
+    for (int i = 0; i < rows.length; i++) {
+      if (reader.tryDecodeRow(i, rows[i], null) == null) {
+        misses++;
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * @return rows of alternating black and white runs of random width, like a binarized row
+   *  of a scene with no barcode in it
+   */
+  private static BitArray[] makeNoiseRows(int count, int width) {
+    Random random = new Random(1L);
+    BitArray[] rows = new BitArray[count];
+    for (int i = 0; i < count; i++) {
+      BitArray row = new BitArray(width);
+      boolean black = random.nextBoolean();
+      int x = 0;
+      while (x < width) {
+        int end = Math.min(width, x + 1 + random.nextInt(MAX_RUN));
+        if (black) {
+          row.setRange(x, end);
+        }
+        black = !black;
+        x = end;
+      }
+      rows[i] = row;
+    }
+    return rows;
+  }
+
+}